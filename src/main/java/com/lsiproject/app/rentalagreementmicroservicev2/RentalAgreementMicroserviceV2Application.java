@@ -3,8 +3,10 @@ package com.lsiproject.app.rentalagreementmicroservicev2;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @EnableFeignClients
+@EnableScheduling
 @SpringBootApplication
 public class RentalAgreementMicroserviceV2Application {
 
@@ -0,0 +1,82 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.billing;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.TypeOfRental;
+
+import java.time.LocalDate;
+
+/**
+ * Calendrier de facturation : toute l'arithmétique des périodes d'un contrat, en temps constant.
+ *
+ * La période k (k ≥ 0) commence à startDate + k unités (jours ou mois, selon le type de location).
+ * Les dates sont toujours calculées depuis startDate et non de proche en proche : un contrat commencé
+ * le 31 janvier a ses périodes au 28/29 février puis au 31 mars (pas au 28 mars).
+ *
+ * Les montants sont comparés en centimes, avec la tolérance d'un centime de l'ancien calcul.
+ */
+public final class BillingCalendar {
+
+    private BillingCalendar() {
+    }
+
+    /**
+     * Début de la période d'indice {@code index}.
+     */
+    public static LocalDate periodStart(LocalDate startDate, long index, TypeOfRental typeOfRental) {
+        return startDate.plus(index, typeOfRental.getBillingUnit());
+    }
+
+    /**
+     * Nombre de périodes commencées au plus tard à {@code limit} (0 si le contrat commence après).
+     */
+    public static long periodsStartedBy(LocalDate startDate, LocalDate limit, TypeOfRental typeOfRental) {
+        if (startDate.isAfter(limit)) {
+            return 0;
+        }
+        long lastIndex = typeOfRental.getBillingUnit().between(startDate, limit);
+        // ChronoUnit.MONTHS.between compare les jours du mois : du 31/01 au 28/02 il compte 0 mois,
+        // alors que la période 1 commence bien le 28/02 (plusMonths ramène au dernier jour du mois).
+        if (!periodStart(startDate, lastIndex + 1, typeOfRental).isAfter(limit)) {
+            lastIndex++;
+        }
+        return lastIndex + 1;
+    }
+
+    /**
+     * Nombre de périodes complètes entre le début et la fin du contrat (base du montant total du contrat).
+     */
+    public static long fullPeriodsBetween(LocalDate startDate, LocalDate endDate, TypeOfRental typeOfRental) {
+        return typeOfRental.getBillingUnit().between(startDate, endDate);
+    }
+
+    /**
+     * Situation à la date {@code asOf} : périodes dues jusqu'à min(asOf, endDate), couvertes par {@code totalPaid}
+     * en commençant par la première période.
+     */
+    public static BillingStatement statement(LocalDate startDate, LocalDate endDate, LocalDate asOf,
+                                             TypeOfRental typeOfRental, double rentAmount, double totalPaid) {
+        LocalDate limit = asOf.isBefore(endDate) ? asOf : endDate;
+        long elapsed = periodsStartedBy(startDate, limit, typeOfRental);
+        long covered = Math.min(elapsed, coveredPeriods(rentAmount, totalPaid));
+
+        MissedPeriods missed = covered < elapsed
+                ? new MissedPeriods(startDate, typeOfRental, covered, elapsed - covered)
+                : MissedPeriods.none(startDate, typeOfRental);
+
+        LocalDate next = periodStart(startDate, elapsed, typeOfRental);
+        LocalDate nextDueDate = next.isAfter(endDate) ? null : next;
+
+        return new BillingStatement(elapsed, covered, elapsed * rentAmount, missed, nextDueDate);
+    }
+
+    /**
+     * Nombre de loyers entièrement couverts par le montant payé, à un centime près.
+     */
+    static long coveredPeriods(double rentAmount, double totalPaid) {
+        long rentCents = Math.round(rentAmount * 100);
+        long paidCents = Math.round(totalPaid * 100);
+        if (rentCents <= 0) {
+            return Long.MAX_VALUE;
+        }
+        return paidCents < 0 ? 0 : (paidCents + 1) / rentCents;
+    }
+}
@@ -0,0 +1,21 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.billing;
+
+import java.time.LocalDate;
+
+/**
+ * Situation de facturation d'un contrat à une date donnée.
+ *
+ * @param elapsedPeriods Périodes commencées (dues) à la date de calcul.
+ * @param coveredPeriods Périodes couvertes par les paiements, en partant de la première.
+ * @param expectedAmount Montant dû à la date de calcul (elapsedPeriods × loyer).
+ * @param missed         Périodes dues non couvertes.
+ * @param nextDueDate    Début de la prochaine période à échoir, ou null si le contrat n'en a plus :
+ *                       la situation ne change pas avant cette date tant qu'aucun paiement n'arrive.
+ */
+public record BillingStatement(long elapsedPeriods, long coveredPeriods, double expectedAmount, MissedPeriods missed,
+                               LocalDate nextDueDate) {
+
+    public long missedPeriods() {
+        return missed.count();
+    }
+}
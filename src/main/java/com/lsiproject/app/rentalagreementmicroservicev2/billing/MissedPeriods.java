@@ -0,0 +1,50 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.billing;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.TypeOfRental;
+
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * Périodes impayées d'un contrat, sous forme de plage d'indices de périodes [firstIndex, firstIndex + count).
+ * Les dates ne sont calculées qu'à la lecture (dates() est une vue, rien n'est matérialisé).
+ */
+public record MissedPeriods(LocalDate contractStart, TypeOfRental typeOfRental, long firstIndex, long count) {
+
+    public static MissedPeriods none(LocalDate contractStart, TypeOfRental typeOfRental) {
+        return new MissedPeriods(contractStart, typeOfRental, 0, 0);
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Début de la première période impayée, ou null s'il n'y en a pas.
+     */
+    public LocalDate firstDate() {
+        return isEmpty() ? null : BillingCalendar.periodStart(contractStart, firstIndex, typeOfRental);
+    }
+
+    /**
+     * Vue en lecture seule des dates de début des périodes impayées.
+     */
+    public List<LocalDate> dates() {
+        int size = Math.toIntExact(count);
+        return new AbstractList<>() {
+            @Override
+            public LocalDate get(int index) {
+                if (index < 0 || index >= size) {
+                    throw new IndexOutOfBoundsException(index);
+                }
+                return BillingCalendar.periodStart(contractStart, firstIndex + index, typeOfRental);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+}
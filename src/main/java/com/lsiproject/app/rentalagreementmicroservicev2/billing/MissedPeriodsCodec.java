@@ -0,0 +1,178 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.billing;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.TypeOfRental;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encodage compact des périodes impayées d'un rapport : plages d'indices de périodes (run-length),
+ * relatives à la date de début du contrat.
+ *
+ *   2024-01-31;MONTHLY;12+30        périodes 12 à 41
+ *   2023-05-01;DAILY;3+2,10+400     périodes 3-4 et 10-409
+ *
+ * La chaîne se suffit à elle-même (début et type inclus) : le décodage ne charge pas le contrat.
+ * Sa taille ne dépend que du nombre de plages, pas du nombre de périodes (null si aucune période impayée).
+ * Les dates ne sont jamais matérialisées : dates() renvoie une vue calculée à la lecture.
+ */
+public final class MissedPeriodsCodec {
+
+    private static final char FIELD_SEPARATOR = ';';
+    private static final char RUN_SEPARATOR = ',';
+    private static final char COUNT_SEPARATOR = '+';
+
+    private MissedPeriodsCodec() {
+    }
+
+    public static String encode(MissedPeriods missed) {
+        return encode(List.of(missed));
+    }
+
+    /**
+     * @param runs Plages d'un même contrat (même début, même type), dans l'ordre des périodes.
+     * @return La chaîne encodée, ou null si aucune plage n'est non vide.
+     */
+    public static String encode(List<MissedPeriods> runs) {
+        StringBuilder encoded = null;
+        for (MissedPeriods run : runs) {
+            if (run.isEmpty()) {
+                continue;
+            }
+            if (encoded == null) {
+                encoded = new StringBuilder()
+                        .append(run.contractStart()).append(FIELD_SEPARATOR)
+                        .append(run.typeOfRental().name()).append(FIELD_SEPARATOR);
+            } else {
+                encoded.append(RUN_SEPARATOR);
+            }
+            encoded.append(run.firstIndex()).append(COUNT_SEPARATOR).append(run.count());
+        }
+        return encoded == null ? null : encoded.toString();
+    }
+
+    /**
+     * Plages encodées (liste vide pour null ou une chaîne vide).
+     *
+     * @throws IllegalArgumentException si la chaîne n'est pas au format attendu.
+     */
+    public static List<MissedPeriods> decode(String encoded) {
+        if (encoded == null || encoded.isEmpty()) {
+            return List.of();
+        }
+        int typeStart = encoded.indexOf(FIELD_SEPARATOR);
+        int runsStart = encoded.indexOf(FIELD_SEPARATOR, typeStart + 1);
+        if (typeStart < 0 || runsStart < 0) {
+            throw invalid(encoded, null);
+        }
+
+        LocalDate contractStart;
+        TypeOfRental typeOfRental;
+        try {
+            contractStart = LocalDate.parse(encoded.substring(0, typeStart));
+            typeOfRental = TypeOfRental.valueOf(encoded.substring(typeStart + 1, runsStart));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw invalid(encoded, e);
+        }
+
+        List<MissedPeriods> runs = new ArrayList<>();
+        int from = runsStart + 1;
+        while (from < encoded.length()) {
+            int to = encoded.indexOf(RUN_SEPARATOR, from);
+            if (to < 0) {
+                to = encoded.length();
+            }
+            int plus = encoded.indexOf(COUNT_SEPARATOR, from);
+            if (plus < 0 || plus > to) {
+                throw invalid(encoded, null);
+            }
+            try {
+                runs.add(new MissedPeriods(contractStart, typeOfRental,
+                        Long.parseLong(encoded, from, plus, 10),
+                        Long.parseLong(encoded, plus + 1, to, 10)));
+            } catch (NumberFormatException e) {
+                throw invalid(encoded, e);
+            }
+            from = to + 1;
+        }
+        return runs;
+    }
+
+    private static IllegalArgumentException invalid(String encoded, Exception cause) {
+        return new IllegalArgumentException("Invalid missed periods encoding: " + encoded, cause);
+    }
+
+    /**
+     * Réencode l'ancien format (dates jointes par des virgules, ex. "2025-01-01,2025-02-01") pour la migration.
+     * Chaque date est ramenée à l'indice de la période qui la contient ; les dates de l'ancienne boucle ayant pu
+     * dériver après un mois court (31/01 -> 29/02 -> 29/03), deux dates successives occupent toujours deux
+     * périodes successives, pour conserver le nombre de périodes impayées.
+     *
+     * @return La chaîne encodée, ou null si l'ancienne valeur est vide.
+     */
+    public static String encodeLegacy(String joinedDates, LocalDate contractStart, TypeOfRental typeOfRental) {
+        if (joinedDates == null || joinedDates.isBlank()) {
+            return null;
+        }
+        List<MissedPeriods> runs = new ArrayList<>();
+        long runStart = -1;
+        long previous = -1;
+        for (String date : joinedDates.split(",")) {
+            long index = Math.max(
+                    BillingCalendar.periodsStartedBy(contractStart, LocalDate.parse(date.trim()), typeOfRental) - 1,
+                    previous + 1);
+            if (index != previous + 1 || runStart < 0) {
+                if (runStart >= 0) {
+                    runs.add(new MissedPeriods(contractStart, typeOfRental, runStart, previous - runStart + 1));
+                }
+                runStart = index;
+            }
+            previous = index;
+        }
+        runs.add(new MissedPeriods(contractStart, typeOfRental, runStart, previous - runStart + 1));
+        return encode(runs);
+    }
+
+    /**
+     * Nombre total de périodes impayées, sans calculer de date.
+     */
+    public static long count(String encoded) {
+        return decode(encoded).stream().mapToLong(MissedPeriods::count).sum();
+    }
+
+    /**
+     * Vue en lecture seule des dates de début des périodes impayées, toutes plages confondues.
+     */
+    public static List<LocalDate> dates(String encoded) {
+        List<MissedPeriods> runs = decode(encoded);
+        if (runs.size() == 1) {
+            return runs.get(0).dates();
+        }
+        int size = Math.toIntExact(runs.stream().mapToLong(MissedPeriods::count).sum());
+        return new AbstractList<>() {
+            @Override
+            public LocalDate get(int index) {
+                if (index < 0 || index >= size) {
+                    throw new IndexOutOfBoundsException(index);
+                }
+                long remaining = index;
+                for (MissedPeriods run : runs) {
+                    if (remaining < run.count()) {
+                        return BillingCalendar.periodStart(run.contractStart(), run.firstIndex() + remaining,
+                                run.typeOfRental());
+                    }
+                    remaining -= run.count();
+                }
+                throw new IndexOutOfBoundsException(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+}
@@ -0,0 +1,116 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Configuration des exécuteurs utilisés pour paralléliser les appels distants indépendants
+ * (Feign vers PropertyMicroService, lectures BDD hors transaction).
+ */
+@Configuration
+public class AsyncConfig {
+
+    /**
+     * Pool borné dédié aux appels distants lancés en parallèle depuis les services.
+     * Quand le pool et sa file sont pleins, la tâche s'exécute sur le thread appelant
+     * (dégradation vers le comportement séquentiel plutôt qu'un rejet).
+     */
+    @Bean
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public AsyncTaskExecutor remoteCallExecutor(
+            @Value("${async.remote-calls.core-pool-size:8}") int corePoolSize,
+            @Value("${async.remote-calls.max-pool-size:32}") int maxPoolSize,
+            @Value("${async.remote-calls.queue-capacity:200}") int queueCapacity) {
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("remote-call-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setTaskDecorator(requestContextPropagation());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Variante threads virtuels (spring.threads.virtual.enabled=true sur Java 21+) :
+     * un thread virtuel par tâche, seule la concurrence est bornée pour protéger les services appelés.
+     * Au-delà de la limite, l'appelant attend qu'une place se libère.
+     */
+    @Bean(name = "remoteCallExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public AsyncTaskExecutor virtualRemoteCallExecutor(
+            @Value("${async.remote-calls.concurrency-limit:256}") int concurrencyLimit) {
+
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("remote-call-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(concurrencyLimit);
+        executor.setTaskDecorator(requestContextPropagation());
+        return executor;
+    }
+
+    /**
+     * Exécuteur des appels Feign soumis à un TimeLimiter (voir PropertyResilience).
+     * Distinct de remoteCallExecutor : une tâche de remoteCallExecutor qui attend un appel limité dans le temps
+     * ne doit pas attendre une place dans son propre pool. Pas de file d'attente :
+     * la concurrence est déjà bornée par les bulkheads.
+     * Pool plein (appels interrompus par le timeout mais encore bloqués dans Feign) : la tâche est rejetée.
+     * Exécutée sur le thread appelant, elle échapperait au TimeLimiter ; rejetée, elle compte comme un échec
+     * du circuit breaker et le fallback répond.
+     */
+    @Bean
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public AsyncTaskExecutor propertyCallExecutor(
+            @Value("${async.property-calls.core-pool-size:8}") int corePoolSize,
+            @Value("${async.property-calls.max-pool-size:64}") int maxPoolSize) {
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("property-call-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setTaskDecorator(requestContextPropagation());
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "propertyCallExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public AsyncTaskExecutor virtualPropertyCallExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("property-call-");
+        executor.setVirtualThreads(true);
+        executor.setTaskDecorator(requestContextPropagation());
+        return executor;
+    }
+
+    /**
+     * Propage le contexte de la requête HTTP en cours vers le thread d'exécution
+     * (nécessaire par exemple pour que le fallback puisse marquer la réponse comme stale).
+     */
+    static TaskDecorator requestContextPropagation() {
+        return runnable -> {
+            RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+            return () -> {
+                RequestContextHolder.setRequestAttributes(attributes);
+                try {
+                    runnable.run();
+                } finally {
+                    RequestContextHolder.resetRequestAttributes();
+                }
+            };
+        };
+    }
+}
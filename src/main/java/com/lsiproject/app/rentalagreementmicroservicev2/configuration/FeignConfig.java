@@ -1,10 +1,20 @@
 package com.lsiproject.app.rentalagreementmicroservicev2.configuration;
 
+import org.springframework.cloud.openfeign.FeignLoggerFactory;
 import org.springframework.context.annotation.Bean;
 
 public class FeignConfig {
+    /**
+     * BASIC suffit pour que Feign appelle le logger à chaque échange ;
+     * SampledFeignLogger décide ensuite ce qui est réellement journalisé.
+     */
     @Bean
     feign.Logger.Level feignLoggerLevel() {
-        return feign.Logger.Level.FULL;
+        return feign.Logger.Level.BASIC;
+    }
+
+    @Bean
+    FeignLoggerFactory feignLoggerFactory(FeignWireLogSink feignWireLogSink) {
+        return type -> new SampledFeignLogger(type, feignWireLogSink);
     }
 }
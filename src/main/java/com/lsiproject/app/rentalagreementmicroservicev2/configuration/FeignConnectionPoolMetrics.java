@@ -0,0 +1,74 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.io.HttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.pool.PoolStats;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Métriques du pool de connexions des clients Feign (Apache HttpClient 5).
+ *
+ * - Totaux du pool : httpcomponents.httpclient.pool.total.connections{state=leased|available}, .total.pending, .total.max
+ * - Par route (un service appelé = une route) : feign.pool.route.connections{route, state=leased|available|pending}
+ *
+ * Les routes n'étant connues qu'au fil des appels, les gauges par route sont recalculées périodiquement.
+ * Sans pool (profil "http2"), rien n'est enregistré.
+ */
+@Component
+public class FeignConnectionPoolMetrics implements MeterBinder {
+
+    private final ObjectProvider<HttpClientConnectionManager> connectionManagers;
+    private PoolingHttpClientConnectionManager connectionManager;
+    private MultiGauge routeConnections;
+
+    // Le bean est déclaré en HttpClientConnectionManager par l'autoconfiguration : résolu par ce type, au bind
+    public FeignConnectionPoolMetrics(ObjectProvider<HttpClientConnectionManager> connectionManagers) {
+        this.connectionManagers = connectionManagers;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (!(connectionManagers.getIfAvailable() instanceof PoolingHttpClientConnectionManager pool)) {
+            return;
+        }
+        connectionManager = pool;
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "feign").bindTo(registry);
+
+        routeConnections = MultiGauge.builder("feign.pool.route.connections")
+                .description("Connexions du pool Feign par route et par état")
+                .register(registry);
+        refreshRouteGauges();
+    }
+
+    @Scheduled(fixedDelayString = "${feign.pool.metrics.refresh-interval-ms:15000}")
+    public void refreshRouteGauges() {
+        if (routeConnections == null) {
+            return;
+        }
+        List<MultiGauge.Row<?>> rows = new ArrayList<>();
+        for (HttpRoute route : connectionManager.getRoutes()) {
+            String target = route.getTargetHost().toURI();
+            rows.add(row(route, target, "leased", PoolStats::getLeased));
+            rows.add(row(route, target, "available", PoolStats::getAvailable));
+            rows.add(row(route, target, "pending", PoolStats::getPending));
+        }
+        routeConnections.register(rows, true);
+    }
+
+    private MultiGauge.Row<HttpRoute> row(HttpRoute route, String target, String state, ToIntFunction<PoolStats> value) {
+        return MultiGauge.Row.of(Tags.of("route", target, "state", state), route,
+                r -> value.applyAsInt(connectionManager.getStats(r)));
+    }
+}
@@ -0,0 +1,185 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.configuration;
+
+import feign.Request;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Journalisation "wire" des échanges Feign, partagée par tous les clients (voir SampledFeignLogger).
+ *
+ * - Toujours : métriques de synthèse (latence par client / méthode / statut, octets envoyés et reçus)
+ * - Échange complet (en-têtes + corps) seulement pour les erreurs, les appels lents et un échantillon
+ * - La mise en forme et l'écriture se font sur un thread dédié, derrière une file bornée :
+ *   si elle est pleine, l'entrée est abandonnée (et comptée) plutôt que de ralentir l'appel
+ */
+@Component
+public class FeignWireLogSink {
+
+    private static final Logger wireLog = LoggerFactory.getLogger("feign.wire");
+
+    // En-têtes jamais écrits en clair dans les logs
+    private static final Set<String> MASKED_HEADERS = Set.of("authorization", "cookie", "set-cookie");
+
+    private final MeterRegistry meterRegistry;
+    private final double sampleRate;
+    private final long slowThresholdMillis;
+    private final int maxBodyBytes;
+    private final ThreadPoolExecutor formatter;
+    private final Counter droppedEntries;
+
+    public FeignWireLogSink(
+            MeterRegistry meterRegistry,
+            @Value("${feign.wire-log.sample-rate:0.01}") double sampleRate,
+            @Value("${feign.wire-log.slow-threshold:1s}") Duration slowThreshold,
+            @Value("${feign.wire-log.max-body-bytes:4096}") int maxBodyBytes,
+            @Value("${feign.wire-log.queue-capacity:1000}") int queueCapacity) {
+        this.meterRegistry = meterRegistry;
+        this.sampleRate = sampleRate;
+        this.slowThresholdMillis = slowThreshold.toMillis();
+        this.maxBodyBytes = maxBodyBytes;
+        this.formatter = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "feign-wire-log");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.droppedEntries = Counter.builder("feign.wire-log.dropped")
+                .description("Échanges Feign non journalisés car la file d'écriture était pleine")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Raison de journaliser l'échange complet ("error", "slow", "sampled"), ou null pour ne rien journaliser.
+     */
+    public String exchangeLogTrigger(int status, long elapsedMillis) {
+        if (status < 0 || status >= 400) {
+            return "error";
+        }
+        if (elapsedMillis >= slowThresholdMillis) {
+            return "slow";
+        }
+        if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            return "sampled";
+        }
+        return null;
+    }
+
+    /**
+     * Métriques de synthèse, enregistrées pour chaque échange.
+     * Les tailles inconnues (réponse chunked non lue) ne sont pas enregistrées.
+     */
+    public void record(String client, String method, String status, long elapsedMillis,
+                       Integer requestBytes, Integer responseBytes) {
+        Timer.builder("feign.client.exchange")
+                .description("Latence des appels Feign")
+                .tags("client", client, "method", method, "status", status)
+                .register(meterRegistry)
+                .record(elapsedMillis, TimeUnit.MILLISECONDS);
+        recordBytes(client, method, "request", requestBytes);
+        recordBytes(client, method, "response", responseBytes);
+    }
+
+    private void recordBytes(String client, String method, String direction, Integer bytes) {
+        if (bytes == null) {
+            return;
+        }
+        DistributionSummary.builder("feign.client.exchange.bytes")
+                .baseUnit("bytes")
+                .tags("client", client, "method", method, "direction", direction)
+                .register(meterRegistry)
+                .record(bytes);
+    }
+
+    /**
+     * Journalise un échange complet de manière asynchrone.
+     */
+    public void logExchange(String trigger, String configKey, Request request, int status, String reason,
+                            Map<String, Collection<String>> responseHeaders, byte[] responseBody, long elapsedMillis) {
+        submit(() -> {
+            StringBuilder entry = new StringBuilder()
+                    .append("[").append(trigger).append("] ").append(configKey).append('\n');
+            appendRequest(entry, request);
+            entry.append("<--- ").append(status);
+            if (reason != null) {
+                entry.append(' ').append(reason);
+            }
+            entry.append(" (").append(elapsedMillis).append("ms)\n");
+            appendHeaders(entry, responseHeaders);
+            appendBody(entry, responseBody);
+            wireLog.info(entry.toString());
+        });
+    }
+
+    /**
+     * Journalise un échec d'entrée/sortie (connexion refusée, timeout de lecture...) de manière asynchrone.
+     */
+    public void logFailure(String configKey, Exception error, long elapsedMillis) {
+        submit(() -> wireLog.warn("[error] {}\n<--- ERROR {}: {} ({}ms)",
+                configKey, error.getClass().getSimpleName(), error.getMessage(), elapsedMillis));
+    }
+
+    private void submit(Runnable task) {
+        try {
+            formatter.execute(task);
+        } catch (RejectedExecutionException e) {
+            droppedEntries.increment();
+        }
+    }
+
+    private void appendRequest(StringBuilder entry, Request request) {
+        if (request == null) {
+            return;
+        }
+        entry.append("---> ").append(request.httpMethod()).append(' ').append(request.url()).append('\n');
+        appendHeaders(entry, request.headers());
+        appendBody(entry, request.body());
+    }
+
+    private static void appendHeaders(StringBuilder entry, Map<String, Collection<String>> headers) {
+        if (headers == null) {
+            return;
+        }
+        headers.forEach((name, values) -> {
+            boolean masked = MASKED_HEADERS.contains(name.toLowerCase());
+            for (String value : values) {
+                entry.append(name).append(": ").append(masked ? "***" : value).append('\n');
+            }
+        });
+    }
+
+    private void appendBody(StringBuilder entry, byte[] body) {
+        if (body == null || body.length == 0) {
+            return;
+        }
+        int length = Math.min(body.length, maxBodyBytes);
+        entry.append(new String(body, 0, length, StandardCharsets.UTF_8));
+        if (length < body.length) {
+            entry.append("... (").append(body.length - length).append(" more bytes)");
+        }
+        entry.append('\n');
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        formatter.shutdown();
+    }
+}
@@ -0,0 +1,88 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.configuration;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Consommation des événements RentPaid (voir RentPaidConsumer).
+ *
+ * Les messages sont clés par agreementIdOnChain : tous les paiements d'un contrat tombent dans la même partition,
+ * lue par un seul thread, dans l'ordre. Les partitions sont traitées en parallèle (concurrency threads, utile
+ * jusqu'au nombre de partitions du topic).
+ *
+ * Offsets validés manuellement, uniquement après le commit de la transaction du paiement : un arrêt entre les deux
+ * rejoue le message, absorbé par l'idempotence sur le txHash. Une erreur technique est rejouée avec un délai,
+ * puis le message part sur le topic "<topic>.DLT" (même partition : le DLT doit en avoir au moins autant).
+ */
+@Configuration
+@EnableKafka
+public class KafkaConsumerConfig {
+
+    @Value("${kafka.bootstrap-servers}")
+    private String kafkaBootstrapServers;
+
+    @Value("${kafka.rent-paid.group-id:rental-agreement-payments}")
+    private String groupId;
+
+    @Value("${kafka.rent-paid.concurrency:3}")
+    private int concurrency;
+
+    @Value("${kafka.rent-paid.max-poll-records:200}")
+    private int maxPollRecords;
+
+    @Value("${kafka.rent-paid.retry.interval-ms:1000}")
+    private long retryIntervalMs;
+
+    @Value("${kafka.rent-paid.retry.max-attempts:3}")
+    private long retryMaxAttempts;
+
+    @Bean
+    public ConsumerFactory<String, byte[]> rentPaidConsumerFactory() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaBootstrapServers);
+        config.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        config.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        return new DefaultKafkaConsumerFactory<>(config);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> rentPaidListenerContainerFactory(
+            KafkaTemplate<String, byte[]> kafkaTemplate) {
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(rentPaidConsumerFactory());
+        factory.setConcurrency(concurrency);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+
+        // Topic "<topic>.DLT" explicite : le suffixe par défaut de spring-kafka est "-dlt" depuis la 3.3
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(kafkaTemplate,
+                (record, exception) -> new TopicPartition(record.topic() + ".DLT", record.partition()));
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(
+                recoverer,
+                new FixedBackOff(retryIntervalMs, retryMaxAttempts));
+        // Le message envoyé au DLT est validé, sinon il serait relu au prochain rééquilibrage
+        errorHandler.setCommitRecovered(true);
+        factory.setCommonErrorHandler(errorHandler);
+        return factory;
+    }
+}
@@ -0,0 +1,72 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.configuration;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.resilience.circuitbreaker.PropertyOperation;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Paramètres de résilience des appels PropertyMicroService, par famille d'opérations.
+ * Fournis par le config server (préfixe resilience.property) et rechargés via /actuator/refresh.
+ *
+ * Classe mutable (binding par setters) : c'est ce qui permet à Spring Cloud de la re-binder au refresh.
+ */
+@Data
+@ConfigurationProperties(prefix = "resilience.property")
+public class PropertyResilienceProperties {
+
+    private Operation reads = new Operation(Duration.ofSeconds(2), 25);
+    private Operation availabilityWrites = new Operation(Duration.ofSeconds(3), 10);
+    private Operation typeOfRental = new Operation(Duration.ofSeconds(2), 10);
+
+    public Operation forOperation(PropertyOperation operation) {
+        return switch (operation) {
+            case READ -> reads;
+            case AVAILABILITY_WRITE -> availabilityWrites;
+            case TYPE_OF_RENTAL -> typeOfRental;
+        };
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class Operation {
+
+        // Circuit breaker
+        private int slidingWindowSize = 10;
+        private int minimumNumberOfCalls = 5;
+        private float failureRateThreshold = 50.0f;
+        private Duration waitDurationInOpenState = Duration.ofSeconds(5);
+        private int permittedNumberOfCallsInHalfOpenState = 3;
+
+        // Bulkhead (sémaphore) : appels simultanés max, et attente max d'une place libre
+        private int maxConcurrentCalls = 25;
+        private Duration maxWaitDuration = Duration.ZERO;
+
+        // Time limiter
+        private Duration timeout = Duration.ofSeconds(2);
+
+        Operation(Duration timeout, int maxConcurrentCalls) {
+            this.timeout = timeout;
+            this.maxConcurrentCalls = maxConcurrentCalls;
+        }
+
+        /**
+         * Copie des valeurs appliquées, pour détecter un changement après un refresh
+         * (l'instance bindée est modifiée en place par Spring Cloud).
+         */
+        public Operation copy() {
+            Operation copy = new Operation();
+            copy.setSlidingWindowSize(slidingWindowSize);
+            copy.setMinimumNumberOfCalls(minimumNumberOfCalls);
+            copy.setFailureRateThreshold(failureRateThreshold);
+            copy.setWaitDurationInOpenState(waitDurationInOpenState);
+            copy.setPermittedNumberOfCallsInHalfOpenState(permittedNumberOfCallsInHalfOpenState);
+            copy.setMaxConcurrentCalls(maxConcurrentCalls);
+            copy.setMaxWaitDuration(maxWaitDuration);
+            copy.setTimeout(timeout);
+            return copy;
+        }
+    }
+}
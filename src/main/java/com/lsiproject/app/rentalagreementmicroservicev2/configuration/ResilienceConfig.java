@@ -1,45 +1,64 @@
 package com.lsiproject.app.rentalagreementmicroservicev2.configuration;
-import io.github.resilience4j.circuitbreaker.CircuitBreaker;
-import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedTimeLimiterMetrics;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.time.Duration;
-
 /**
  * Configuration globale de Resilience4j pour les Circuit Breakers.
  * Cette classe centralise la configuration de tous les circuit breakers du microservice.
+ *
+ * Les instances de PropertyMicroService (un circuit breaker, un bulkhead et un time limiter
+ * par famille d'opérations) sont créées par PropertyResilience à partir de PropertyResilienceProperties.
  */
 @Configuration
+@EnableConfigurationProperties(PropertyResilienceProperties.class)
 public class ResilienceConfig {
 
     /**
-     * Configuration du Circuit Breaker pour PropertyMicroService.
-     *
-     * Paramètres configurés :
-     * - slidingWindowSize: 10 appels pour calculer le taux d'échec
-     * - failureRateThreshold: 50% d'échecs déclenchent l'ouverture
-     * - waitDurationInOpenState: 5 secondes avant de passer en half-open
-     * - permittedNumberOfCallsInHalfOpenState: 3 appels de test en half-open
-     * - minimumNumberOfCalls: 5 appels minimum avant calcul du taux d'échec
+     * Registres utilisés si l'auto-configuration Spring Cloud CircuitBreaker n'en fournit pas.
      */
     @Bean
-    public CircuitBreaker propertyServiceCircuitBreaker(CircuitBreakerRegistry circuitBreakerRegistry) {
+    @ConditionalOnMissingBean
+    public CircuitBreakerRegistry circuitBreakerRegistry() {
+        return CircuitBreakerRegistry.ofDefaults();
+    }
 
-        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
-                .slidingWindowSize(10)
-                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
-                .failureRateThreshold(50.0f)
-                .waitDurationInOpenState(Duration.ofSeconds(5))
-                .permittedNumberOfCallsInHalfOpenState(3)
-                .minimumNumberOfCalls(5)
-                .automaticTransitionFromOpenToHalfOpenEnabled(true)
-                // Enregistrer toutes les exceptions comme des échecs
-                .recordExceptions(Exception.class)
-                .build();
+    @Bean
+    @ConditionalOnMissingBean
+    public BulkheadRegistry bulkheadRegistry() {
+        return BulkheadRegistry.ofDefaults();
+    }
 
-        return circuitBreakerRegistry.circuitBreaker("propertyService", config);
+    @Bean
+    @ConditionalOnMissingBean
+    public TimeLimiterRegistry timeLimiterRegistry() {
+        return TimeLimiterRegistry.ofDefaults();
+    }
+
+    /**
+     * Export Micrometer (endpoint Prometheus) :
+     * - resilience4j_circuitbreaker_state / _calls (dont kind="not_permitted")
+     * - resilience4j_bulkhead_available_concurrent_calls / _max_allowed_concurrent_calls
+     * - resilience4j_timelimiter_calls (dont kind="timeout")
+     * Les métriques suivent les instances remplacées après un refresh.
+     */
+    @Bean
+    public MeterBinder resilience4jMetrics(CircuitBreakerRegistry circuitBreakerRegistry,
+                                          BulkheadRegistry bulkheadRegistry,
+                                          TimeLimiterRegistry timeLimiterRegistry) {
+        return meterRegistry -> {
+            TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakerRegistry).bindTo(meterRegistry);
+            TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheadRegistry).bindTo(meterRegistry);
+            TaggedTimeLimiterMetrics.ofTimeLimiterRegistry(timeLimiterRegistry).bindTo(meterRegistry);
+        };
     }
 
     /**
@@ -57,4 +76,4 @@ public class ResilienceConfig {
      *     return circuitBreakerRegistry.circuitBreaker("userService", config);
      * }
      */
-}
\ No newline at end of file
+}
@@ -0,0 +1,74 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.configuration;
+
+import feign.Request;
+import feign.Response;
+import feign.Util;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+
+/**
+ * Logger Feign d'un client : rien n'est mis en forme sur le thread de l'appel.
+ *
+ * Chaque échange alimente les métriques de FeignWireLogSink ; le corps de la réponse n'est lu
+ * (puis remis en tampon) que si l'échange doit être journalisé en entier : erreur, appel lent ou échantillon.
+ */
+public class SampledFeignLogger extends feign.Logger {
+
+    private static final Logger log = LoggerFactory.getLogger("feign.wire");
+
+    private final String client;
+    private final FeignWireLogSink sink;
+
+    public SampledFeignLogger(Class<?> clientType, FeignWireLogSink sink) {
+        this.client = clientType.getSimpleName();
+        this.sink = sink;
+    }
+
+    @Override
+    protected void logRequest(String configKey, Level logLevel, Request request) {
+        // Rien ici : la requête est journalisée avec sa réponse si l'échange est retenu
+    }
+
+    @Override
+    protected Response logAndRebufferResponse(String configKey, Level logLevel, Response response, long elapsedTime)
+            throws IOException {
+        Request request = response.request();
+        int status = response.status();
+        String trigger = sink.exchangeLogTrigger(status, elapsedTime);
+
+        Integer responseBytes = response.body() != null ? response.body().length() : Integer.valueOf(0);
+        byte[] body = null;
+        if (trigger != null && response.body() != null) {
+            body = Util.toByteArray(response.body().asInputStream());
+            responseBytes = body.length;
+            response = response.toBuilder().body(body).build();
+        }
+
+        sink.record(client, configKey, String.valueOf(status), elapsedTime, requestBytes(request), responseBytes);
+        if (trigger != null) {
+            sink.logExchange(trigger, configKey, request, status, response.reason(), response.headers(), body, elapsedTime);
+        }
+        return response;
+    }
+
+    @Override
+    protected IOException logIOException(String configKey, Level logLevel, IOException ioe, long elapsedTime) {
+        sink.record(client, configKey, "IO_ERROR", elapsedTime, null, null);
+        sink.logFailure(configKey, ioe, elapsedTime);
+        return ioe;
+    }
+
+    @Override
+    protected void log(String configKey, String format, Object... args) {
+        // Utilisé par Feign pour les messages annexes (retries)
+        if (log.isDebugEnabled()) {
+            log.debug(methodTag(configKey) + String.format(format, args));
+        }
+    }
+
+    private static Integer requestBytes(Request request) {
+        return request != null && request.body() != null ? request.body().length : 0;
+    }
+}
@@ -1,10 +1,17 @@
 package com.lsiproject.app.rentalagreementmicroservicev2.controllers;
 
 import com.lsiproject.app.rentalagreementmicroservicev2.dtos.TenantScoringDTO;
+import com.lsiproject.app.rentalagreementmicroservicev2.jobs.TenantRiskFeaturesRebuildJob;
+import com.lsiproject.app.rentalagreementmicroservicev2.security.UserPrincipal;
 import com.lsiproject.app.rentalagreementmicroservicev2.services.TenantScoringAiModelService;
 import lombok.AllArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -14,9 +21,25 @@ import org.springframework.web.bind.annotation.RestController;
 public class AiModelsController {
 
     private final TenantScoringAiModelService tenantScoringAi;
+    private final TenantRiskFeaturesRebuildJob riskFeaturesRebuildJob;
 
     @GetMapping("/consult-score/{idTenant}")
     public TenantScoringDTO getTenantScore(@PathVariable Long idTenant) {
         return tenantScoringAi.consultTenantScoringModel(idTenant);
     }
-}
\ No newline at end of file
+
+    /**
+     * Rebuilds the per-tenant risk features in the background (admin only).
+     * 202 when started, 409 if a rebuild is already running.
+     */
+    @PostMapping("/risk-features/rebuild")
+    public ResponseEntity<Void> rebuildRiskFeatures(@AuthenticationPrincipal UserPrincipal principal) {
+        boolean isAdmin = principal.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+        if (!isAdmin) {
+            throw new AccessDeniedException("Only an admin can rebuild the risk features.");
+        }
+        return riskFeaturesRebuildJob.startRebuild()
+                ? ResponseEntity.status(HttpStatus.ACCEPTED).build()
+                : ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+}
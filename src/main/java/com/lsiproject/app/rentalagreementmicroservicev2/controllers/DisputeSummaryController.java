@@ -27,6 +27,8 @@ public class DisputeSummaryController {
      * Endpoint to retrieve all dispute summaries.
      * Useful for AI training or Admin dashboards.
      * GET /api/disputes
+     * Loads every summary in memory: large training exports go through GET /api/reports/export,
+     * which streams the dispute summaries joined with the payment reports.
      */
     @GetMapping
     public ResponseEntity<List<DisputeSummary>> getAllDisputes() {
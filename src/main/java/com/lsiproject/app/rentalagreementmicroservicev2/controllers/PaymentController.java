@@ -1,15 +1,22 @@
 package com.lsiproject.app.rentalagreementmicroservicev2.controllers;
 
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.LedgerBalanceDto;
 import com.lsiproject.app.rentalagreementmicroservicev2.dtos.PaymentCreationDto;
 import com.lsiproject.app.rentalagreementmicroservicev2.dtos.PaymentDto;
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.PaymentHistoryPage;
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.PaymentIngestionResultDto;
 import com.lsiproject.app.rentalagreementmicroservicev2.dtos.PaymentStatusDto;
 import com.lsiproject.app.rentalagreementmicroservicev2.security.UserPrincipal;
+import com.lsiproject.app.rentalagreementmicroservicev2.services.PaymentIngestionService;
+import com.lsiproject.app.rentalagreementmicroservicev2.services.PaymentLedgerService;
 import com.lsiproject.app.rentalagreementmicroservicev2.services.PaymentService;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -19,10 +26,17 @@ import java.util.List;
 @RequestMapping("/api/rentalAgreement-microservice/payments")
 public class PaymentController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final PaymentService paymentService;
+    private final PaymentIngestionService paymentIngestionService;
+    private final PaymentLedgerService ledgerService;
 
-    public PaymentController(PaymentService paymentService) {
+    public PaymentController(PaymentService paymentService, PaymentIngestionService paymentIngestionService,
+                             PaymentLedgerService ledgerService) {
         this.paymentService = paymentService;
+        this.paymentIngestionService = paymentIngestionService;
+        this.ledgerService = ledgerService;
     }
 
     // --- CREATE Operation ---
@@ -43,6 +57,35 @@ public class PaymentController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdPayment);
     }
 
+    /**
+     * POST /api/v1/payments/batch
+     * Enregistre un lot de paiements (rattrapage du service d'écoute blockchain).
+     * Idempotent : les txHash déjà enregistrés sont signalés DUPLICATE, le lot peut être renvoyé sans risque.
+     *
+     * @param dtos Les paiements, dans l'ordre des blocs.
+     * @return ResponseEntity avec un résultat (CREATED / DUPLICATE / REJECTED) par paiement, dans le même ordre.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<PaymentIngestionResultDto>> createPayments(@RequestBody List<PaymentCreationDto> dtos) {
+        return ResponseEntity.ok(paymentIngestionService.ingest(dtos));
+    }
+
+    // --- UPDATE Operation ---
+
+    /**
+     * POST /api/v1/payments/{id}/reversal
+     * Annule un paiement dont la transaction a échoué ou a été annulée par une réorganisation de la chaîne (admin).
+     * Le paiement passe à FAILED ; le montant payé et le grand livre sont corrigés par une écriture d'annulation.
+     *
+     * @param id L'ID du paiement interne.
+     * @param principal L'utilisateur authentifié (admin).
+     * @return ResponseEntity avec le paiement annulé (409 s'il était déjà FAILED).
+     */
+    @PostMapping("/{id}/reversal")
+    public ResponseEntity<PaymentDto> reversePayment(@PathVariable Long id, @AuthenticationPrincipal UserPrincipal principal) {
+        return ResponseEntity.ok(paymentService.reversePayment(id, principal));
+    }
+
     // --- DISPLAY Operations ---
 
     /**
@@ -60,18 +103,44 @@ public class PaymentController {
     }
 
     /**
-     * GET /api/v1/payments/contract/{contractId}
-     * Récupère l'historique des paiements pour un contrat donné.
+     * GET /api/v1/payments/contract/{contractId}?size=50&cursor=...
+     * Récupère une page de l'historique des paiements d'un contrat, du plus récent au plus ancien.
+     * S'il reste des paiements, l'en-tête X-Next-Cursor donne le curseur de la page suivante.
      *
      * @param contractId L'ID du contrat interne.
+     * @param cursor Curseur de la page (absent pour la première).
+     * @param size Nombre de paiements par page.
      * @param principal L'utilisateur authentifié (pour vérification d'autorisation).
-     * @return ResponseEntity avec la liste des paiements.
+     * @return ResponseEntity avec la page de paiements.
      */
     @GetMapping("/contract/{contractId}")
-    public ResponseEntity<List<PaymentDto>> getPaymentHistoryByContract(@PathVariable Long contractId, @AuthenticationPrincipal UserPrincipal principal) {
-        List<PaymentDto> history = paymentService.getPaymentHistoryByContract(contractId, principal);
-        return ResponseEntity.ok(history);
+    public ResponseEntity<List<PaymentDto>> getPaymentHistoryByContract(
+            @PathVariable Long contractId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "${payments.history.default-page-size:50}") int size,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        PaymentHistoryPage page = paymentService.getPaymentHistoryByContract(contractId, cursor, size, principal);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.payments());
     }
 
-
-}
\ No newline at end of file
+    /**
+     * GET /api/v1/payments/ledger/{contractId}/balance?asOf=2025-01-01T00:00:00
+     * Solde du grand livre des paiements d'un contrat, courant ou à une date d'enregistrement donnée.
+     *
+     * @param contractId L'ID du contrat interne.
+     * @param asOf Date jusqu'à laquelle les écritures sont comptées (absent : solde courant).
+     * @param principal L'utilisateur authentifié (pour vérification d'autorisation).
+     * @return ResponseEntity avec le solde.
+     */
+    @GetMapping("/ledger/{contractId}/balance")
+    public ResponseEntity<LedgerBalanceDto> getLedgerBalance(
+            @PathVariable Long contractId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime asOf,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        return ResponseEntity.ok(ledgerService.getBalance(contractId, asOf, principal));
+    }
+}
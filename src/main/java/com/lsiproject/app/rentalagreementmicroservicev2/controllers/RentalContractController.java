@@ -68,11 +68,14 @@ public class RentalContractController {
      * Récupère tous les contrats de l'utilisateur authentifié (tenant et owner).
      *
      * @param principal L'utilisateur authentifié.
+     * @param includeProperty Si vrai, chaque contrat est enrichi avec le titre de sa propriété.
      * @return ResponseEntity avec la liste des contrats.
      */
     @GetMapping("/user/me")
-    public ResponseEntity<List<RentalContractDto>> getAllUserContracts(@AuthenticationPrincipal UserPrincipal principal) {
-        List<RentalContractDto> contracts = contractService.getAllContractsForUser(principal);
+    public ResponseEntity<List<RentalContractDto>> getAllUserContracts(
+            @AuthenticationPrincipal UserPrincipal principal,
+            @RequestParam(defaultValue = "false") boolean includeProperty) {
+        List<RentalContractDto> contracts = contractService.getAllContractsForUser(principal, includeProperty);
         return ResponseEntity.ok(contracts);
     }
 
@@ -79,12 +79,17 @@ public class RentalRequestController {
         return ResponseEntity.ok(request);
     }
     /**
-     * GET /api/v1/rental-requests/
-     * Récupère tous les de;qndes
+     * GET /api/v1/rental-requests/?page=0&size=50
+     * Récupère une page de toutes les demandes, par ID croissant
+     * ?includeProperty=true enrichit chaque demande avec le titre de sa propriété.
      */
     @GetMapping
-    public ResponseEntity<List<RentalRequestDto>> getAllRequests(@AuthenticationPrincipal UserPrincipal principal) {
-        List<RentalRequestDto> request = rentalRequestService.getAllRequests(principal);
+    public ResponseEntity<List<RentalRequestDto>> getAllRequests(
+            @AuthenticationPrincipal UserPrincipal principal,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "${rental-requests.default-page-size:50}") int size,
+            @RequestParam(defaultValue = "false") boolean includeProperty) {
+        List<RentalRequestDto> request = rentalRequestService.getAllRequests(principal, page, size, includeProperty);
         return ResponseEntity.ok(request);
     }
 
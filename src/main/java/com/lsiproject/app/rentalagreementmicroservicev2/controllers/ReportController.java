@@ -1,11 +1,32 @@
 package com.lsiproject.app.rentalagreementmicroservicev2.controllers;
 
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.OwnerPortfolioDto;
 import com.lsiproject.app.rentalagreementmicroservicev2.dtos.PaymentStatusDto;
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.RevenuePointDto;
 import com.lsiproject.app.rentalagreementmicroservicev2.entities.PaymentReport;
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.RevenueGranularity;
+import com.lsiproject.app.rentalagreementmicroservicev2.jobs.RevenueRollupRebuildJob;
+import com.lsiproject.app.rentalagreementmicroservicev2.security.UserPrincipal;
 import com.lsiproject.app.rentalagreementmicroservicev2.services.PaymentReportService;
+import com.lsiproject.app.rentalagreementmicroservicev2.services.PaymentStatusService;
+import com.lsiproject.app.rentalagreementmicroservicev2.services.PortfolioReportService;
+import com.lsiproject.app.rentalagreementmicroservicev2.services.ReportExportService;
+import com.lsiproject.app.rentalagreementmicroservicev2.services.RevenueRollupService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -13,9 +34,24 @@ import java.util.List;
 public class ReportController {
 
     private final PaymentReportService reportService;
+    private final ReportExportService exportService;
+    private final PortfolioReportService portfolioService;
+    private final PaymentStatusService statusService;
+    private final RevenueRollupService revenueService;
+    private final RevenueRollupRebuildJob revenueRebuildJob;
 
-    public ReportController(PaymentReportService reportService) {
+    public ReportController(PaymentReportService reportService,
+                            ReportExportService exportService,
+                            PortfolioReportService portfolioService,
+                            PaymentStatusService statusService,
+                            RevenueRollupService revenueService,
+                            RevenueRollupRebuildJob revenueRebuildJob) {
         this.reportService = reportService;
+        this.exportService = exportService;
+        this.portfolioService = portfolioService;
+        this.statusService = statusService;
+        this.revenueService = revenueService;
+        this.revenueRebuildJob = revenueRebuildJob;
     }
 
     /**
@@ -31,10 +67,110 @@ public class ReportController {
     /**
      * Endpoint 2: Get all reports stored in the database
      * GET /api/reports
+     * Loads every report in memory: use /api/reports/export for large volumes.
      */
     @GetMapping
     public ResponseEntity<List<PaymentReport>> getAllReports() {
         List<PaymentReport> reports = reportService.getAllReports();
         return ResponseEntity.ok(reports);
     }
-}
\ No newline at end of file
+
+    /**
+     * Endpoint 3: Stream the report + dispute feature set (AI training)
+     * GET /api/reports/export?format=ndjson|csv&since=2025-01-01T00:00:00
+     * With "since", only the rows whose report or dispute summary changed after that instant (incremental export).
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportReports(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since) {
+        ReportExportService.Format exportFormat;
+        try {
+            exportFormat = ReportExportService.Format.valueOf(format.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown export format: " + format);
+        }
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"report-features." + exportFormat.getExtension() + "\"")
+                .body(exportService.export(exportFormat, since));
+    }
+
+    /**
+     * Endpoint 4: Totals across all the contracts of an owner
+     * GET /api/reports/portfolio (authenticated owner) or /api/reports/portfolio?ownerId=42 (admin)
+     */
+    @GetMapping("/portfolio")
+    public ResponseEntity<OwnerPortfolioDto> getPortfolio(
+            @RequestParam(required = false) Long ownerId,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        Long targetOwnerId = ownerId != null ? ownerId : principal.getIdUser();
+        boolean isAdmin = principal.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+        if (!targetOwnerId.equals(principal.getIdUser()) && !isAdmin) {
+            throw new AccessDeniedException("User is not authorized to view this portfolio.");
+        }
+        return ResponseEntity.ok(portfolioService.getPortfolio(targetOwnerId));
+    }
+
+    /**
+     * Endpoint 5: Latest payment status of a contract, without regenerating it (dashboards polling)
+     * GET /api/reports/status/{contractId} (add ?refresh=true to recompute the report first)
+     * Sends an ETag: a request with a matching If-None-Match gets 304 Not Modified with no body.
+     */
+    @GetMapping("/status/{contractId}")
+    public ResponseEntity<PaymentStatusDto> getPaymentStatus(
+            @PathVariable Long contractId,
+            @RequestParam(defaultValue = "false") boolean refresh,
+            WebRequest request) {
+        PaymentStatusService.CachedPaymentStatus cached = statusService.getStatus(contractId, refresh);
+        if (request.checkNotModified(cached.etag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(cached.etag())
+                .cacheControl(CacheControl.noCache())
+                .body(cached.status());
+    }
+
+    /**
+     * Endpoint 6: Rent collected per day or month, read from the pre-aggregated rollups
+     * GET /api/reports/revenue?granularity=MONTH&from=2025-01-01&to=2025-12-31[&ownerId=|&propertyId=|&contractId=]
+     * Owners see their own contracts (default filter); an admin may query any filter, or the whole platform.
+     */
+    @GetMapping("/revenue")
+    public ResponseEntity<List<RevenuePointDto>> getRevenue(
+            @RequestParam(defaultValue = "MONTH") String granularity,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long ownerId,
+            @RequestParam(required = false) Long propertyId,
+            @RequestParam(required = false) Long contractId,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        RevenueGranularity revenueGranularity;
+        try {
+            revenueGranularity = RevenueGranularity.valueOf(granularity.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown granularity: " + granularity);
+        }
+        return ResponseEntity.ok(revenueService.getRevenue(revenueGranularity, from, to,
+                ownerId, propertyId, contractId, principal));
+    }
+
+    /**
+     * Endpoint 7: Rebuilds the revenue rollups from the payments in the background (admin only)
+     * POST /api/reports/revenue/rebuild
+     * 202 when started, 409 if a rebuild is already running.
+     */
+    @PostMapping("/revenue/rebuild")
+    public ResponseEntity<Void> rebuildRevenue(@AuthenticationPrincipal UserPrincipal principal) {
+        boolean isAdmin = principal.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+        if (!isAdmin) {
+            throw new AccessDeniedException("Only an admin can rebuild the revenue rollups.");
+        }
+        return revenueRebuildJob.startRebuild()
+                ? ResponseEntity.status(HttpStatus.ACCEPTED).build()
+                : ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+}
@@ -0,0 +1,174 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.dedup;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.PaymentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Index en mémoire des txHash déjà enregistrés, devant les requêtes d'existence de PaymentRepository.
+ *
+ * Un hash absent du filtre de Bloom est forcément nouveau : la requête est évitée. Seuls les hashes
+ * "peut-être présents" (déjà vus, ou faux positif) sont vérifiés en base. Le filtre est chargé au démarrage
+ * en parcourant payments.tx_hash, puis alimenté à chaque insertion ; tant qu'il n'est pas chargé, tout est
+ * vérifié en base.
+ *
+ * Un hash inséré par une autre instance n'est pas dans ce filtre : la contrainte d'unicité de payments.tx_hash
+ * reste la garantie finale, le filtre ne fait qu'économiser des requêtes.
+ */
+@Component
+public class TxHashIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(TxHashIndex.class);
+
+    private final PaymentRepository paymentRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final BloomFilter filter;
+    private volatile boolean warm;
+
+    private final Counter skippedQueries;
+    private final Counter checkedInDatabase;
+    private final Counter falsePositives;
+
+    public TxHashIndex(
+            PaymentRepository paymentRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${payments.tx-hash-filter.enabled:true}") boolean enabled,
+            @Value("${payments.tx-hash-filter.expected-insertions:5000000}") long expectedInsertions,
+            @Value("${payments.tx-hash-filter.false-positive-rate:0.001}") double falsePositiveRate) {
+        this.paymentRepository = paymentRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.filter = new BloomFilter(expectedInsertions, falsePositiveRate);
+
+        this.skippedQueries = Counter.builder("payments.txhash.filter.lookups")
+                .tag("result", "absent")
+                .description("Hashes nouveaux d'après le filtre (requête d'existence évitée)")
+                .register(meterRegistry);
+        this.checkedInDatabase = Counter.builder("payments.txhash.filter.lookups")
+                .tag("result", "maybe")
+                .description("Hashes peut-être présents, vérifiés en base")
+                .register(meterRegistry);
+        this.falsePositives = Counter.builder("payments.txhash.filter.false-positives")
+                .description("Hashes peut-être présents d'après le filtre mais absents en base")
+                .register(meterRegistry);
+        Gauge.builder("payments.txhash.filter.bytes", filter, BloomFilter::sizeInBytes)
+                .description("Taille du filtre en mémoire")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("payments.txhash.filter.insertions", filter, BloomFilter::insertions)
+                .description("Hashes ajoutés au filtre")
+                .register(meterRegistry);
+        Gauge.builder("payments.txhash.filter.expected-fpp", filter, BloomFilter::expectedFalsePositiveRate)
+                .description("Taux de faux positifs attendu au remplissage actuel")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Chargement du filtre en arrière-plan : le démarrage n'attend pas le parcours de la table.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpInBackground() {
+        if (!enabled) {
+            return;
+        }
+        Thread warmUp = new Thread(this::warmUp, "txhash-filter-warmup");
+        warmUp.setDaemon(true);
+        warmUp.start();
+    }
+
+    /**
+     * Parcourt payments.tx_hash (curseur en avant seulement) et ajoute chaque hash au filtre.
+     * Les insertions concurrentes sont ajoutées par add() : aucun hash enregistré n'est oublié.
+     */
+    public void warmUp() {
+        long started = System.currentTimeMillis();
+        try {
+            long loaded = readOnlyTransaction.execute(status -> {
+                long count = 0;
+                try (Stream<String> hashes = paymentRepository.streamAllTxHashes()) {
+                    for (String hash : (Iterable<String>) hashes::iterator) {
+                        filter.put(hash);
+                        count++;
+                    }
+                }
+                return count;
+            });
+            warm = true;
+            log.info("Tx hash filter loaded with {} hashes in {} ms ({} bytes, expected false positive rate {})",
+                    loaded, System.currentTimeMillis() - started, filter.sizeInBytes(), filter.expectedFalsePositiveRate());
+        } catch (RuntimeException e) {
+            // Le filtre reste froid : toutes les vérifications passent par la base
+            log.warn("Tx hash filter not loaded, every lookup goes to the database: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Même résultat que PaymentRepository.existsByTxHash, sans requête pour un hash nouveau.
+     */
+    public boolean exists(String txHash) {
+        if (!mightContain(txHash)) {
+            return false;
+        }
+        boolean exists = paymentRepository.existsByTxHash(txHash);
+        if (!exists && warm) {
+            falsePositives.increment();
+        }
+        return exists;
+    }
+
+    /**
+     * Même résultat que PaymentRepository.findExistingTxHashes : seuls les hashes peut-être présents sont vérifiés,
+     * en une requête (aucune si tous sont nouveaux).
+     */
+    public Set<String> findExisting(Collection<String> txHashes) {
+        List<String> candidates = txHashes.stream().filter(this::mightContain).toList();
+        if (candidates.isEmpty()) {
+            return new HashSet<>();
+        }
+        Set<String> existing = new HashSet<>(paymentRepository.findExistingTxHashes(candidates));
+        if (warm) {
+            falsePositives.increment(candidates.size() - existing.size());
+        }
+        return existing;
+    }
+
+    /**
+     * À appeler à chaque insertion d'un paiement (dans la transaction : un rollback ne laisse qu'un faux positif).
+     */
+    public void add(String txHash) {
+        if (enabled) {
+            filter.put(txHash);
+        }
+    }
+
+    public boolean isWarm() {
+        return warm;
+    }
+
+    private boolean mightContain(String txHash) {
+        if (!warm || filter.mightContain(txHash)) {
+            checkedInDatabase.increment();
+            return true;
+        }
+        skippedQueries.increment();
+        return false;
+    }
+}
@@ -0,0 +1,12 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.dtos;
+
+import java.time.LocalDateTime;
+
+/**
+ * Solde du grand livre des paiements d'un contrat.
+ *
+ * @param asOf Date d'enregistrement jusqu'à laquelle les écritures sont comptées (null : solde courant).
+ * @param lastEntrySeq Dernière écriture comptée (0 si aucune).
+ */
+public record LedgerBalanceDto(Long contractId, Double balance, LocalDateTime asOf, Long lastEntrySeq) {
+}
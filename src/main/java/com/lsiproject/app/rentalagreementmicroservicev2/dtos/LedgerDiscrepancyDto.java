@@ -0,0 +1,10 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.dtos;
+
+/**
+ * Écart relevé par le rapprochement entre le grand livre d'un contrat et les colonnes existantes.
+ *
+ * @param payedAmount RentalContract.PayedAmount.
+ * @param paymentsTotal Somme des paiements du contrat qui ne sont pas FAILED.
+ */
+public record LedgerDiscrepancyDto(Long contractId, Double ledgerBalance, Double payedAmount, Double paymentsTotal) {
+}
@@ -0,0 +1,28 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.dtos;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.RentalContractState;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Vue agrégée du portefeuille d'un propriétaire (tous ses contrats).
+ *
+ * @param totalContractAmount Montant total des contrats (somme des TotalAmountToPay).
+ * @param totalExpectedSoFar  Loyers dus à ce jour, d'après les rapports de paiement.
+ * @param totalPaid           Paiements confirmés reçus.
+ * @param lateContracts       Contrats avec au moins une période impayée.
+ * @param computedAt          Date du calcul (la vue peut être servie depuis le cache).
+ */
+public record OwnerPortfolioDto(
+        Long ownerId,
+        long totalContracts,
+        Map<RentalContractState, Long> contractsByState,
+        long disputedContracts,
+        Double totalContractAmount,
+        Double totalExpectedSoFar,
+        Double totalPaid,
+        long lateContracts,
+        long missedPeriods,
+        LocalDateTime computedAt
+) {}
@@ -1,6 +1,7 @@
 package com.lsiproject.app.rentalagreementmicroservicev2.dtos;
 
 import com.lsiproject.app.rentalagreementmicroservicev2.enums.PaymentStatus;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 
@@ -8,9 +9,11 @@ import java.time.LocalDateTime;
 
 /**
  * DTO pour afficher les détails d'un paiement enregistré.
+ * Le constructeur complet sert aussi de projection JPQL (historique paginé, sans charger les entités).
  */
 @Data
 @Builder
+@AllArgsConstructor
 public class PaymentDto {
     private Long idPayment;
     private Long rentalContractId;
@@ -0,0 +1,11 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.dtos;
+
+import java.util.List;
+
+/**
+ * Page de l'historique des paiements d'un contrat, du plus récent au plus ancien.
+ *
+ * @param nextCursor Curseur de la page suivante (null si c'est la dernière).
+ */
+public record PaymentHistoryPage(List<PaymentDto> payments, String nextCursor) {
+}
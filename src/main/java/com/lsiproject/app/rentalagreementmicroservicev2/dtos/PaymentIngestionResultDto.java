@@ -0,0 +1,11 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.dtos;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.PaymentIngestionOutcome;
+
+/**
+ * Résultat de l'ingestion d'un paiement d'un lot, dans l'ordre du lot reçu.
+ *
+ * @param reason Motif du rejet (null sinon).
+ */
+public record PaymentIngestionResultDto(String txHash, PaymentIngestionOutcome outcome, String reason) {
+}
@@ -0,0 +1,38 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.dtos;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.PaymentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Événement RentPaid du Smart Contract, publié par le service d'écoute blockchain sur le topic rent-paid
+ * (clé du message = agreementIdOnChain, pour que les paiements d'un même contrat restent ordonnés).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RentPaidEvent implements Serializable {
+
+    private Long agreementIdOnChain; // ID du contrat sur la blockchain (agreementId)
+    private Double amount;
+    private String txHash;
+    private PaymentStatus status; // CONFIRMED par défaut
+    private LocalDateTime timestamp; // Horodatage du bloc
+    private Long tenantId;
+
+    public PaymentCreationDto toPaymentCreationDto() {
+        PaymentCreationDto dto = new PaymentCreationDto();
+        dto.setAmount(amount);
+        dto.setTxHash(txHash);
+        dto.setStatus(status);
+        dto.setTimestamp(timestamp);
+        dto.setTenantId(tenantId);
+        return dto;
+    }
+}
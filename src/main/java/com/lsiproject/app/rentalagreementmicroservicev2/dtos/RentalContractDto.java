@@ -1,6 +1,7 @@
 package com.lsiproject.app.rentalagreementmicroservicev2.dtos;
 
 import com.lsiproject.app.rentalagreementmicroservicev2.enums.RentalContractState;
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.TypeOfRental;
 import lombok.Builder;
 import lombok.Data;
 
@@ -28,4 +29,8 @@ public class RentalContractDto {
     private LocalDateTime createdAt;
     private Double TotalAmountToPay;
     private Double PayedAmount;
+    private TypeOfRental typeOfRental;
+
+    // Renseigné uniquement quand l'enrichissement par le microservice Property est demandé
+    private String propertyTitle;
 }
@@ -17,4 +17,7 @@ public class RentalRequestDto {
     private RentalRequestStatus status;
     private Long tenantId;
     private Long propertyId;
+
+    // Renseigné uniquement quand l'enrichissement par le microservice Property est demandé
+    private String propertyTitle;
 }
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.dtos;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.RentalContractState;
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.TypeOfRental;
+
+import java.time.LocalDateTime;
+
+/**
+ * Une ligne de l'export d'entraînement : rapport de paiement + contrat + résumé des litiges du locataire.
+ * Projection construite directement par la requête (aucune entité chargée).
+ * Les champs de litige sont null si le locataire n'en a jamais eu.
+ */
+public record ReportFeatureRow(
+        Long reportId,
+        Long contractId,
+        Long tenantId,
+        RentalContractState contractState,
+        TypeOfRental typeOfRental,
+        Double rentAmount,
+
+        Double totalPaidSoFar,
+        Double totalExpectedSoFar,
+        Integer paidPeriods,
+        Integer missedPeriods,
+        String status,
+        LocalDateTime reportUpdatedAt,
+
+        Integer totalDisputes,
+        Integer daysSinceLastDispute,
+        LocalDateTime lastDisputeDate
+) {}
@@ -0,0 +1,12 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.dtos;
+
+import java.time.LocalDate;
+
+/**
+ * Loyers encaissés sur une période (jour ou mois), tous contrats du filtre confondus.
+ * Sert aussi de projection JPQL (RevenueRollupRepository).
+ *
+ * @param payments Nombre de paiements confirmés.
+ */
+public record RevenuePointDto(LocalDate periodStart, Double amount, Long payments) {
+}
@@ -0,0 +1,59 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.entities;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.LedgerEntryType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Écriture du grand livre des paiements d'un contrat.
+ *
+ * Table en ajout seul : une écriture n'est jamais modifiée ni supprimée (colonnes non modifiables),
+ * une erreur se corrige par une nouvelle écriture (REVERSAL). Les écritures d'un contrat sont numérotées
+ * sans trou (seq = 1, 2, 3...) dans l'ordre d'enregistrement ; la contrainte d'unicité (contrat, seq)
+ * garantit qu'il n'y a qu'une seule suite.
+ */
+@Entity
+@Table(name = "payment_ledger_entries",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_ledger_entries_contract_seq", columnNames = {"contract_id", "seq"})
+        },
+        indexes = {
+                @Index(name = "idx_ledger_entries_tx_hash", columnList = "tx_hash")
+        })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LedgerEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long idEntry;
+
+    @Column(name = "contract_id", nullable = false, updatable = false)
+    private Long contractId;
+
+    @Column(nullable = false, updatable = false)
+    private Long seq;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, updatable = false)
+    private LedgerEntryType type;
+
+    // Montant signé : positif pour un paiement, négatif pour une annulation
+    @Column(nullable = false, updatable = false)
+    private Double amount;
+
+    // Transaction du paiement concerné (null pour l'écriture d'ouverture)
+    @Column(name = "tx_hash", updatable = false)
+    private String txHash;
+
+    // Date d'enregistrement (et non du bloc) : croissante avec seq pour un même contrat
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime recordedAt;
+}
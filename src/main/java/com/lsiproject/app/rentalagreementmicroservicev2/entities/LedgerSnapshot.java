@@ -0,0 +1,44 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Solde d'un contrat après l'écriture entrySeq de son grand livre, posé toutes les N écritures.
+ * Un solde se lit en partant du dernier instantané et en ajoutant les (au plus N - 1) écritures suivantes.
+ * Comme les écritures, un instantané n'est jamais modifié.
+ */
+@Entity
+@Table(name = "payment_ledger_snapshots",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_ledger_snapshots_contract_seq", columnNames = {"contract_id", "entry_seq"})
+        })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LedgerSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long idSnapshot;
+
+    @Column(name = "contract_id", nullable = false, updatable = false)
+    private Long contractId;
+
+    @Column(name = "entry_seq", nullable = false, updatable = false)
+    private Long entrySeq;
+
+    // Somme des écritures 1..entrySeq
+    @Column(nullable = false, updatable = false)
+    private Double balance;
+
+    // recordedAt de l'écriture entrySeq
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime recordedAt;
+}
@@ -10,7 +10,11 @@ import java.time.LocalDateTime;
  * Cette table est principalement alimentée par l'écoute des événements 'RentPaid' du Smart Contract.
  */
 @Entity
-@Table(name = "payments")
+@Table(name = "payments",
+        indexes = {
+                // Historique paginé d'un contrat : ORDER BY timestamp DESC, id_payment DESC, lu dans l'index
+                @Index(name = "idx_payments_contract_time_id", columnList = "rental_contract_id, timestamp, id_payment")
+        })
 @Data
 @NoArgsConstructor
 public class Payment {
@@ -1,16 +1,28 @@
 package com.lsiproject.app.rentalagreementmicroservicev2.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.lsiproject.app.rentalagreementmicroservicev2.billing.MissedPeriodsCodec;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
 
 @Entity
-@Table(name = "payment_reports")
+@Table(name = "payment_reports",
+        // Un seul rapport par contrat : il est créé sous le verrou du contrat, la contrainte reste la garantie finale
+        uniqueConstraints = @UniqueConstraint(name = "uk_payment_reports_contract_id", columnNames = "contract_id"),
+        indexes = {
+                @Index(name = "idx_payment_reports_next_due_date", columnList = "next_due_date"),
+                @Index(name = "idx_payment_reports_updated_at", columnList = "updated_at")
+        })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -37,12 +49,37 @@ public class PaymentReport {
     private Integer paidPeriods;
     private Integer missedPeriods;
 
-    // Storing dates as a String (e.g., "2025-01-01,2025-02-01")
-    @Column(columnDefinition = "TEXT")
-    private String missedDates;
+    // Missed periods as run-length encoded period ranges (see MissedPeriodsCodec), e.g. "2025-01-01;MONTHLY;3+2"
+    @JsonIgnore
+    @Column(name = "missed_period_runs")
+    private String missedPeriodRuns;
+
+    // Former format (comma-joined dates), only kept until MissedDatesMigrationJob has converted the row
+    @JsonIgnore
+    @Column(name = "missed_dates", columnDefinition = "TEXT")
+    private String legacyMissedDates;
 
     private String status; // LATE, UP_TO_DATE, ENDED
 
+    // Next period start: the report only changes on a payment or when this date is reached (null: no more periods)
+    @Column(name = "next_due_date")
+    private LocalDate nextDueDate;
+
     @CreationTimestamp
     private LocalDateTime generatedAt;
+
+    // Last write (incremental exports filter on it)
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    /**
+     * Missed period start dates, decoded on read (lazy view, nothing is materialized).
+     */
+    public List<LocalDate> getMissedDates() {
+        if (missedPeriodRuns == null && legacyMissedDates != null && !legacyMissedDates.isBlank()) {
+            return Arrays.stream(legacyMissedDates.split(",")).map(LocalDate::parse).toList();
+        }
+        return MissedPeriodsCodec.dates(missedPeriodRuns);
+    }
 }
\ No newline at end of file
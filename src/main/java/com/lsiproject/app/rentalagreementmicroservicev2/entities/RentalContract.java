@@ -1,6 +1,8 @@
 package com.lsiproject.app.rentalagreementmicroservicev2.entities;
 
+import com.lsiproject.app.rentalagreementmicroservicev2.billing.BillingCalendar;
 import com.lsiproject.app.rentalagreementmicroservicev2.enums.RentalContractState;
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.TypeOfRental;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -8,7 +10,6 @@ import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
 import java.util.List;
 
 /**
@@ -16,7 +17,11 @@ import java.util.List;
  * C'est l'enregistrement hors-chaîne (off-chain) de l'accord sur la blockchain.
  */
 @Entity
-@Table(name = "rental_contracts")
+@Table(name = "rental_contracts",
+        indexes = {
+                @Index(name = "idx_rental_contracts_owner_state", columnList = "owner_id, state"),
+                @Index(name = "idx_rental_contracts_tenant_state", columnList = "tenant_id, state")
+        })
 @Data
 @NoArgsConstructor
 public class RentalContract {
@@ -58,6 +63,12 @@ public class RentalContract {
 
     private Double PayedAmount;
 
+    // Type de location (période de facturation) capturé à la création.
+    // Null pour les contrats antérieurs tant que le backfill ne l'a pas renseigné.
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private TypeOfRental typeOfRental;
+
 
     @Column(nullable = false)
     private Boolean isKeyDelivered = false; // Confirmé par le locataire (déclenche activateAgreement)
@@ -83,20 +94,22 @@ public class RentalContract {
             return 0.0;
         }
 
-        String type = rentalType.trim().toUpperCase();
-
-        if (type.equals("DAILY")) {
-            // Calculate exact number of days
-            long days = ChronoUnit.DAYS.between(startDate, endDate);
-            return days * rentAmount;
-
-        } else if (type.equals("MONTHLY")) {
-            // Calculate only FULL months (ignoring extra days as requested)
-            long months = ChronoUnit.MONTHS.between(startDate, endDate);
-
-            return months * rentAmount;
+        TypeOfRental type;
+        try {
+            type = TypeOfRental.valueOf(rentalType.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown rental type: " + rentalType);
         }
+        return calculateTotalAmount(startDate, endDate, rentAmount, type);
+    }
 
-        throw new IllegalArgumentException("Unknown rental type: " + rentalType);
+    /**
+     * Montant total du contrat : uniquement les périodes COMPLÈTES (jours exacts ou mois entiers, jours restants ignorés).
+     */
+    public Double calculateTotalAmount(LocalDate startDate, LocalDate endDate, Double rentAmount, TypeOfRental rentalType) {
+        if (startDate == null || endDate == null || rentAmount == null || rentalType == null) {
+            return 0.0;
+        }
+        return BillingCalendar.fullPeriodsBetween(startDate, endDate, rentalType) * rentAmount;
     }
 }
\ No newline at end of file
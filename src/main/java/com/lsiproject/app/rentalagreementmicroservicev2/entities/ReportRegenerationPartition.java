@@ -0,0 +1,40 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Partition du job de régénération des rapports de paiement (contrats dont idContract mod N = partitionId).
+ *
+ * Sert à la fois de verrou distribué (owner + leaseUntil, pris par UPDATE conditionnel)
+ * et de point de reprise (lastContractId, mis à jour dans la transaction de chaque lot).
+ */
+@Entity
+@Table(name = "report_regeneration_partitions")
+@Data
+@NoArgsConstructor
+public class ReportRegenerationPartition {
+
+    @Id
+    private Integer partitionId;
+
+    // Instance propriétaire de la partition (null si libre)
+    private String owner;
+
+    // Fin du bail : au-delà, une autre instance peut reprendre la partition
+    private LocalDateTime leaseUntil;
+
+    // Dernier contrat traité dans le passage en cours (reprise après crash)
+    @Column(nullable = false)
+    private Long lastContractId = 0L;
+
+    // Fin du dernier passage complet (null tant que le passage en cours n'est pas terminé)
+    private LocalDateTime completedAt;
+
+    public ReportRegenerationPartition(Integer partitionId) {
+        this.partitionId = partitionId;
+    }
+}
@@ -0,0 +1,63 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.entities;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.RevenueGranularity;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Loyers encaissés (paiements CONFIRMED) par contrat et par jour ou par mois, selon la date du paiement.
+ *
+ * Tenue à jour dans la transaction de chaque paiement (RevenueRollupService.apply), reconstructible depuis
+ * la table payments (RevenueRollupRebuildJob). Propriétaire et propriété sont recopiés du contrat pour que
+ * les requêtes par propriétaire ou par propriété lisent leur index sans jointure.
+ */
+@Entity
+@Table(name = "revenue_rollups",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_revenue_rollups_contract_period",
+                        columnNames = {"contract_id", "granularity", "period_start"})
+        },
+        indexes = {
+                @Index(name = "idx_revenue_rollups_owner_period", columnList = "owner_id, granularity, period_start"),
+                @Index(name = "idx_revenue_rollups_property_period", columnList = "property_id, granularity, period_start"),
+                @Index(name = "idx_revenue_rollups_period", columnList = "granularity, period_start")
+        })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RevenueRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long idRollup;
+
+    @Column(name = "contract_id", nullable = false)
+    private Long contractId;
+
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    @Column(name = "property_id", nullable = false)
+    private Long propertyId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private RevenueGranularity granularity;
+
+    // Premier jour de la période (le jour lui-même pour DAY, le 1er du mois pour MONTH)
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart;
+
+    @Column(nullable = false)
+    private Double amount;
+
+    // Nombre de paiements confirmés de la période
+    @Column(nullable = false)
+    private Long payments;
+}
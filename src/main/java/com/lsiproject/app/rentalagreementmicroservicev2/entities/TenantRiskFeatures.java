@@ -0,0 +1,54 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.entities;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Variables de risque d'un locataire, tous contrats confondus (entrée du modèle de scoring).
+ * Table matérialisée : tenue à jour après chaque paiement, rapport, litige ou changement d'état d'un contrat
+ * du locataire (TenantRiskFeatureService), reconstructible depuis les tables sources (TenantRiskFeaturesRebuildJob).
+ */
+@Entity
+@Table(name = "tenant_risk_features")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TenantRiskFeatures {
+
+    @Id
+    private Long tenantId; // One row per tenant
+
+    // Somme des rapports de paiement de tous les contrats du locataire
+    private int totalMissedPeriods;
+    private int totalPaidPeriods;
+
+    // paidPeriods / (paidPeriods + missedPeriods), 1.0 si aucune période n'est encore due
+    private double onTimeRatio;
+
+    // Copie de DisputeSummary
+    private int totalDisputes;
+    private LocalDateTime lastDisputeDate;
+
+    // Contrats ACTIVE du locataire
+    private int activeContracts;
+
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+
+    /**
+     * Jours écoulés depuis le dernier litige (calculé à la lecture pour ne pas vieillir en base), null si aucun.
+     */
+    public Long getDaysSinceLastDispute() {
+        return lastDisputeDate == null ? null : ChronoUnit.DAYS.between(lastDisputeDate, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,7 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.enums;
+
+public enum LedgerEntryType {
+    OPENING, // Solde accumulé avant l'ouverture du grand livre du contrat (première écriture)
+    PAYMENT,
+    REVERSAL // Annulation d'un paiement passé à FAILED (montant négatif)
+}
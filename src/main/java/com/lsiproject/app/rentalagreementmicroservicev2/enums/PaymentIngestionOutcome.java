@@ -0,0 +1,7 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.enums;
+
+public enum PaymentIngestionOutcome {
+    CREATED,
+    DUPLICATE, // txHash déjà enregistré (ou présent plus haut dans le même lot) : rien n'est écrit
+    REJECTED
+}
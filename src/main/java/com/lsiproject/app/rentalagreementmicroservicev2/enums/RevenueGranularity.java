@@ -0,0 +1,13 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.enums;
+
+import java.time.LocalDate;
+
+public enum RevenueGranularity {
+    DAY,
+    MONTH;
+
+    // Début de la période qui contient ce jour
+    public LocalDate periodStart(LocalDate day) {
+        return this == MONTH ? day.withDayOfMonth(1) : day;
+    }
+}
@@ -1,6 +1,32 @@
 package com.lsiproject.app.rentalagreementmicroservicev2.enums;
 
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Type de location, et donc définition de la période de facturation du loyer.
+ */
 public enum TypeOfRental {
-    MONTHLY,
-    DAILY
-}
\ No newline at end of file
+    MONTHLY(ChronoUnit.MONTHS),
+    DAILY(ChronoUnit.DAYS);
+
+    private final ChronoUnit billingUnit;
+
+    TypeOfRental(ChronoUnit billingUnit) {
+        this.billingUnit = billingUnit;
+    }
+
+    /**
+     * Unité d'une période de facturation (un loyer est dû par période).
+     */
+    public ChronoUnit getBillingUnit() {
+        return billingUnit;
+    }
+
+    /**
+     * Début de la période de facturation suivante.
+     */
+    public LocalDate nextPeriodStart(LocalDate periodStart) {
+        return periodStart.plus(1, billingUnit);
+    }
+}
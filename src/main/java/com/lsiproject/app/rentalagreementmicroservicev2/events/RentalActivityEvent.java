@@ -0,0 +1,18 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.events;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.entities.RentalContract;
+
+/**
+ * Événement applicatif (non Kafka) : un contrat a changé (nouveau paiement, changement d'état, rapport recalculé,
+ * litige). Sert à rafraîchir les vues agrégées du contrat, du propriétaire et du locataire après le commit.
+ *
+ * @param contractId Contrat concerné (null si l'événement ne concerne que le locataire).
+ * @param ownerId    Propriétaire concerné (null si l'événement ne concerne que le locataire).
+ * @param tenantId   Locataire concerné (null si inconnu).
+ */
+public record RentalActivityEvent(Long contractId, Long ownerId, Long tenantId) {
+
+    public static RentalActivityEvent of(RentalContract contract) {
+        return new RentalActivityEvent(contract.getIdContract(), contract.getOwnerId(), contract.getTenantId());
+    }
+}
@@ -0,0 +1,14 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Paiement déjà enregistré (même txHash) : 409 côté HTTP, doublon ignoré côté Kafka (RentPaidConsumer).
+ */
+public class DuplicatePaymentException extends ResponseStatusException {
+
+    public DuplicatePaymentException(String txHash) {
+        super(HttpStatus.CONFLICT, "Payment with transaction hash " + txHash + " already exists.");
+    }
+}
@@ -0,0 +1,95 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.jobs;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.PropertyResponseDTO;
+import com.lsiproject.app.rentalagreementmicroservicev2.entities.RentalContract;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.RentalContractRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.resilience.circuitbreaker.PropertyCircuitBreaker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Renseigne le type de location des contrats créés avant qu'il soit stocké sur RentalContract.
+ *
+ * Parcourt les contrats sans type par lots (ID croissant) et résout chaque lot en un seul appel groupé
+ * au microservice Property. Les contrats dont la propriété est introuvable sont ignorés (repris au passage suivant)
+ * et le parcours continue au lot suivant. S'arrête seulement si l'appel échoue ou si le circuit est ouvert.
+ */
+@Component
+public class ContractRentalTypeBackfillJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ContractRentalTypeBackfillJob.class);
+
+    private final RentalContractRepository contractRepository;
+    private final PropertyCircuitBreaker propertyCircuitBreaker;
+    private final int batchSize;
+    private final boolean enabled;
+
+    public ContractRentalTypeBackfillJob(
+            RentalContractRepository contractRepository,
+            PropertyCircuitBreaker propertyCircuitBreaker,
+            @Value("${jobs.rental-type-backfill.batch-size:100}") int batchSize,
+            @Value("${jobs.rental-type-backfill.enabled:true}") boolean enabled) {
+        this.contractRepository = contractRepository;
+        this.propertyCircuitBreaker = propertyCircuitBreaker;
+        this.batchSize = batchSize;
+        this.enabled = enabled;
+    }
+
+    @Scheduled(initialDelayString = "${jobs.rental-type-backfill.initial-delay-ms:60000}",
+            fixedDelayString = "${jobs.rental-type-backfill.interval-ms:3600000}")
+    public void run() {
+        if (!enabled) {
+            return;
+        }
+        int updated = backfill();
+        if (updated > 0) {
+            log.info("Rental type backfilled on {} contracts", updated);
+        }
+    }
+
+    /**
+     * @return Le nombre de contrats mis à jour.
+     */
+    public int backfill() {
+        long lastId = 0L;
+        int updated = 0;
+
+        while (true) {
+            List<RentalContract> contracts = contractRepository
+                    .findByTypeOfRentalIsNullAndIdContractGreaterThanOrderByIdContractAsc(lastId, PageRequest.of(0, batchSize));
+            if (contracts.isEmpty()) {
+                return updated;
+            }
+            lastId = contracts.get(contracts.size() - 1).getIdContract();
+
+            Map<Long, PropertyResponseDTO> properties;
+            try {
+                properties = propertyCircuitBreaker.fetchPropertiesByIds(
+                        contracts.stream().map(RentalContract::getPropertyId).toList());
+            } catch (RuntimeException e) {
+                log.warn("Rental type backfill paused after contract {}: property service unavailable ({})",
+                        contracts.get(0).getIdContract() - 1, e.getMessage());
+                return updated;
+            }
+
+            List<RentalContract> resolved = new ArrayList<>();
+            for (RentalContract contract : contracts) {
+                PropertyResponseDTO property = properties.get(contract.getPropertyId());
+                if (property != null && property.typeOfRental() != null) {
+                    contract.setTypeOfRental(property.typeOfRental());
+                    resolved.add(contract);
+                }
+            }
+            contractRepository.saveAll(resolved);
+            updated += resolved.size();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.jobs;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.billing.MissedPeriodsCodec;
+import com.lsiproject.app.rentalagreementmicroservicev2.entities.PaymentReport;
+import com.lsiproject.app.rentalagreementmicroservicev2.entities.RentalContract;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.PaymentReportRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.RentalContractRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Migration des rapports de paiement vers l'encodage compact des périodes impayées (MissedPeriodsCodec).
+ *
+ * Parcourt les rapports dont la colonne missed_dates (dates jointes par des virgules) est encore renseignée,
+ * par lots (ID croissant, une transaction par lot), réencode les dates et vide l'ancienne colonne.
+ * Comme tout chemin qui écrit un rapport, verrouille les contrats du lot puis leurs rapports (relus à jour).
+ * Les rapports dont le contrat n'a pas encore de type de location sont laissés tels quels : ils restent lisibles
+ * (PaymentReport.getMissedDates) et seront réécrits à leur prochaine régénération.
+ * Idempotent : ne fait plus rien une fois toutes les lignes migrées.
+ */
+@Component
+public class MissedDatesMigrationJob {
+
+    private static final Logger log = LoggerFactory.getLogger(MissedDatesMigrationJob.class);
+
+    private final PaymentReportRepository reportRepository;
+    private final RentalContractRepository contractRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final boolean enabled;
+    private final Counter migratedReports;
+    private final Counter bytesBefore;
+    private final Counter bytesAfter;
+
+    public MissedDatesMigrationJob(
+            PaymentReportRepository reportRepository,
+            RentalContractRepository contractRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${jobs.missed-dates-migration.batch-size:500}") int batchSize,
+            @Value("${jobs.missed-dates-migration.enabled:true}") boolean enabled) {
+        this.reportRepository = reportRepository;
+        this.contractRepository = contractRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.enabled = enabled;
+        this.migratedReports = Counter.builder("report.missed-dates.migrated")
+                .description("Rapports migrés vers l'encodage compact des périodes impayées")
+                .register(meterRegistry);
+        this.bytesBefore = Counter.builder("report.missed-dates.migrated.bytes")
+                .description("Taille de la colonne des périodes impayées des rapports migrés")
+                .baseUnit("bytes")
+                .tag("format", "legacy")
+                .register(meterRegistry);
+        this.bytesAfter = Counter.builder("report.missed-dates.migrated.bytes")
+                .description("Taille de la colonne des périodes impayées des rapports migrés")
+                .baseUnit("bytes")
+                .tag("format", "runs")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${jobs.missed-dates-migration.initial-delay-ms:30000}",
+            fixedDelayString = "${jobs.missed-dates-migration.interval-ms:86400000}")
+    public void run() {
+        if (!enabled) {
+            return;
+        }
+        migrate();
+    }
+
+    /**
+     * @return Le nombre de rapports migrés.
+     */
+    public int migrate() {
+        long lastId = 0L;
+        int migrated = 0;
+        long legacyBytes = 0;
+        long encodedBytes = 0;
+
+        while (true) {
+            long afterId = lastId;
+            MigrationChunk chunk = transactionTemplate.execute(status -> migrateChunk(afterId));
+            if (chunk == null) {
+                break;
+            }
+            lastId = chunk.lastId();
+            migratedReports.increment(chunk.migrated());
+            bytesBefore.increment(chunk.legacyBytes());
+            bytesAfter.increment(chunk.encodedBytes());
+            migrated += chunk.migrated();
+            legacyBytes += chunk.legacyBytes();
+            encodedBytes += chunk.encodedBytes();
+        }
+
+        if (migrated > 0) {
+            log.info("Missed dates of {} payment reports re-encoded: {} bytes -> {} bytes",
+                    migrated, legacyBytes, encodedBytes);
+        }
+        return migrated;
+    }
+
+    /**
+     * @return null si plus aucun rapport n'est à l'ancien format.
+     */
+    private MigrationChunk migrateChunk(long afterId) {
+        List<PaymentReportRepository.ReportContractIds> pending =
+                reportRepository.findWithLegacyMissedDates(afterId, PageRequest.of(0, batchSize));
+        if (pending.isEmpty()) {
+            return null;
+        }
+
+        List<Long> contractIds = pending.stream().map(PaymentReportRepository.ReportContractIds::getContractId).toList();
+        contractRepository.findAllByIdForUpdate(contractIds);
+        List<PaymentReport> reports = reportRepository.findByContractIdsForUpdate(contractIds);
+
+        int migrated = 0;
+        long legacyBytes = 0;
+        long encodedBytes = 0;
+        for (PaymentReport report : reports) {
+            RentalContract contract = report.getRentalContract();
+            String legacy = report.getLegacyMissedDates();
+            // Rapport réécrit par un paiement depuis la sélection du lot
+            if (legacy == null || contract.getTypeOfRental() == null) {
+                continue;
+            }
+            String encoded = MissedPeriodsCodec.encodeLegacy(legacy, contract.getStartDate(), contract.getTypeOfRental());
+
+            report.setMissedPeriodRuns(encoded);
+            report.setLegacyMissedDates(null);
+
+            migrated++;
+            legacyBytes += legacy.getBytes(StandardCharsets.UTF_8).length;
+            encodedBytes += encoded == null ? 0 : encoded.getBytes(StandardCharsets.UTF_8).length;
+        }
+        return new MigrationChunk(pending.get(pending.size() - 1).getIdReport(), migrated, legacyBytes, encodedBytes);
+    }
+
+    private record MigrationChunk(long lastId, int migrated, long legacyBytes, long encodedBytes) {
+    }
+}
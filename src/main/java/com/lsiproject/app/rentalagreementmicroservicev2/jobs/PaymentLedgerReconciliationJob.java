@@ -0,0 +1,86 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.jobs;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.LedgerDiscrepancyDto;
+import com.lsiproject.app.rentalagreementmicroservicev2.entities.RentalContract;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.RentalContractRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.services.PaymentLedgerService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Rapprochement du grand livre des paiements avec les colonnes existantes.
+ *
+ * Parcourt tous les contrats par lots (ID croissant) ; pour chacun dont le grand livre est ouvert, le solde
+ * doit égaler RentalContract.PayedAmount et la somme des paiements qui ne sont pas FAILED.
+ * Les écarts sont seulement signalés (journal + métrique) : rien n'est corrigé automatiquement.
+ */
+@Component
+public class PaymentLedgerReconciliationJob {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentLedgerReconciliationJob.class);
+
+    private final RentalContractRepository contractRepository;
+    private final PaymentLedgerService ledgerService;
+    private final int batchSize;
+    private final boolean enabled;
+    private final Counter discrepancies;
+
+    public PaymentLedgerReconciliationJob(
+            RentalContractRepository contractRepository,
+            PaymentLedgerService ledgerService,
+            MeterRegistry meterRegistry,
+            @Value("${jobs.ledger-reconciliation.batch-size:500}") int batchSize,
+            @Value("${jobs.ledger-reconciliation.enabled:true}") boolean enabled) {
+        this.contractRepository = contractRepository;
+        this.ledgerService = ledgerService;
+        this.batchSize = batchSize;
+        this.enabled = enabled;
+        this.discrepancies = Counter.builder("ledger.reconciliation.discrepancies")
+                .description("Contrats dont le grand livre ne concorde pas avec le montant payé ou les paiements")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${jobs.ledger-reconciliation.cron:0 15 2 * * *}")
+    public void run() {
+        if (!enabled) {
+            return;
+        }
+        int found = reconcile();
+        if (found > 0) {
+            log.warn("Ledger reconciliation found {} contracts in discrepancy", found);
+        }
+    }
+
+    /**
+     * @return Le nombre de contrats en écart.
+     */
+    public int reconcile() {
+        long lastId = 0L;
+        int found = 0;
+
+        while (true) {
+            List<RentalContract> contracts = contractRepository
+                    .findByIdContractGreaterThanOrderByIdContractAsc(lastId, PageRequest.of(0, batchSize));
+            if (contracts.isEmpty()) {
+                return found;
+            }
+            lastId = contracts.get(contracts.size() - 1).getIdContract();
+
+            for (LedgerDiscrepancyDto discrepancy : ledgerService.reconcile(contracts)) {
+                log.warn("Ledger discrepancy on contract {}: ledger balance {}, payed amount {}, payments total {}",
+                        discrepancy.contractId(), discrepancy.ledgerBalance(), discrepancy.payedAmount(),
+                        discrepancy.paymentsTotal());
+                discrepancies.increment();
+                found++;
+            }
+        }
+    }
+}
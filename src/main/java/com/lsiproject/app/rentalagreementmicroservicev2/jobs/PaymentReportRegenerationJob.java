@@ -0,0 +1,245 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.jobs;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.entities.RentalContract;
+import com.lsiproject.app.rentalagreementmicroservicev2.entities.ReportRegenerationPartition;
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.RentalContractState;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.RentalContractRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.ReportRegenerationPartitionRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.services.PaymentReportService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Régénère périodiquement les rapports de paiement de tous les contrats ACTIVE et DISPUTED.
+ *
+ * - Les contrats sont répartis en N partitions (idContract mod N), décrites par report_regeneration_partitions
+ * - Une partition n'est traitée que par l'instance qui l'a prise (UPDATE conditionnel + bail prolongé à chaque lot) ;
+ *   si l'instance meurt, le bail expire et une autre instance reprend la partition
+ * - Chaque partition est parcourue par lots (ID croissant), un lot = une transaction : rapports + point de reprise.
+ *   Après un crash, le passage reprend au dernier lot validé
+ * - Une partition terminée redevient due après jobs.report-regeneration.interval
+ *
+ * Les contrats sans type de location stocké sont ignorés (voir ContractRentalTypeBackfillJob).
+ */
+@Component
+public class PaymentReportRegenerationJob {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentReportRegenerationJob.class);
+
+    private static final List<RentalContractState> STATES =
+            List.of(RentalContractState.ACTIVE, RentalContractState.DISPUTED);
+
+    private final RentalContractRepository contractRepository;
+    private final ReportRegenerationPartitionRepository partitionRepository;
+    private final PaymentReportService reportService;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int partitions;
+    private final int chunkSize;
+    private final Duration interval;
+    private final Duration lease;
+    private final boolean enabled;
+
+    // Identifiant de cette instance dans la colonne owner
+    private final String instanceId = UUID.randomUUID().toString();
+    private final ExecutorService workers;
+    // Partitions en cours de traitement sur cette instance
+    private final Set<Integer> running = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger activePartitions = new AtomicInteger();
+
+    private final Counter regenerated;
+    private final Counter skipped;
+    private final Timer chunkTimer;
+
+    public PaymentReportRegenerationJob(
+            RentalContractRepository contractRepository,
+            ReportRegenerationPartitionRepository partitionRepository,
+            PaymentReportService reportService,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${jobs.report-regeneration.partitions:16}") int partitions,
+            @Value("${jobs.report-regeneration.workers:4}") int workers,
+            @Value("${jobs.report-regeneration.chunk-size:200}") int chunkSize,
+            @Value("${jobs.report-regeneration.interval:6h}") Duration interval,
+            @Value("${jobs.report-regeneration.lease:5m}") Duration lease,
+            @Value("${jobs.report-regeneration.enabled:true}") boolean enabled) {
+        this.contractRepository = contractRepository;
+        this.partitionRepository = partitionRepository;
+        this.reportService = reportService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Les totaux payés sont lus après le verrou des contrats du lot : ils doivent voir les paiements validés
+        // entre la sélection du lot et ce verrou (en REPEATABLE READ, ils seraient lus dans l'instantané du lot)
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.partitions = partitions;
+        this.chunkSize = chunkSize;
+        this.interval = interval;
+        this.lease = lease;
+        this.enabled = enabled;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "report-regeneration-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.regenerated = Counter.builder("report.regeneration.contracts")
+                .description("Contrats traités par la régénération des rapports")
+                .tag("outcome", "regenerated")
+                .register(meterRegistry);
+        this.skipped = Counter.builder("report.regeneration.contracts")
+                .description("Contrats traités par la régénération des rapports")
+                .tag("outcome", "skipped")
+                .register(meterRegistry);
+        this.chunkTimer = Timer.builder("report.regeneration.chunk")
+                .description("Durée d'un lot de régénération (lecture + écriture + point de reprise)")
+                .register(meterRegistry);
+        Gauge.builder("report.regeneration.partitions.active", activePartitions, AtomicInteger::get)
+                .description("Partitions en cours de traitement sur cette instance")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${jobs.report-regeneration.initial-delay-ms:120000}",
+            fixedDelayString = "${jobs.report-regeneration.poll-interval-ms:60000}")
+    public void run() {
+        if (!enabled) {
+            return;
+        }
+        ensurePartitions();
+
+        for (int partitionId = 0; partitionId < partitions; partitionId++) {
+            if (running.contains(partitionId) || !claim(partitionId)) {
+                continue;
+            }
+            int partition = partitionId;
+            running.add(partition);
+            try {
+                workers.execute(() -> process(partition));
+            } catch (RejectedExecutionException e) {
+                running.remove(partition);
+                partitionRepository.release(partition, instanceId);
+            }
+        }
+    }
+
+    /**
+     * Crée les lignes de partition manquantes (plusieurs instances peuvent le faire en même temps).
+     */
+    private void ensurePartitions() {
+        if (partitionRepository.count() >= partitions) {
+            return;
+        }
+        for (int partitionId = 0; partitionId < partitions; partitionId++) {
+            if (partitionRepository.existsById(partitionId)) {
+                continue;
+            }
+            try {
+                partitionRepository.saveAndFlush(new ReportRegenerationPartition(partitionId));
+            } catch (DataIntegrityViolationException e) {
+                // Créée entre-temps par une autre instance
+            }
+        }
+    }
+
+    private boolean claim(int partitionId) {
+        LocalDateTime now = LocalDateTime.now();
+        return partitionRepository.claim(partitionId, instanceId, now, now.plus(lease), now.minus(interval)) == 1;
+    }
+
+    private void process(int partitionId) {
+        activePartitions.incrementAndGet();
+        long startedAt = System.nanoTime();
+        long processed = 0;
+        try {
+            // Passage précédent terminé : on repart du début, sinon on reprend au point de reprise
+            partitionRepository.restart(partitionId, instanceId);
+            long lastId = partitionRepository.findById(partitionId)
+                    .map(ReportRegenerationPartition::getLastContractId)
+                    .orElse(0L);
+
+            while (true) {
+                long afterId = lastId;
+                ChunkResult chunk = chunkTimer.record(() -> processChunk(partitionId, afterId));
+                if (chunk == null) {
+                    break;
+                }
+                regenerated.increment(chunk.regenerated());
+                skipped.increment(chunk.size() - chunk.regenerated());
+                processed += chunk.size();
+                lastId = chunk.lastId();
+            }
+
+            partitionRepository.complete(partitionId, instanceId, LocalDateTime.now());
+            double seconds = (System.nanoTime() - startedAt) / 1_000_000_000.0;
+            log.info("Report regeneration: partition {}/{} done, {} contracts in {}s ({} contracts/s)",
+                    partitionId, partitions, processed, String.format("%.1f", seconds),
+                    String.format("%.0f", seconds > 0 ? processed / seconds : processed));
+        } catch (RuntimeException e) {
+            log.warn("Report regeneration: partition {} interrupted after {} contracts: {}",
+                    partitionId, processed, e.getMessage());
+            partitionRepository.release(partitionId, instanceId);
+        } finally {
+            activePartitions.decrementAndGet();
+            running.remove(partitionId);
+        }
+    }
+
+    /**
+     * Un lot dans une seule transaction : rapports régénérés et point de reprise validés ensemble.
+     *
+     * @return null si la partition est épuisée.
+     */
+    private ChunkResult processChunk(int partitionId, long afterId) {
+        return transactionTemplate.execute(status -> {
+            List<RentalContract> contracts = contractRepository.findByStateInAfterIdInPartition(
+                    STATES, afterId, partitions, partitionId, PageRequest.of(0, chunkSize));
+            if (contracts.isEmpty()) {
+                return null;
+            }
+            long lastId = contracts.get(contracts.size() - 1).getIdContract();
+
+            int done = reportService.regenerateReports(contracts);
+
+            if (partitionRepository.checkpoint(partitionId, instanceId, lastId,
+                    LocalDateTime.now().plus(lease)) == 0) {
+                // Bail expiré et partition reprise ailleurs : on annule ce lot
+                throw new IllegalStateException("partition " + partitionId + " is now owned by another instance");
+            }
+            return new ChunkResult(contracts.size(), done, lastId);
+        });
+    }
+
+    private record ChunkResult(int size, int regenerated, long lastId) {
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdownNow();
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
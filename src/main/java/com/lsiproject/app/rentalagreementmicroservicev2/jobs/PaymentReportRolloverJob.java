@@ -0,0 +1,74 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.jobs;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.services.PaymentReportService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Bascule de jour des rapports de paiement.
+ *
+ * Entre deux paiements, un rapport ne change que lorsqu'une nouvelle période commence : seuls les rapports
+ * dont la prochaine échéance (nextDueDate) est atteinte sont recalculés, par lots (ID croissant),
+ * une transaction par lot. Les paiements eux-mêmes sont appliqués au fil de l'eau (PaymentReportService.applyPayment).
+ *
+ * Les rapports sans échéance connue (générés avant son introduction) sont repris par PaymentReportRegenerationJob.
+ */
+@Component
+public class PaymentReportRolloverJob {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentReportRolloverJob.class);
+
+    private final PaymentReportService reportService;
+    private final int batchSize;
+    private final boolean enabled;
+    private final Counter rolledOver;
+
+    public PaymentReportRolloverJob(
+            PaymentReportService reportService,
+            MeterRegistry meterRegistry,
+            @Value("${jobs.report-rollover.batch-size:500}") int batchSize,
+            @Value("${jobs.report-rollover.enabled:true}") boolean enabled) {
+        this.reportService = reportService;
+        this.batchSize = batchSize;
+        this.enabled = enabled;
+        this.rolledOver = Counter.builder("report.rollover.reports")
+                .description("Rapports recalculés par la bascule de jour")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${jobs.report-rollover.cron:0 5 0 * * *}")
+    public void run() {
+        if (!enabled) {
+            return;
+        }
+        int updated = rollOver();
+        if (updated > 0) {
+            log.info("Day rollover applied to {} payment reports", updated);
+        }
+    }
+
+    /**
+     * @return Le nombre de rapports recalculés.
+     */
+    public int rollOver() {
+        long lastId = 0L;
+        int updated = 0;
+
+        while (true) {
+            List<Long> ids = reportService.rollOverDueReports(lastId, batchSize);
+            if (ids.isEmpty()) {
+                return updated;
+            }
+            lastId = ids.get(ids.size() - 1);
+            updated += ids.size();
+            rolledOver.increment(ids.size());
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.jobs;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.RentalContractRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.services.RevenueRollupService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reconstruction complète de revenue_rollups depuis la table payments.
+ *
+ * Les contrats sont répartis en partitions (idContract mod N), traitées en parallèle sur un pool de workers ;
+ * chaque partition est parcourue par lots (ID croissant), un lot par transaction (RevenueRollupService.rebuild) :
+ * les contrats du lot sont verrouillés, leurs cumuls supprimés puis recalculés en une requête groupée.
+ * Sert de filet de sécurité pour la mise à jour au fil de l'eau (données antérieures, correction manuelle).
+ */
+@Component
+public class RevenueRollupRebuildJob {
+
+    private static final Logger log = LoggerFactory.getLogger(RevenueRollupRebuildJob.class);
+
+    private final RentalContractRepository contractRepository;
+    private final RevenueRollupService rollupService;
+    private final int partitions;
+    private final int chunkSize;
+    private final boolean enabled;
+    private final ExecutorService workerPool;
+    private final ExecutorService coordinator;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Counter rebuiltContracts;
+
+    public RevenueRollupRebuildJob(
+            RentalContractRepository contractRepository,
+            RevenueRollupService rollupService,
+            MeterRegistry meterRegistry,
+            @Value("${jobs.revenue-rollup-rebuild.partitions:8}") int partitions,
+            @Value("${jobs.revenue-rollup-rebuild.workers:4}") int workers,
+            @Value("${jobs.revenue-rollup-rebuild.chunk-size:200}") int chunkSize,
+            @Value("${jobs.revenue-rollup-rebuild.enabled:true}") boolean enabled) {
+        this.contractRepository = contractRepository;
+        this.rollupService = rollupService;
+        this.partitions = partitions;
+        this.chunkSize = chunkSize;
+        this.enabled = enabled;
+        this.workerPool = Executors.newFixedThreadPool(workers);
+        this.coordinator = Executors.newSingleThreadExecutor();
+        this.rebuiltContracts = Counter.builder("revenue-rollups.rebuild.contracts")
+                .description("Contrats dont les cumuls de revenus ont été reconstruits")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${jobs.revenue-rollup-rebuild.cron:0 0 4 * * SUN}")
+    public void run() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Lance la reconstruction en arrière-plan (endpoint d'administration).
+     *
+     * @return false si une reconstruction est déjà en cours.
+     */
+    public boolean startRebuild() {
+        if (running.get()) {
+            return false;
+        }
+        coordinator.submit(this::rebuild);
+        return true;
+    }
+
+    /**
+     * @return Le nombre de contrats reconstruits, -1 si une reconstruction était déjà en cours.
+     */
+    public int rebuild() {
+        if (!running.compareAndSet(false, true)) {
+            return -1;
+        }
+        long started = System.currentTimeMillis();
+        AtomicInteger rebuilt = new AtomicInteger();
+        try {
+            CompletableFuture<?>[] tasks = new CompletableFuture[partitions];
+            for (int partition = 0; partition < partitions; partition++) {
+                int current = partition;
+                tasks[partition] = CompletableFuture.runAsync(() -> rebuilt.addAndGet(rebuildPartition(current)), workerPool);
+            }
+            CompletableFuture.allOf(tasks).join();
+            log.info("Revenue rollups rebuilt for {} contracts in {} ms", rebuilt.get(), System.currentTimeMillis() - started);
+            return rebuilt.get();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private int rebuildPartition(int partition) {
+        long lastId = 0L;
+        int rebuilt = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            List<Long> contractIds = contractRepository.findIdsInPartitionAfter(lastId, partitions, partition,
+                    PageRequest.of(0, chunkSize));
+            if (contractIds.isEmpty()) {
+                break;
+            }
+            lastId = contractIds.get(contractIds.size() - 1);
+            try {
+                int rows = rollupService.rebuild(contractIds);
+                rebuilt += rows;
+                rebuiltContracts.increment(rows);
+            } catch (RuntimeException e) {
+                log.warn("Revenue rollups rebuild: partition {}, chunk ending at contract {} failed: {}",
+                        partition, lastId, e.getMessage());
+            }
+        }
+        return rebuilt;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        coordinator.shutdownNow();
+        workerPool.shutdownNow();
+    }
+}
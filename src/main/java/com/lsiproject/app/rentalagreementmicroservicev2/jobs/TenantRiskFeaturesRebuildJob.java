@@ -0,0 +1,138 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.jobs;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.RentalContractRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.services.TenantRiskFeatureService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reconstruction complète de tenant_risk_features depuis les tables sources.
+ *
+ * Les ID de locataires sont parcourus par lots (ID croissant, DISTINCT sur l'index des contrats) ;
+ * chaque lot est recalculé sur un pool de workers, dans sa propre transaction (TenantRiskFeatureService.refresh).
+ * Le nombre de lots en attente est borné : la lecture des ID n'avance pas plus vite que les workers.
+ * Sert de filet de sécurité pour la mise à jour au fil de l'eau (événement perdu, ajout d'une variable).
+ */
+@Component
+public class TenantRiskFeaturesRebuildJob {
+
+    private static final Logger log = LoggerFactory.getLogger(TenantRiskFeaturesRebuildJob.class);
+
+    private final RentalContractRepository contractRepository;
+    private final TenantRiskFeatureService featureService;
+    private final int batchSize;
+    private final int workers;
+    private final boolean enabled;
+    private final ExecutorService workerPool;
+    private final ExecutorService coordinator;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Counter rebuiltTenants;
+
+    public TenantRiskFeaturesRebuildJob(
+            RentalContractRepository contractRepository,
+            TenantRiskFeatureService featureService,
+            MeterRegistry meterRegistry,
+            @Value("${jobs.risk-features-rebuild.batch-size:500}") int batchSize,
+            @Value("${jobs.risk-features-rebuild.workers:4}") int workers,
+            @Value("${jobs.risk-features-rebuild.enabled:true}") boolean enabled) {
+        this.contractRepository = contractRepository;
+        this.featureService = featureService;
+        this.batchSize = batchSize;
+        this.workers = workers;
+        this.enabled = enabled;
+        this.workerPool = Executors.newFixedThreadPool(workers);
+        this.coordinator = Executors.newSingleThreadExecutor();
+        this.rebuiltTenants = Counter.builder("risk-features.rebuild.tenants")
+                .description("Locataires recalculés par la reconstruction des variables de risque")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${jobs.risk-features-rebuild.cron:0 30 3 * * SUN}")
+    public void run() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Lance la reconstruction en arrière-plan (endpoint d'administration).
+     *
+     * @return false si une reconstruction est déjà en cours.
+     */
+    public boolean startRebuild() {
+        if (running.get()) {
+            return false;
+        }
+        coordinator.submit(this::rebuild);
+        return true;
+    }
+
+    /**
+     * @return Le nombre de locataires recalculés, -1 si une reconstruction était déjà en cours.
+     */
+    public int rebuild() {
+        if (!running.compareAndSet(false, true)) {
+            return -1;
+        }
+        long started = System.currentTimeMillis();
+        AtomicInteger rebuilt = new AtomicInteger();
+        List<CompletableFuture<Void>> batches = new ArrayList<>();
+        // Au plus deux lots par worker entre la lecture des ID et leur traitement
+        Semaphore pending = new Semaphore(workers * 2);
+        try {
+            long lastTenantId = 0L;
+            while (true) {
+                List<Long> tenantIds = contractRepository.findTenantIdsAfter(lastTenantId, PageRequest.of(0, batchSize));
+                if (tenantIds.isEmpty()) {
+                    break;
+                }
+                lastTenantId = tenantIds.get(tenantIds.size() - 1);
+
+                pending.acquire();
+                batches.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        int rows = featureService.refresh(tenantIds);
+                        rebuilt.addAndGet(rows);
+                        rebuiltTenants.increment(rows);
+                    } catch (RuntimeException e) {
+                        log.warn("Risk features rebuild: batch ending at tenant {} failed: {}",
+                                tenantIds.get(tenantIds.size() - 1), e.getMessage());
+                    } finally {
+                        pending.release();
+                    }
+                }, workerPool));
+            }
+            CompletableFuture.allOf(batches.toArray(new CompletableFuture[0])).join();
+            log.info("Risk features rebuilt for {} tenants in {} ms", rebuilt.get(), System.currentTimeMillis() - started);
+            return rebuilt.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Risk features rebuild interrupted after {} tenants", rebuilt.get());
+            return rebuilt.get();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        coordinator.shutdownNow();
+        workerPool.shutdownNow();
+    }
+}
@@ -0,0 +1,98 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.RentPaidEvent;
+import com.lsiproject.app.rentalagreementmicroservicev2.exceptions.DuplicatePaymentException;
+import com.lsiproject.app.rentalagreementmicroservicev2.services.PaymentService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+
+/**
+ * Ingestion des événements RentPaid depuis Kafka (le service d'écoute blockchain n'attend plus notre réponse HTTP).
+ *
+ * Chaque message est enregistré dans sa propre transaction (PaymentService.createPaymentForAgreement) ;
+ * l'offset n'est validé qu'une fois cette transaction commitée. Seuls les refus définitifs (doublon, contrat déjà
+ * entièrement payé) et les messages illisibles sont validés sans rejeu. Un contrat inconnu ou pas encore ACTIVE
+ * peut l'être au rejeu (événement reçu avant la création ou l'activation du contrat) : ces refus, comme les autres
+ * erreurs, remontent au gestionnaire d'erreurs du conteneur (rejeu puis DLT, voir KafkaConsumerConfig).
+ */
+@Component
+public class RentPaidConsumer {
+
+    private static final Logger log = LoggerFactory.getLogger(RentPaidConsumer.class);
+
+    private final PaymentService paymentService;
+    private final ObjectMapper objectMapper;
+    private final Counter created;
+    private final Counter duplicates;
+    private final Counter rejected;
+    private final Counter invalid;
+
+    public RentPaidConsumer(PaymentService paymentService, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.paymentService = paymentService;
+        this.objectMapper = objectMapper;
+        this.created = outcomeCounter(meterRegistry, "created");
+        this.duplicates = outcomeCounter(meterRegistry, "duplicate");
+        this.rejected = outcomeCounter(meterRegistry, "rejected");
+        this.invalid = outcomeCounter(meterRegistry, "invalid");
+    }
+
+    @KafkaListener(
+            topics = "${kafka.rent-paid.topic:rent-paid-events}",
+            containerFactory = "rentPaidListenerContainerFactory",
+            autoStartup = "${kafka.rent-paid.enabled:true}")
+    public void onRentPaid(ConsumerRecord<String, byte[]> record, Acknowledgment acknowledgment) {
+        RentPaidEvent event;
+        try {
+            event = objectMapper.readValue(record.value(), RentPaidEvent.class);
+        } catch (IOException e) {
+            invalid.increment();
+            log.error("Unreadable RentPaid message at {}-{}@{}: {}",
+                    record.topic(), record.partition(), record.offset(), e.getMessage());
+            acknowledgment.acknowledge();
+            return;
+        }
+        if (event.getAgreementIdOnChain() == null || event.getTxHash() == null) {
+            invalid.increment();
+            log.error("RentPaid message without agreement id or tx hash at {}-{}@{}",
+                    record.topic(), record.partition(), record.offset());
+            acknowledgment.acknowledge();
+            return;
+        }
+
+        try {
+            paymentService.createPaymentForAgreement(event.getAgreementIdOnChain(), event.toPaymentCreationDto());
+            created.increment();
+        } catch (DuplicatePaymentException e) {
+            duplicates.increment();
+        } catch (ResponseStatusException e) {
+            // Contrat introuvable ou pas ACTIVE : dépend de l'ordre d'arrivée, le paiement ne doit pas être perdu
+            if (e.getStatusCode() != HttpStatus.BAD_REQUEST) {
+                throw e;
+            }
+            // Contrat déjà entièrement payé : rejouer le message donnerait le même résultat
+            rejected.increment();
+            log.warn("RentPaid {} for agreement {} rejected: {}",
+                    event.getTxHash(), event.getAgreementIdOnChain(), e.getReason());
+        }
+        // Transaction du paiement commitée (ou refus définitif) : l'offset peut avancer
+        acknowledgment.acknowledge();
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("payments.rent-paid.consumed")
+                .tag("outcome", outcome)
+                .description("Événements RentPaid consommés depuis Kafka, par issue")
+                .register(meterRegistry);
+    }
+}
@@ -1,10 +1,12 @@
 package com.lsiproject.app.rentalagreementmicroservicev2.mappers;
 
 import com.lsiproject.app.rentalagreementmicroservicev2.dtos.RentalContractDto;
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.PropertyResponseDTO;
 import com.lsiproject.app.rentalagreementmicroservicev2.entities.RentalContract;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -30,6 +32,7 @@ public class RentalContractMapper {
                 .createdAt(entity.getCreatedAt())
                 .TotalAmountToPay(entity.getTotalAmountToPay())
                 .PayedAmount(entity.getPayedAmount())
+                .typeOfRental(entity.getTypeOfRental())
                 .build();
     }
 
@@ -38,4 +41,21 @@ public class RentalContractMapper {
                 .map(this::toDto)
                 .collect(Collectors.toList());
     }
+
+    /**
+     * Convertit une liste d'entités en DTO enrichis avec le titre de la propriété.
+     * @param properties Les propriétés déjà résolues (en un seul appel groupé), indexées par ID.
+     */
+    public List<RentalContractDto> toDtoList(List<RentalContract> entities, Map<Long, PropertyResponseDTO> properties) {
+        return entities.stream()
+                .map(entity -> {
+                    RentalContractDto dto = toDto(entity);
+                    PropertyResponseDTO property = properties.get(entity.getPropertyId());
+                    if (property != null) {
+                        dto.setPropertyTitle(property.title());
+                    }
+                    return dto;
+                })
+                .collect(Collectors.toList());
+    }
 }
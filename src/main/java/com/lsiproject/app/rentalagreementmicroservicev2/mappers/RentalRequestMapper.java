@@ -1,10 +1,12 @@
 package com.lsiproject.app.rentalagreementmicroservicev2.mappers;
 
 import com.lsiproject.app.rentalagreementmicroservicev2.dtos.RentalRequestDto;
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.PropertyResponseDTO;
 import com.lsiproject.app.rentalagreementmicroservicev2.entities.RentalRequest;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -38,4 +40,21 @@ public class RentalRequestMapper {
                 .map(this::toDto)
                 .collect(Collectors.toList());
     }
+
+    /**
+     * Convertit une liste d'entités en DTO enrichis avec le titre de la propriété.
+     * @param properties Les propriétés déjà résolues (en un seul appel groupé), indexées par ID.
+     */
+    public List<RentalRequestDto> toDtoList(List<RentalRequest> entities, Map<Long, PropertyResponseDTO> properties) {
+        return entities.stream()
+                .map(entity -> {
+                    RentalRequestDto dto = toDto(entity);
+                    PropertyResponseDTO property = properties.get(entity.getPropertyId());
+                    if (property != null) {
+                        dto.setPropertyTitle(property.title());
+                    }
+                    return dto;
+                })
+                .collect(Collectors.toList());
+    }
 }
@@ -7,6 +7,8 @@ import com.lsiproject.app.rentalagreementmicroservicev2.enums.TypeOfRental;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @FeignClient(
         name = "PropertyMicroService",
         url = "${property.service.url}",
@@ -30,4 +32,8 @@ public interface PropertyMicroService {
 
     @GetMapping("/api/property-microservice/properties/{id}/TypeOfRental")
     TypeOfRental getTypeOfRental(@PathVariable Long id);
+
+    // Lecture groupée : une seule requête pour enrichir une liste (les IDs inconnus sont absents de la réponse)
+    @PostMapping("/api/property-microservice/properties/batch")
+    List<PropertyResponseDTO> getPropertiesByIds(@RequestBody List<Long> ids);
 }
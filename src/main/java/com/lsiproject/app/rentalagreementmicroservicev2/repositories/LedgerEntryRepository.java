@@ -0,0 +1,56 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.repositories;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.entities.LedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+
+    // Écritures d'un contrat postérieures à un instantané : dernier numéro (null si aucune) et somme
+    interface LedgerTail {
+        Long getLastSeq();
+        Double getAmount();
+    }
+
+    @Query("""
+        SELECT MAX(e.seq) AS lastSeq, COALESCE(SUM(e.amount), 0) AS amount
+        FROM LedgerEntry e
+        WHERE e.contractId = :contractId AND e.seq > :afterSeq
+    """)
+    LedgerTail sumAfter(@Param("contractId") Long contractId, @Param("afterSeq") Long afterSeq);
+
+    // Idem, limité aux écritures enregistrées au plus tard à la date donnée (solde à date)
+    @Query("""
+        SELECT MAX(e.seq) AS lastSeq, COALESCE(SUM(e.amount), 0) AS amount
+        FROM LedgerEntry e
+        WHERE e.contractId = :contractId AND e.seq > :afterSeq AND e.recordedAt <= :asOf
+    """)
+    LedgerTail sumAfterRecordedBy(@Param("contractId") Long contractId,
+                                  @Param("afterSeq") Long afterSeq,
+                                  @Param("asOf") LocalDateTime asOf);
+
+    // Écritures postérieures au dernier instantané, par contrat, pour un lot de contrats (rapprochement).
+    // Les contrats sans écriture après leur dernier instantané sont absents.
+    interface ContractTail {
+        Long getContractId();
+        Long getLastSeq();
+        Double getAmount();
+    }
+
+    @Query("""
+        SELECT e.contractId AS contractId, MAX(e.seq) AS lastSeq, COALESCE(SUM(e.amount), 0) AS amount
+        FROM LedgerEntry e
+        WHERE e.contractId IN :contractIds
+          AND NOT EXISTS (SELECT s.idSnapshot FROM LedgerSnapshot s
+                          WHERE s.contractId = e.contractId AND s.entrySeq >= e.seq)
+        GROUP BY e.contractId
+    """)
+    List<ContractTail> sumAfterLatestSnapshot(@Param("contractIds") Collection<Long> contractIds);
+}
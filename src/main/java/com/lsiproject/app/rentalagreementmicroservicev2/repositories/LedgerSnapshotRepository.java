@@ -0,0 +1,31 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.repositories;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.entities.LedgerSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface LedgerSnapshotRepository extends JpaRepository<LedgerSnapshot, Long> {
+
+    // Dernier instantané d'un contrat (lu dans l'index unique (contract_id, entry_seq))
+    Optional<LedgerSnapshot> findTopByContractIdOrderByEntrySeqDesc(Long contractId);
+
+    // Dernier instantané posé au plus tard à la date donnée (solde à date)
+    Optional<LedgerSnapshot> findTopByContractIdAndRecordedAtLessThanEqualOrderByEntrySeqDesc(Long contractId,
+                                                                                              LocalDateTime asOf);
+
+    // Dernier instantané de chaque contrat d'un lot (rapprochement)
+    @Query("""
+        SELECT s FROM LedgerSnapshot s
+        WHERE s.contractId IN :contractIds
+          AND s.entrySeq = (SELECT MAX(s2.entrySeq) FROM LedgerSnapshot s2 WHERE s2.contractId = s.contractId)
+    """)
+    List<LedgerSnapshot> findLatestByContractIds(@Param("contractIds") Collection<Long> contractIds);
+}
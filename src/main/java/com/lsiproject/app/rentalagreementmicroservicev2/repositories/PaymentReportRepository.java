@@ -1,15 +1,119 @@
 package com.lsiproject.app.rentalagreementmicroservicev2.repositories;
 
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.ReportFeatureRow;
 import com.lsiproject.app.rentalagreementmicroservicev2.entities.PaymentReport;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface PaymentReportRepository extends JpaRepository<PaymentReport, Long> {
     PaymentReport findByRentalContract_IdContract(Long contractId);
     PaymentReport findByTenentID(Long tenentID);
 
+    // Rapport persisté d'un contrat avec son contrat, en une requête (lecture du statut de paiement)
+    @Query("SELECT r FROM PaymentReport r JOIN FETCH r.rentalContract WHERE r.rentalContract.idContract = :contractId")
+    Optional<PaymentReport> findWithContractByContractId(@Param("contractId") Long contractId);
+
+    // Rapport verrouillé pour appliquer un paiement (deux paiements simultanés ne perdent pas de delta).
+    // Toujours après le verrou du contrat : contrat, puis rapport
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM PaymentReport r WHERE r.rentalContract.idContract = :contractId")
+    Optional<PaymentReport> findByContractIdForUpdate(@Param("contractId") Long contractId);
+
+    // Rapports d'un lot de contrats verrouillés (après les contrats), relus à jour
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM PaymentReport r WHERE r.rentalContract.idContract IN :contractIds ORDER BY r.idReport")
+    List<PaymentReport> findByContractIdsForUpdate(@Param("contractIds") Collection<Long> contractIds);
+
+    // Rapport et contrat d'une ligne choisie par un job, sans charger les entités avant de les verrouiller
+    interface ReportContractIds {
+        Long getIdReport();
+        Long getContractId();
+    }
+
+    // Rapports dont une nouvelle période a commencé (bascule de jour), par ID croissant
+    @Query("""
+        SELECT r.idReport AS idReport, r.rentalContract.idContract AS contractId FROM PaymentReport r
+        WHERE r.nextDueDate <= :today AND r.idReport > :afterId
+        ORDER BY r.idReport
+    """)
+    List<ReportContractIds> findDueForRollover(@Param("today") LocalDate today,
+                                               @Param("afterId") Long afterId,
+                                               Pageable pageable);
+
+    // Rapports encore à l'ancien format de dates impayées, par ID croissant
+    @Query("""
+        SELECT r.idReport AS idReport, r.rentalContract.idContract AS contractId FROM PaymentReport r
+        WHERE r.legacyMissedDates IS NOT NULL AND r.idReport > :afterId
+        ORDER BY r.idReport
+    """)
+    List<ReportContractIds> findWithLegacyMissedDates(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Export d'entraînement : rapports + contrat + litiges du locataire, modifiés après {@code since} (tous si null).
+     * Curseur en avant seulement : fetch size Integer.MIN_VALUE = le driver MySQL transmet les lignes une à une
+     * au lieu de charger tout le résultat. À consommer dans une transaction, puis fermer le Stream.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("""
+        SELECT new com.lsiproject.app.rentalagreementmicroservicev2.dtos.ReportFeatureRow(
+            r.idReport, c.idContract, r.tenentID, c.state, c.typeOfRental, c.rentAmount,
+            r.totalPaidSoFar, r.totalExpectedSoFar, r.paidPeriods, r.missedPeriods, r.status, r.updatedAt,
+            d.totalDisputes, d.daysSinceLastDispute, d.lastDisputeDate)
+        FROM PaymentReport r
+        JOIN r.rentalContract c
+        LEFT JOIN DisputeSummary d ON d.tenantId = r.tenentID
+        WHERE :since IS NULL OR r.updatedAt > :since OR d.lastDisputeDate > :since
+        ORDER BY r.idReport
+    """)
+    Stream<ReportFeatureRow> streamFeatureRows(@Param("since") LocalDateTime since);
+
+    // Agrégats des rapports des contrats d'un propriétaire (vue portefeuille)
+    interface OwnerReportAggregate {
+        Double getTotalExpected();
+        Long getLateContracts();
+        Long getMissedPeriods();
+    }
+
+    @Query("""
+        SELECT COALESCE(SUM(r.totalExpectedSoFar), 0) AS totalExpected,
+               COALESCE(SUM(CASE WHEN r.missedPeriods > 0 THEN 1 ELSE 0 END), 0) AS lateContracts,
+               COALESCE(SUM(r.missedPeriods), 0) AS missedPeriods
+        FROM PaymentReport r JOIN r.rentalContract c
+        WHERE c.ownerId = :ownerId
+    """)
+    OwnerReportAggregate aggregateForOwner(@Param("ownerId") Long ownerId);
+
+    // Périodes payées / impayées par locataire, tous contrats confondus (variables de risque)
+    interface TenantPeriodsAggregate {
+        Long getTenantId();
+        Long getPaidPeriods();
+        Long getMissedPeriods();
+    }
+
+    @Query("""
+        SELECT c.tenantId AS tenantId,
+               COALESCE(SUM(r.paidPeriods), 0) AS paidPeriods,
+               COALESCE(SUM(r.missedPeriods), 0) AS missedPeriods
+        FROM PaymentReport r JOIN r.rentalContract c
+        WHERE c.tenantId IN :tenantIds
+        GROUP BY c.tenantId
+    """)
+    List<TenantPeriodsAggregate> aggregatePeriodsByTenantIds(@Param("tenantIds") Collection<Long> tenantIds);
 
 }
\ No newline at end of file
@@ -1,15 +1,25 @@
 package com.lsiproject.app.rentalagreementmicroservicev2.repositories;
 
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.PaymentDto;
 import com.lsiproject.app.rentalagreementmicroservicev2.entities.Payment;
 import com.lsiproject.app.rentalagreementmicroservicev2.entities.RentalContract;
 import feign.Contract;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
@@ -20,6 +30,40 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     // Vérifier l'existence d'un paiement via son Transaction Hash (pour éviter la duplication des événements)
     boolean existsByTxHash(String txHash);
 
+    // Hashes déjà enregistrés parmi ceux d'un lot (ingestion groupée, une seule requête)
+    @Query("SELECT p.txHash FROM Payment p WHERE p.txHash IN :txHashes")
+    List<String> findExistingTxHashes(@Param("txHashes") Collection<String> txHashes);
+
+    // Tous les txHash, en curseur en avant seulement (chargement de TxHashIndex) : à consommer dans une transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT p.txHash FROM Payment p")
+    Stream<String> streamAllTxHashes();
+
+    // Historique paginé par clé (timestamp, idPayment), du plus récent au plus ancien, projeté en DTO :
+    // ni le contrat ni l'entité Payment ne sont chargés, et le coût d'une page ne dépend pas de la longueur
+    // de l'historique (idx_payments_contract_time_id)
+    @Query("""
+        SELECT new com.lsiproject.app.rentalagreementmicroservicev2.dtos.PaymentDto(
+            p.idPayment, p.rentalContract.idContract, p.amount, p.txHash, p.status, p.timestamp, p.tenantId)
+        FROM Payment p
+        WHERE p.rentalContract.idContract = :contractId
+        ORDER BY p.timestamp DESC, p.idPayment DESC
+    """)
+    List<PaymentDto> findHistoryFirstPage(@Param("contractId") Long contractId, Pageable pageable);
+
+    @Query("""
+        SELECT new com.lsiproject.app.rentalagreementmicroservicev2.dtos.PaymentDto(
+            p.idPayment, p.rentalContract.idContract, p.amount, p.txHash, p.status, p.timestamp, p.tenantId)
+        FROM Payment p
+        WHERE p.rentalContract.idContract = :contractId
+          AND (p.timestamp < :timestamp OR (p.timestamp = :timestamp AND p.idPayment < :idPayment))
+        ORDER BY p.timestamp DESC, p.idPayment DESC
+    """)
+    List<PaymentDto> findHistoryPageBefore(@Param("contractId") Long contractId,
+                                           @Param("timestamp") LocalDateTime timestamp,
+                                           @Param("idPayment") Long idPayment,
+                                           Pageable pageable);
+
     // Trouver le dernier paiement effectué pour un contrat
     Optional<Payment> findTopByRentalContractOrderByTimestampDesc(RentalContract rentalContract);
 
@@ -30,7 +74,70 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
         SELECT COALESCE(SUM(p.amount), 0)
         FROM Payment p
         WHERE p.rentalContract.idContract = :contractId
+          AND p.status = com.lsiproject.app.rentalagreementmicroservicev2.enums.PaymentStatus.CONFIRMED
     """)
     Double sumAmountByContractId(@Param("contractId") Long contractId);
 
+    // Total payé (paiements CONFIRMED) par contrat, pour un lot de contrats (les contrats sans paiement sont absents)
+    interface ContractPaidTotal {
+        Long getContractId();
+        Double getTotalPaid();
+    }
+
+    @Query("""
+        SELECT p.rentalContract.idContract AS contractId, COALESCE(SUM(p.amount), 0) AS totalPaid
+        FROM Payment p
+        WHERE p.rentalContract.idContract IN :contractIds
+          AND p.status = com.lsiproject.app.rentalagreementmicroservicev2.enums.PaymentStatus.CONFIRMED
+        GROUP BY p.rentalContract.idContract
+    """)
+    List<ContractPaidTotal> sumAmountByContractIds(@Param("contractIds") Collection<Long> contractIds);
+
+    // Paiements CONFIRMED par contrat et par jour, pour un lot de contrats (reconstruction des cumuls de revenus)
+    interface ContractDailyRevenue {
+        Long getContractId();
+        LocalDate getPaidOn();
+        Double getAmount();
+        Long getPayments();
+    }
+
+    @Query("""
+        SELECT p.rentalContract.idContract AS contractId, extract(date from p.timestamp) AS paidOn,
+               SUM(p.amount) AS amount, COUNT(p) AS payments
+        FROM Payment p
+        WHERE p.rentalContract.idContract IN :contractIds
+          AND p.status = com.lsiproject.app.rentalagreementmicroservicev2.enums.PaymentStatus.CONFIRMED
+        GROUP BY p.rentalContract.idContract, extract(date from p.timestamp)
+    """)
+    List<ContractDailyRevenue> sumConfirmedByContractAndDay(@Param("contractIds") Collection<Long> contractIds);
+
+    // Total des paiements comptés dans le montant payé (tous sauf FAILED), par contrat (rapprochement du grand livre)
+    @Query("""
+        SELECT p.rentalContract.idContract AS contractId, COALESCE(SUM(p.amount), 0) AS totalPaid
+        FROM Payment p
+        WHERE p.rentalContract.idContract IN :contractIds
+          AND p.status <> com.lsiproject.app.rentalagreementmicroservicev2.enums.PaymentStatus.FAILED
+        GROUP BY p.rentalContract.idContract
+    """)
+    List<ContractPaidTotal> sumRecordedAmountByContractIds(@Param("contractIds") Collection<Long> contractIds);
+
+    // Passe un paiement à FAILED (annulation) ; 0 s'il l'était déjà, ce qui départage deux annulations concurrentes
+    @Modifying
+    @Query("""
+        UPDATE Payment p
+        SET p.status = com.lsiproject.app.rentalagreementmicroservicev2.enums.PaymentStatus.FAILED
+        WHERE p.idPayment = :paymentId
+          AND p.status <> com.lsiproject.app.rentalagreementmicroservicev2.enums.PaymentStatus.FAILED
+    """)
+    int markFailed(@Param("paymentId") Long paymentId);
+
+    // Total des paiements confirmés sur tous les contrats d'un propriétaire (vue portefeuille)
+    @Query("""
+        SELECT COALESCE(SUM(p.amount), 0)
+        FROM Payment p JOIN p.rentalContract c
+        WHERE c.ownerId = :ownerId
+          AND p.status = com.lsiproject.app.rentalagreementmicroservicev2.enums.PaymentStatus.CONFIRMED
+    """)
+    Double sumConfirmedAmountByOwnerId(@Param("ownerId") Long ownerId);
+
 }
\ No newline at end of file
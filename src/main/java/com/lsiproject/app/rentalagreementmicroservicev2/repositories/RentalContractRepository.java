@@ -3,9 +3,16 @@ package com.lsiproject.app.rentalagreementmicroservicev2.repositories;
 
 import com.lsiproject.app.rentalagreementmicroservicev2.entities.RentalContract;
 import com.lsiproject.app.rentalagreementmicroservicev2.enums.RentalContractState;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,6 +22,39 @@ public interface RentalContractRepository extends JpaRepository<RentalContract,
     // Trouver un contrat par son ID unique sur la blockchain
     Optional<RentalContract> findByAgreementIdOnChain(Long agreementIdOnChain);
 
+    // Enregistre un paiement sur le montant payé, en une seule instruction : l'incrément est fait par la base
+    // (pas de lecture-modification-écriture, pas de mise à jour perdue) et la règle "contrat ACTIVE, pas encore
+    // entièrement payé" est vérifiée dans le même UPDATE. 0 = paiement refusé.
+    @Modifying
+    @Query("""
+        UPDATE RentalContract c
+        SET c.PayedAmount = c.PayedAmount + :amount
+        WHERE c.idContract = :contractId
+          AND c.state = com.lsiproject.app.rentalagreementmicroservicev2.enums.RentalContractState.ACTIVE
+          AND c.PayedAmount < c.TotalAmountToPay
+    """)
+    int addPaymentIfPayable(@Param("contractId") Long contractId, @Param("amount") Double amount);
+
+    // Retire un paiement annulé (passé à FAILED) du montant payé, quel que soit l'état du contrat
+    @Modifying
+    @Query("UPDATE RentalContract c SET c.PayedAmount = c.PayedAmount - :amount WHERE c.idContract = :contractId")
+    int subtractPayment(@Param("contractId") Long contractId, @Param("amount") Double amount);
+
+    // Montant payé lu en base (et non dans le contexte de persistance), après les UPDATE de la transaction
+    @Query("SELECT c.PayedAmount FROM RentalContract c WHERE c.idContract = :contractId")
+    Double findPayedAmountById(@Param("contractId") Long contractId);
+
+    // Contrat verrouillé : premier verrou pris par tout chemin qui écrit son rapport (contrat, puis rapport)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM RentalContract c WHERE c.idContract = :contractId")
+    Optional<RentalContract> findByIdForUpdate(@Param("contractId") Long contractId);
+
+    // Contrats d'un lot verrouillés (ingestion groupée : les montants sont appliqués en mémoire puis écrits au flush),
+    // dans l'ordre des ID pour que deux lots concurrents ne s'interbloquent pas
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM RentalContract c WHERE c.idContract IN :contractIds ORDER BY c.idContract")
+    List<RentalContract> findAllByIdForUpdate(@Param("contractIds") Collection<Long> contractIds);
+
     // Trouver tous les contrats pour un propriétaire
     List<RentalContract> findByOwnerId(Long ownerId);
 
@@ -26,4 +66,74 @@ public interface RentalContractRepository extends JpaRepository<RentalContract,
 
     // Trouver les contrats nécessitant une action (par exemple, ACTIVE et endDate dépassée)
     List<RentalContract> findByStateAndEndDateBefore(RentalContractState state, java.time.LocalDate endDate);
+
+    // Contrats sans type de location (antérieurs à sa capture), parcourus par ID croissant pour le backfill
+    List<RentalContract> findByTypeOfRentalIsNullAndIdContractGreaterThanOrderByIdContractAsc(Long idContract, Pageable pageable);
+
+    // Tous les contrats, parcourus par ID croissant (rapprochement du grand livre)
+    List<RentalContract> findByIdContractGreaterThanOrderByIdContractAsc(Long idContract, Pageable pageable);
+
+    // Variante paginée par clé de findByStateIn, restreinte à une partition (idContract mod partitions = partition)
+    @Query("""
+        SELECT c FROM RentalContract c
+        WHERE c.state IN :states
+          AND c.idContract > :afterId
+          AND MOD(c.idContract, :partitions) = :partition
+        ORDER BY c.idContract
+    """)
+    List<RentalContract> findByStateInAfterIdInPartition(@Param("states") List<RentalContractState> states,
+                                                         @Param("afterId") Long afterId,
+                                                         @Param("partitions") int partitions,
+                                                         @Param("partition") int partition,
+                                                         Pageable pageable);
+
+    // ID des contrats d'une partition (idContract mod partitions = partition), par ID croissant
+    @Query("""
+        SELECT c.idContract FROM RentalContract c
+        WHERE c.idContract > :afterId
+          AND MOD(c.idContract, :partitions) = :partition
+        ORDER BY c.idContract
+    """)
+    List<Long> findIdsInPartitionAfter(@Param("afterId") Long afterId,
+                                       @Param("partitions") int partitions,
+                                       @Param("partition") int partition,
+                                       Pageable pageable);
+
+    // Nombre de contrats et montant total par état, pour un propriétaire (vue portefeuille)
+    interface StateAggregate {
+        RentalContractState getState();
+        Long getContracts();
+        Double getTotalAmount();
+    }
+
+    @Query("""
+        SELECT c.state AS state, COUNT(c) AS contracts, COALESCE(SUM(c.TotalAmountToPay), 0) AS totalAmount
+        FROM RentalContract c
+        WHERE c.ownerId = :ownerId
+        GROUP BY c.state
+    """)
+    List<StateAggregate> aggregateByStateForOwner(@Param("ownerId") Long ownerId);
+
+    // Nombre de contrats dans un état donné par locataire (les locataires sans contrat dans cet état sont absents)
+    interface TenantContractCount {
+        Long getTenantId();
+        Long getContracts();
+    }
+
+    @Query("""
+        SELECT c.tenantId AS tenantId, COUNT(c) AS contracts
+        FROM RentalContract c
+        WHERE c.tenantId IN :tenantIds AND c.state = :state
+        GROUP BY c.tenantId
+    """)
+    List<TenantContractCount> countByTenantIdsAndState(@Param("tenantIds") Collection<Long> tenantIds,
+                                                       @Param("state") RentalContractState state);
+
+    // Locataires ayant au moins un contrat, par ID croissant (reconstruction des variables de risque)
+    @Query("""
+        SELECT DISTINCT c.tenantId FROM RentalContract c
+        WHERE c.tenantId > :afterTenantId
+        ORDER BY c.tenantId
+    """)
+    List<Long> findTenantIdsAfter(@Param("afterTenantId") Long afterTenantId, Pageable pageable);
 }
\ No newline at end of file
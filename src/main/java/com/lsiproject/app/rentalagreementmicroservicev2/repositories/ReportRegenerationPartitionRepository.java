@@ -0,0 +1,79 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.repositories;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.entities.ReportRegenerationPartition;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Toutes les écritures sont des UPDATE conditionnels : le nombre de lignes modifiées (0 ou 1)
+ * indique si l'instance possède (encore) la partition.
+ */
+@Repository
+public interface ReportRegenerationPartitionRepository extends JpaRepository<ReportRegenerationPartition, Integer> {
+
+    // Prend la partition si elle est libre, déjà à nous, ou si le bail de l'autre instance a expiré,
+    // et seulement si un passage est en cours (reprise) ou dû
+    @Transactional
+    @Modifying
+    @Query("""
+        UPDATE ReportRegenerationPartition p
+        SET p.owner = :owner, p.leaseUntil = :leaseUntil
+        WHERE p.partitionId = :partitionId
+          AND (p.owner IS NULL OR p.owner = :owner OR p.leaseUntil < :now)
+          AND (p.completedAt IS NULL OR p.completedAt < :dueBefore)
+    """)
+    int claim(@Param("partitionId") Integer partitionId,
+              @Param("owner") String owner,
+              @Param("now") LocalDateTime now,
+              @Param("leaseUntil") LocalDateTime leaseUntil,
+              @Param("dueBefore") LocalDateTime dueBefore);
+
+    // Démarre un nouveau passage sur une partition dont le précédent est terminé
+    @Transactional
+    @Modifying
+    @Query("""
+        UPDATE ReportRegenerationPartition p
+        SET p.lastContractId = 0, p.completedAt = NULL
+        WHERE p.partitionId = :partitionId AND p.owner = :owner AND p.completedAt IS NOT NULL
+    """)
+    int restart(@Param("partitionId") Integer partitionId, @Param("owner") String owner);
+
+    // Point de reprise + prolongation du bail ; appelé dans la transaction du lot
+    @Modifying
+    @Query("""
+        UPDATE ReportRegenerationPartition p
+        SET p.lastContractId = :lastContractId, p.leaseUntil = :leaseUntil
+        WHERE p.partitionId = :partitionId AND p.owner = :owner
+    """)
+    int checkpoint(@Param("partitionId") Integer partitionId,
+                   @Param("owner") String owner,
+                   @Param("lastContractId") Long lastContractId,
+                   @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Transactional
+    @Modifying
+    @Query("""
+        UPDATE ReportRegenerationPartition p
+        SET p.completedAt = :completedAt, p.owner = NULL, p.leaseUntil = NULL
+        WHERE p.partitionId = :partitionId AND p.owner = :owner
+    """)
+    int complete(@Param("partitionId") Integer partitionId,
+                 @Param("owner") String owner,
+                 @Param("completedAt") LocalDateTime completedAt);
+
+    // Libère la partition après un échec (le point de reprise est conservé)
+    @Transactional
+    @Modifying
+    @Query("""
+        UPDATE ReportRegenerationPartition p
+        SET p.owner = NULL, p.leaseUntil = NULL
+        WHERE p.partitionId = :partitionId AND p.owner = :owner
+    """)
+    int release(@Param("partitionId") Integer partitionId, @Param("owner") String owner);
+}
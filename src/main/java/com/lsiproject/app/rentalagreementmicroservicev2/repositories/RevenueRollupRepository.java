@@ -0,0 +1,92 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.repositories;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.RevenuePointDto;
+import com.lsiproject.app.rentalagreementmicroservicev2.entities.RevenueRollup;
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.RevenueGranularity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface RevenueRollupRepository extends JpaRepository<RevenueRollup, Long> {
+
+    // Ajoute un montant à la ligne d'une période ; 0 si la ligne n'existe pas encore
+    @Modifying
+    @Query("""
+        UPDATE RevenueRollup r
+        SET r.amount = r.amount + :amount, r.payments = r.payments + :payments
+        WHERE r.contractId = :contractId AND r.granularity = :granularity AND r.periodStart = :periodStart
+    """)
+    int increment(@Param("contractId") Long contractId,
+                  @Param("granularity") RevenueGranularity granularity,
+                  @Param("periodStart") LocalDate periodStart,
+                  @Param("amount") Double amount,
+                  @Param("payments") Long payments);
+
+    // Reconstruction : lignes d'un lot de contrats, remplacées dans la même transaction
+    @Modifying
+    @Query("DELETE FROM RevenueRollup r WHERE r.contractId IN :contractIds")
+    int deleteByContractIds(@Param("contractIds") Collection<Long> contractIds);
+
+    // Séries par période, lues dans l'index (filtre, granularity, period_start) : le coût dépend du nombre
+    // de contrats et de périodes de la plage, pas du nombre de paiements
+    @Query("""
+        SELECT new com.lsiproject.app.rentalagreementmicroservicev2.dtos.RevenuePointDto(
+            r.periodStart, SUM(r.amount), SUM(r.payments))
+        FROM RevenueRollup r
+        WHERE r.ownerId = :ownerId AND r.granularity = :granularity AND r.periodStart BETWEEN :from AND :to
+        GROUP BY r.periodStart
+        ORDER BY r.periodStart
+    """)
+    List<RevenuePointDto> sumByOwner(@Param("ownerId") Long ownerId,
+                                     @Param("granularity") RevenueGranularity granularity,
+                                     @Param("from") LocalDate from,
+                                     @Param("to") LocalDate to);
+
+    // ownerId facultatif : restreint la série d'une propriété aux contrats d'un propriétaire
+    @Query("""
+        SELECT new com.lsiproject.app.rentalagreementmicroservicev2.dtos.RevenuePointDto(
+            r.periodStart, SUM(r.amount), SUM(r.payments))
+        FROM RevenueRollup r
+        WHERE r.propertyId = :propertyId AND r.granularity = :granularity AND r.periodStart BETWEEN :from AND :to
+          AND (:ownerId IS NULL OR r.ownerId = :ownerId)
+        GROUP BY r.periodStart
+        ORDER BY r.periodStart
+    """)
+    List<RevenuePointDto> sumByProperty(@Param("propertyId") Long propertyId,
+                                        @Param("ownerId") Long ownerId,
+                                        @Param("granularity") RevenueGranularity granularity,
+                                        @Param("from") LocalDate from,
+                                        @Param("to") LocalDate to);
+
+    @Query("""
+        SELECT new com.lsiproject.app.rentalagreementmicroservicev2.dtos.RevenuePointDto(
+            r.periodStart, SUM(r.amount), SUM(r.payments))
+        FROM RevenueRollup r
+        WHERE r.contractId = :contractId AND r.granularity = :granularity AND r.periodStart BETWEEN :from AND :to
+        GROUP BY r.periodStart
+        ORDER BY r.periodStart
+    """)
+    List<RevenuePointDto> sumByContract(@Param("contractId") Long contractId,
+                                        @Param("granularity") RevenueGranularity granularity,
+                                        @Param("from") LocalDate from,
+                                        @Param("to") LocalDate to);
+
+    @Query("""
+        SELECT new com.lsiproject.app.rentalagreementmicroservicev2.dtos.RevenuePointDto(
+            r.periodStart, SUM(r.amount), SUM(r.payments))
+        FROM RevenueRollup r
+        WHERE r.granularity = :granularity AND r.periodStart BETWEEN :from AND :to
+        GROUP BY r.periodStart
+        ORDER BY r.periodStart
+    """)
+    List<RevenuePointDto> sumAll(@Param("granularity") RevenueGranularity granularity,
+                                 @Param("from") LocalDate from,
+                                 @Param("to") LocalDate to);
+}
@@ -0,0 +1,9 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.repositories;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.entities.TenantRiskFeatures;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TenantRiskFeaturesRepository extends JpaRepository<TenantRiskFeatures, Long> {
+}
@@ -0,0 +1,52 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.resilience.batch;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.PropertyResponseDTO;
+import com.lsiproject.app.rentalagreementmicroservicev2.resilience.circuitbreaker.PropertyCircuitBreaker;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Regroupement des lectures de propriétés (style DataLoader).
+ *
+ * Tous les IDs d'une même requête (ex: une page de contrats) sont résolus ensemble, en un appel groupé
+ * par tranche de max-size IDs : la taille d'un appel reste bornée quelle que soit la liste.
+ */
+@Component
+public class PropertyBatchLoader {
+
+    private final PropertyCircuitBreaker propertyCircuitBreaker;
+    private final int maxBatchSize;
+
+    public PropertyBatchLoader(
+            PropertyCircuitBreaker propertyCircuitBreaker,
+            @Value("${property.batch.max-size:100}") int maxBatchSize) {
+        this.propertyCircuitBreaker = propertyCircuitBreaker;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Résout tous les IDs, en un appel par tranche de maxBatchSize IDs distincts
+     * (les IDs inconnus sont absents de la map).
+     */
+    public Map<Long, PropertyResponseDTO> loadAll(Collection<Long> propertyIds) {
+        List<Long> distinctIds = propertyIds.stream().distinct().toList();
+        if (distinctIds.isEmpty()) {
+            return Map.of();
+        }
+        if (distinctIds.size() <= maxBatchSize) {
+            return propertyCircuitBreaker.getPropertiesByIds(distinctIds);
+        }
+
+        Map<Long, PropertyResponseDTO> properties = new HashMap<>();
+        for (int from = 0; from < distinctIds.size(); from += maxBatchSize) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + maxBatchSize, distinctIds.size()));
+            properties.putAll(propertyCircuitBreaker.getPropertiesByIds(chunk));
+        }
+        return properties;
+    }
+}
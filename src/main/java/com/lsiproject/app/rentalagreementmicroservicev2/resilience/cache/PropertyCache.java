@@ -0,0 +1,105 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.resilience.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.PropertyResponseDTO;
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.TypeOfRental;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Near-cache local devant PropertyMicroService.
+ * Évite un aller-retour Feign quand la même propriété vient d'être lue.
+ *
+ * - Taille bornée, éviction W-TinyLFU (politique par défaut de Caffeine)
+ * - Expiration après écriture (TTL), plus courte pour la disponibilité qui change souvent
+ * - Statistiques hit/miss/eviction exportées vers Micrometer (endpoint Prometheus)
+ */
+@Component
+public class PropertyCache {
+
+    private final Cache<Long, PropertyResponseDTO> properties;
+    private final Cache<Long, TypeOfRental> typesOfRental;
+    private final Cache<Long, Boolean> availabilities;
+
+    public PropertyCache(
+            MeterRegistry meterRegistry,
+            @Value("${property.cache.max-size:10000}") long maxSize,
+            @Value("${property.cache.ttl:30s}") Duration ttl,
+            @Value("${property.cache.availability-ttl:5s}") Duration availabilityTtl) {
+
+        this.properties = CaffeineCacheMetrics.monitor(meterRegistry, build(maxSize, ttl), "propertyCache.properties");
+        this.typesOfRental = CaffeineCacheMetrics.monitor(meterRegistry, build(maxSize, ttl), "propertyCache.typesOfRental");
+        this.availabilities = CaffeineCacheMetrics.monitor(meterRegistry, build(maxSize, availabilityTtl), "propertyCache.availabilities");
+    }
+
+    private static <V> Cache<Long, V> build(long maxSize, Duration ttl) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Retourne la propriété en cache, ou null si absente / expirée.
+     */
+    public PropertyResponseDTO getProperty(Long propertyId) {
+        return properties.getIfPresent(propertyId);
+    }
+
+    /**
+     * Met en cache la propriété (et son type de location) et la retourne.
+     */
+    public PropertyResponseDTO putProperty(Long propertyId, PropertyResponseDTO property) {
+        if (property != null) {
+            properties.put(propertyId, property);
+            if (property.typeOfRental() != null) {
+                typesOfRental.put(propertyId, property.typeOfRental());
+            }
+        }
+        return property;
+    }
+
+    /**
+     * Le type de location est aussi déductible d'une propriété déjà en cache.
+     */
+    public TypeOfRental getTypeOfRental(Long propertyId) {
+        TypeOfRental type = typesOfRental.getIfPresent(propertyId);
+        if (type == null) {
+            PropertyResponseDTO property = properties.getIfPresent(propertyId);
+            type = property != null ? property.typeOfRental() : null;
+        }
+        return type;
+    }
+
+    public TypeOfRental putTypeOfRental(Long propertyId, TypeOfRental type) {
+        if (type != null) {
+            typesOfRental.put(propertyId, type);
+        }
+        return type;
+    }
+
+    public Boolean getAvailability(Long propertyId) {
+        return availabilities.getIfPresent(propertyId);
+    }
+
+    public boolean putAvailability(Long propertyId, boolean available) {
+        availabilities.put(propertyId, available);
+        return available;
+    }
+
+    /**
+     * Invalide toutes les entrées d'une propriété.
+     * Appelé quand ce service modifie lui-même la disponibilité de la propriété.
+     */
+    public void invalidate(Long propertyId) {
+        properties.invalidate(propertyId);
+        typesOfRental.invalidate(propertyId);
+        availabilities.invalidate(propertyId);
+    }
+}
@@ -3,17 +3,37 @@ package com.lsiproject.app.rentalagreementmicroservicev2.resilience.circuitbreak
 import com.lsiproject.app.rentalagreementmicroservicev2.dtos.PropertyResponseDTO;
 import com.lsiproject.app.rentalagreementmicroservicev2.enums.TypeOfRental;
 import com.lsiproject.app.rentalagreementmicroservicev2.openFeignClients.PropertyMicroService;
+import com.lsiproject.app.rentalagreementmicroservicev2.resilience.cache.PropertyCache;
 import com.lsiproject.app.rentalagreementmicroservicev2.resilience.fallback.PropertyFallbackHandler;
+import com.lsiproject.app.rentalagreementmicroservicev2.resilience.fallback.PropertySnapshotStore;
+import com.lsiproject.app.rentalagreementmicroservicev2.resilience.singleflight.SingleFlightGroup;
+import feign.FeignException;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Supplier;
 
 /**
  * Circuit Breaker spécifique pour les appels vers PropertyMicroService.
  * Cette classe encapsule tous les appels Feign et applique la logique de résilience.
+ *
+ * Chaque famille d'opérations (lectures, écritures de disponibilité, type de location)
+ * passe par son propre circuit breaker, bulkhead et time limiter (voir PropertyResilience).
  */
 @Component
 public class PropertyCircuitBreaker {
@@ -21,30 +41,62 @@ public class PropertyCircuitBreaker {
     private static final Logger log = LoggerFactory.getLogger(PropertyCircuitBreaker.class);
 
     private final PropertyMicroService propertyMicroService;
-    private final CircuitBreaker circuitBreaker;
+    private final PropertyResilience resilience;
     private final PropertyFallbackHandler fallbackHandler;
+    private final PropertyCache propertyCache;
+    private final PropertySnapshotStore snapshotStore;
+    private final SingleFlightGroup<Long, PropertyResponseDTO> propertyLookups;
+
+    // Revalidation en arrière-plan des snapshots stale quand le circuit repasse en HALF_OPEN
+    private final ExecutorService revalidationExecutor;
+    private final Duration revalidateAfter;
+    private final int revalidationBatchSize;
 
     public PropertyCircuitBreaker(
             PropertyMicroService propertyMicroService,
-            CircuitBreaker propertyServiceCircuitBreaker,
-            PropertyFallbackHandler fallbackHandler) {
+            PropertyResilience resilience,
+            PropertyFallbackHandler fallbackHandler,
+            PropertyCache propertyCache,
+            PropertySnapshotStore snapshotStore,
+            MeterRegistry meterRegistry,
+            @Value("${property.fallback.revalidate-after:30s}") Duration revalidateAfter,
+            @Value("${property.fallback.revalidation-batch-size:100}") int revalidationBatchSize) {
         this.propertyMicroService = propertyMicroService;
-        this.circuitBreaker = propertyServiceCircuitBreaker;
+        this.resilience = resilience;
         this.fallbackHandler = fallbackHandler;
+        this.propertyCache = propertyCache;
+        this.snapshotStore = snapshotStore;
+        this.propertyLookups = new SingleFlightGroup<>("propertyService.getPropertyById", meterRegistry);
+        this.revalidateAfter = revalidateAfter;
+        this.revalidationBatchSize = revalidationBatchSize;
+        this.revalidationExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "property-snapshot-revalidation");
+            thread.setDaemon(true);
+            return thread;
+        });
 
-        // Log des événements du circuit breaker
-        registerCircuitBreakerEvents();
+        // Log des événements des circuit breakers (ré-attachés si une instance est recréée au refresh)
+        for (PropertyOperation operation : PropertyOperation.values()) {
+            resilience.onCircuitBreaker(operation, this::registerCircuitBreakerEvents);
+        }
     }
 
     /**
-     * Exécute un appel protégé par le circuit breaker avec fallback.
+     * Exécute un appel protégé par la résilience de l'opération, avec fallback.
      */
-    private <T> T executeWithFallback(Supplier<T> supplier, Supplier<T> fallback) {
-        Supplier<T> decoratedSupplier = CircuitBreaker
-                .decorateSupplier(circuitBreaker, supplier);
+    private <T> T executeWithFallback(PropertyOperation operation, Supplier<T> supplier, Supplier<T> fallback) {
+        return withFallback(resilience.decorate(operation, supplier), fallback);
+    }
 
+    /**
+     * Applique le fallback à un appel déjà protégé.
+     * Un 404 n'est pas une indisponibilité : il est propagé tel quel, sans fallback.
+     */
+    private <T> T withFallback(Supplier<T> decoratedSupplier, Supplier<T> fallback) {
         try {
             return decoratedSupplier.get();
+        } catch (FeignException.NotFound e) {
+            throw e;
         } catch (Exception e) {
             log.warn("Circuit breaker triggered fallback for PropertyMicroService: {}", e.getMessage());
             return fallback.get();
@@ -53,20 +105,85 @@ public class PropertyCircuitBreaker {
 
     /**
      * Récupère une propriété par son ID (lecture).
+     * Servie par le near-cache si présente ; seules les réponses réelles sont mises en cache, jamais les fallbacks.
+     *
+     * Les appels concurrents pour un même ID partagent un seul appel Feign (single-flight).
+     * Le circuit breaker n'enregistre donc qu'un appel par vol, et chaque appelant
+     * applique le fallback individuellement si cet appel partagé échoue.
      */
     public PropertyResponseDTO getPropertyById(Long propertyId) {
-        return executeWithFallback(
-                () -> propertyMicroService.getPropertyById(propertyId),
+        PropertyResponseDTO cached = propertyCache.getProperty(propertyId);
+        if (cached != null) {
+            return cached;
+        }
+        Supplier<PropertyResponseDTO> remoteCall = resilience.decorate(PropertyOperation.READ, forgetIfNotFound(propertyId,
+                () -> rememberProperty(propertyId, propertyMicroService.getPropertyById(propertyId))));
+
+        return withFallback(
+                () -> propertyLookups.execute(propertyId, remoteCall),
                 () -> fallbackHandler.getPropertyByIdFallback(propertyId)
         );
     }
 
+    /**
+     * Récupère plusieurs propriétés en un seul appel (lecture groupée).
+     * Les propriétés déjà dans le near-cache ne sont pas redemandées ; les IDs inconnus sont absents de la map.
+     */
+    public Map<Long, PropertyResponseDTO> getPropertiesByIds(Collection<Long> propertyIds) {
+        return loadPropertiesByIds(propertyIds, true);
+    }
+
+    /**
+     * Comme getPropertiesByIds, sans fallback (traitements de fond) : un échec de l'appel ou un circuit ouvert
+     * est levé au lieu d'être masqué par le dernier état connu.
+     */
+    public Map<Long, PropertyResponseDTO> fetchPropertiesByIds(Collection<Long> propertyIds) {
+        return loadPropertiesByIds(propertyIds, false);
+    }
+
+    private Map<Long, PropertyResponseDTO> loadPropertiesByIds(Collection<Long> propertyIds, boolean fallback) {
+        Map<Long, PropertyResponseDTO> properties = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+
+        for (Long propertyId : new LinkedHashSet<>(propertyIds)) {
+            PropertyResponseDTO cached = propertyCache.getProperty(propertyId);
+            if (cached != null) {
+                properties.put(propertyId, cached);
+            } else {
+                missing.add(propertyId);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            Supplier<Map<Long, PropertyResponseDTO>> remoteCall = resilience.decorate(PropertyOperation.READ,
+                    () -> {
+                        Map<Long, PropertyResponseDTO> fetched = new HashMap<>();
+                        for (PropertyResponseDTO property : propertyMicroService.getPropertiesByIds(missing)) {
+                            fetched.put(property.idProperty(), rememberProperty(property.idProperty(), property));
+                        }
+                        return fetched;
+                    });
+            properties.putAll(fallback
+                    ? withFallback(remoteCall, () -> fallbackHandler.getPropertiesByIdsFallback(missing))
+                    : remoteCall.get());
+        }
+        return properties;
+    }
+
     /**
      * Vérifie si une propriété est disponible (lecture).
      */
     public boolean isPropertyAvailable(Long propertyId) {
-        return executeWithFallback(
-                () -> propertyMicroService.isPropertyAvailable(propertyId),
+        Boolean cached = propertyCache.getAvailability(propertyId);
+        if (cached != null) {
+            return cached;
+        }
+        return executeWithFallback(PropertyOperation.READ,
+                forgetIfNotFound(propertyId, () -> {
+                    boolean available = propertyMicroService.isPropertyAvailable(propertyId);
+                    snapshotStore.recordAvailability(propertyId, available);
+                    return propertyCache.putAvailability(propertyId, available);
+                }),
                 () -> fallbackHandler.isPropertyAvailableFallback(propertyId)
         );
     }
@@ -75,8 +192,16 @@ public class PropertyCircuitBreaker {
      * Récupère le type de location d'une propriété (lecture).
      */
     public TypeOfRental getTypeOfRental(Long propertyId) {
-        return executeWithFallback(
-                () -> propertyMicroService.getTypeOfRental(propertyId),
+        TypeOfRental cached = propertyCache.getTypeOfRental(propertyId);
+        if (cached != null) {
+            return cached;
+        }
+        return executeWithFallback(PropertyOperation.TYPE_OF_RENTAL,
+                forgetIfNotFound(propertyId, () -> {
+                    TypeOfRental typeOfRental = propertyMicroService.getTypeOfRental(propertyId);
+                    snapshotStore.recordTypeOfRental(propertyId, typeOfRental);
+                    return propertyCache.putTypeOfRental(propertyId, typeOfRental);
+                }),
                 () -> fallbackHandler.getTypeOfRentalFallback(propertyId)
         );
     }
@@ -84,56 +209,132 @@ public class PropertyCircuitBreaker {
     /**
      * Met à jour la disponibilité d'une propriété à false (modification).
      * En cas d'échec, on lève une exception car cette opération est critique.
+     * Le near-cache est invalidé dans tous les cas : l'état distant n'est plus connu avec certitude.
      */
     public void updateAvailabilityToFalse(Long propertyId) {
-        executeWithFallback(
-                () -> {
-                    propertyMicroService.updateAvailabilityToFalse(propertyId);
-                    return null;
-                },
-                () -> fallbackHandler.updateAvailabilityFallback(propertyId, false)
-        );
+        try {
+            executeWithFallback(PropertyOperation.AVAILABILITY_WRITE,
+                    () -> {
+                        propertyMicroService.updateAvailabilityToFalse(propertyId);
+                        snapshotStore.recordAvailability(propertyId, false);
+                        return null;
+                    },
+                    () -> fallbackHandler.updateAvailabilityFallback(propertyId, false)
+            );
+        } finally {
+            propertyCache.invalidate(propertyId);
+        }
     }
 
     /**
      * Met à jour la disponibilité d'une propriété à true (modification).
      * En cas d'échec, on lève une exception car cette opération est critique.
+     * Le near-cache est invalidé dans tous les cas : l'état distant n'est plus connu avec certitude.
      */
     public void updateAvailabilityToTrue(Long propertyId) {
-        executeWithFallback(
-                () -> {
-                    propertyMicroService.updateAvailabilityToTrue(propertyId);
-                    return null;
-                },
-                () -> fallbackHandler.updateAvailabilityFallback(propertyId, true)
-        );
+        try {
+            executeWithFallback(PropertyOperation.AVAILABILITY_WRITE,
+                    () -> {
+                        propertyMicroService.updateAvailabilityToTrue(propertyId);
+                        snapshotStore.recordAvailability(propertyId, true);
+                        return null;
+                    },
+                    () -> fallbackHandler.updateAvailabilityFallback(propertyId, true)
+            );
+        } finally {
+            propertyCache.invalidate(propertyId);
+        }
+    }
+
+    /**
+     * Lecture distante d'une propriété : si le service ne la connaît pas (plus), son dernier état connu est oublié.
+     */
+    private <T> Supplier<T> forgetIfNotFound(Long propertyId, Supplier<T> call) {
+        return () -> {
+            try {
+                return call.get();
+            } catch (FeignException.NotFound e) {
+                snapshotStore.forget(propertyId);
+                throw e;
+            }
+        };
+    }
+
+    /**
+     * Mémorise une propriété lue avec succès : near-cache + dernier état connu pour les fallbacks.
+     */
+    private PropertyResponseDTO rememberProperty(Long propertyId, PropertyResponseDTO property) {
+        snapshotStore.recordProperty(propertyId, property);
+        return propertyCache.putProperty(propertyId, property);
+    }
+
+    /**
+     * Rafraîchit les snapshots stale via le circuit breaker des lectures.
+     * Lancé au passage en HALF_OPEN : les premiers appels servent aussi de sondes pour refermer le circuit.
+     * S'arrête au premier échec (le circuit s'est rouvert ou le service est encore indisponible).
+     */
+    private void revalidateStaleSnapshots() {
+        List<Long> staleIds = snapshotStore.findStale(revalidateAfter, revalidationBatchSize);
+        int refreshed = 0;
+
+        for (Long propertyId : staleIds) {
+            try {
+                resilience.decorate(PropertyOperation.READ,
+                        () -> rememberProperty(propertyId, propertyMicroService.getPropertyById(propertyId))).get();
+                refreshed++;
+            } catch (Exception e) {
+                log.debug("Stale snapshot revalidation stopped at property {}: {}", propertyId, e.getMessage());
+                break;
+            }
+        }
+
+        if (!staleIds.isEmpty()) {
+            log.info("Revalidated {}/{} stale property snapshots", refreshed, staleIds.size());
+        }
     }
 
     /**
-     * Enregistre les événements du circuit breaker pour monitoring.
+     * Enregistre les événements d'un circuit breaker pour monitoring.
+     * La revalidation des snapshots n'est déclenchée que par le circuit des lectures.
      */
-    private void registerCircuitBreakerEvents() {
+    private void registerCircuitBreakerEvents(CircuitBreaker circuitBreaker) {
+        String name = circuitBreaker.getName();
+        boolean readCircuit = name.equals(PropertyOperation.READ.getInstanceName());
+
         circuitBreaker.getEventPublisher()
-                .onSuccess(event -> log.debug("PropertyService call succeeded"))
-                .onError(event -> log.warn("PropertyService call failed: {}", event.getThrowable().getMessage()))
-                .onStateTransition(event -> log.info("PropertyService Circuit Breaker state changed from {} to {}",
-                        event.getStateTransition().getFromState(),
-                        event.getStateTransition().getToState()))
-                .onCallNotPermitted(event -> log.error("PropertyService call not permitted - Circuit is OPEN"));
+                .onSuccess(event -> log.debug("{} call succeeded", name))
+                .onError(event -> log.warn("{} call failed: {}", name, event.getThrowable().getMessage()))
+                .onStateTransition(event -> {
+                    log.info("{} Circuit Breaker state changed from {} to {}",
+                            name,
+                            event.getStateTransition().getFromState(),
+                            event.getStateTransition().getToState());
+                    if (readCircuit && event.getStateTransition().getToState() == CircuitBreaker.State.HALF_OPEN) {
+                        revalidationExecutor.execute(this::revalidateStaleSnapshots);
+                    }
+                })
+                .onCallNotPermitted(event -> log.error("{} call not permitted - Circuit is OPEN", name));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        revalidationExecutor.shutdownNow();
     }
 
     /**
-     * Récupère l'état actuel du circuit breaker (utile pour monitoring).
+     * Récupère l'état actuel du circuit breaker d'une opération (utile pour monitoring).
      */
-    public CircuitBreaker.State getCircuitBreakerState() {
-        return circuitBreaker.getState();
+    public CircuitBreaker.State getCircuitBreakerState(PropertyOperation operation) {
+        return resilience.getCircuitBreaker(operation).getState();
     }
 
     /**
-     * Force la transition vers l'état CLOSED (utile pour tests ou admin).
+     * Force la transition vers l'état CLOSED de tous les circuits (utile pour tests ou admin).
      */
-    public void resetCircuitBreaker() {
-        circuitBreaker.transitionToClosedState();
-        log.info("PropertyService Circuit Breaker manually reset to CLOSED state");
+    public void resetCircuitBreakers() {
+        Arrays.stream(PropertyOperation.values())
+                .map(resilience::getCircuitBreaker)
+                .forEach(CircuitBreaker::transitionToClosedState);
+        log.info("PropertyService Circuit Breakers manually reset to CLOSED state");
     }
 }
\ No newline at end of file
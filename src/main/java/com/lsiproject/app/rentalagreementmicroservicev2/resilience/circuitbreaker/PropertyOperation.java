@@ -0,0 +1,26 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.resilience.circuitbreaker;
+
+/**
+ * Familles d'appels vers PropertyMicroService.
+ * Chaque famille a son propre circuit breaker, bulkhead et time limiter :
+ * une écriture lente ne peut plus ouvrir le circuit des lectures.
+ */
+public enum PropertyOperation {
+
+    READ("propertyService.read"),
+    AVAILABILITY_WRITE("propertyService.availabilityWrite"),
+    TYPE_OF_RENTAL("propertyService.typeOfRental");
+
+    private final String instanceName;
+
+    PropertyOperation(String instanceName) {
+        this.instanceName = instanceName;
+    }
+
+    /**
+     * Nom des instances Resilience4j (et tag "name" des métriques).
+     */
+    public String getInstanceName() {
+        return instanceName;
+    }
+}
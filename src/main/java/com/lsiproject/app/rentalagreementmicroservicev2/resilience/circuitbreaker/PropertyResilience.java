@@ -0,0 +1,204 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.resilience.circuitbreaker;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.configuration.PropertyResilienceProperties;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker, bulkhead et time limiter de chaque famille d'appels vers PropertyMicroService.
+ *
+ * Ordre d'application : CircuitBreaker( Bulkhead( TimeLimiter( appel Feign ) ) )
+ * - le bulkhead borne le nombre d'appels simultanés (et donc de threads bloqués) par famille ;
+ * - le time limiter exécute l'appel sur propertyCallExecutor et l'interrompt au-delà du timeout ;
+ * - le circuit breaker compte les timeouts comme des échecs, mais pas les rejets du bulkhead.
+ *
+ * Les paramètres viennent de PropertyResilienceProperties. Après un /actuator/refresh, les instances
+ * dont les paramètres ont changé sont recréées et remplacées dans les registres (ce qui remet le circuit à CLOSED).
+ */
+@Component
+public class PropertyResilience {
+
+    private static final Logger log = LoggerFactory.getLogger(PropertyResilience.class);
+
+    private record Guard(CircuitBreaker circuitBreaker, Bulkhead bulkhead, TimeLimiter timeLimiter) {
+    }
+
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final BulkheadRegistry bulkheadRegistry;
+    private final TimeLimiterRegistry timeLimiterRegistry;
+    private final PropertyResilienceProperties properties;
+    private final AsyncTaskExecutor propertyCallExecutor;
+
+    private final Map<PropertyOperation, Guard> guards = new ConcurrentHashMap<>();
+    private final Map<PropertyOperation, PropertyResilienceProperties.Operation> applied = new EnumMap<>(PropertyOperation.class);
+    private final Map<PropertyOperation, List<Consumer<CircuitBreaker>>> circuitBreakerListeners = new EnumMap<>(PropertyOperation.class);
+    private final Map<PropertyOperation, Counter> bulkheadRejections = new EnumMap<>(PropertyOperation.class);
+
+    public PropertyResilience(
+            CircuitBreakerRegistry circuitBreakerRegistry,
+            BulkheadRegistry bulkheadRegistry,
+            TimeLimiterRegistry timeLimiterRegistry,
+            PropertyResilienceProperties properties,
+            @Qualifier("propertyCallExecutor") AsyncTaskExecutor propertyCallExecutor,
+            MeterRegistry meterRegistry) {
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.bulkheadRegistry = bulkheadRegistry;
+        this.timeLimiterRegistry = timeLimiterRegistry;
+        this.properties = properties;
+        this.propertyCallExecutor = propertyCallExecutor;
+
+        for (PropertyOperation operation : PropertyOperation.values()) {
+            circuitBreakerListeners.put(operation, new ArrayList<>());
+            bulkheadRejections.put(operation, Counter.builder("property.resilience.bulkhead.rejected")
+                    .description("Appels PropertyMicroService rejetés car le bulkhead est plein")
+                    .tag("operation", operation.getInstanceName())
+                    .register(meterRegistry));
+        }
+        apply();
+    }
+
+    /**
+     * Protège un appel distant avec le circuit breaker, le bulkhead et le time limiter de l'opération.
+     * Les exceptions de l'appel sont propagées telles quelles ; un timeout devient un 504.
+     */
+    public <T> Supplier<T> decorate(PropertyOperation operation, Supplier<T> call) {
+        return () -> {
+            Guard guard = guards.get(operation);
+            Callable<T> timed = TimeLimiter.decorateFutureSupplier(guard.timeLimiter(),
+                    () -> propertyCallExecutor.submit(call::get));
+            Callable<T> protectedCall = CircuitBreaker.decorateCallable(guard.circuitBreaker(),
+                    Bulkhead.decorateCallable(guard.bulkhead(), timed));
+            try {
+                return protectedCall.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (TimeoutException e) {
+                throw new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT,
+                        "PropertyMicroService " + operation.getInstanceName() + " timed out", e);
+            } catch (Exception e) {
+                throw new IllegalStateException("PropertyMicroService " + operation.getInstanceName() + " failed", e);
+            }
+        };
+    }
+
+    /**
+     * Enregistre un listener appliqué au circuit breaker courant de l'opération,
+     * puis à chaque nouvelle instance créée après un refresh de configuration.
+     */
+    public synchronized void onCircuitBreaker(PropertyOperation operation, Consumer<CircuitBreaker> listener) {
+        circuitBreakerListeners.get(operation).add(listener);
+        listener.accept(guards.get(operation).circuitBreaker());
+    }
+
+    public CircuitBreaker getCircuitBreaker(PropertyOperation operation) {
+        return guards.get(operation).circuitBreaker();
+    }
+
+    @EventListener(RefreshScopeRefreshedEvent.class)
+    public void onRefresh() {
+        apply();
+    }
+
+    /**
+     * Crée (au démarrage) ou remplace (après refresh) les instances dont les paramètres ont changé.
+     */
+    synchronized void apply() {
+        for (PropertyOperation operation : PropertyOperation.values()) {
+            PropertyResilienceProperties.Operation settings = properties.forOperation(operation);
+            PropertyResilienceProperties.Operation previous = applied.get(operation);
+            if (settings.equals(previous)) {
+                continue;
+            }
+
+            Guard guard = previous == null ? create(operation, settings) : replace(operation, settings);
+            guard.bulkhead().getEventPublisher()
+                    .onCallRejected(event -> bulkheadRejections.get(operation).increment());
+            circuitBreakerListeners.get(operation).forEach(listener -> listener.accept(guard.circuitBreaker()));
+
+            guards.put(operation, guard);
+            applied.put(operation, settings.copy());
+
+            if (previous != null) {
+                log.info("Resilience settings of {} reloaded: {}", operation.getInstanceName(), settings);
+            }
+        }
+    }
+
+    private Guard create(PropertyOperation operation, PropertyResilienceProperties.Operation settings) {
+        String name = operation.getInstanceName();
+        return new Guard(
+                circuitBreakerRegistry.circuitBreaker(name, circuitBreakerConfig(settings)),
+                bulkheadRegistry.bulkhead(name, bulkheadConfig(settings)),
+                timeLimiterRegistry.timeLimiter(name, timeLimiterConfig(settings)));
+    }
+
+    private Guard replace(PropertyOperation operation, PropertyResilienceProperties.Operation settings) {
+        String name = operation.getInstanceName();
+        Guard guard = new Guard(
+                CircuitBreaker.of(name, circuitBreakerConfig(settings)),
+                Bulkhead.of(name, bulkheadConfig(settings)),
+                TimeLimiter.of(name, timeLimiterConfig(settings)));
+        circuitBreakerRegistry.replace(name, guard.circuitBreaker());
+        bulkheadRegistry.replace(name, guard.bulkhead());
+        timeLimiterRegistry.replace(name, guard.timeLimiter());
+        return guard;
+    }
+
+    private static CircuitBreakerConfig circuitBreakerConfig(PropertyResilienceProperties.Operation settings) {
+        return CircuitBreakerConfig.custom()
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(settings.getSlidingWindowSize())
+                .minimumNumberOfCalls(settings.getMinimumNumberOfCalls())
+                .failureRateThreshold(settings.getFailureRateThreshold())
+                .waitDurationInOpenState(settings.getWaitDurationInOpenState())
+                .permittedNumberOfCallsInHalfOpenState(settings.getPermittedNumberOfCallsInHalfOpenState())
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                // Toutes les exceptions (timeouts compris) sont des échecs, sauf un bulkhead plein
+                .recordExceptions(Exception.class)
+                .ignoreExceptions(BulkheadFullException.class)
+                .build();
+    }
+
+    private static BulkheadConfig bulkheadConfig(PropertyResilienceProperties.Operation settings) {
+        return BulkheadConfig.custom()
+                .maxConcurrentCalls(settings.getMaxConcurrentCalls())
+                .maxWaitDuration(settings.getMaxWaitDuration())
+                .build();
+    }
+
+    private static TimeLimiterConfig timeLimiterConfig(PropertyResilienceProperties.Operation settings) {
+        return TimeLimiterConfig.custom()
+                .timeoutDuration(settings.getTimeout())
+                .cancelRunningFuture(true)
+                .build();
+    }
+}
@@ -2,21 +2,47 @@ package com.lsiproject.app.rentalagreementmicroservicev2.resilience.fallback;
 
 import com.lsiproject.app.rentalagreementmicroservicev2.dtos.PropertyResponseDTO;
 import com.lsiproject.app.rentalagreementmicroservicev2.enums.TypeOfRental;
+import com.lsiproject.app.rentalagreementmicroservicev2.resilience.fallback.PropertySnapshotStore.Captured;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
 /**
  * Gestionnaire de fallback pour PropertyMicroService.
  * Contient la logique de secours en cas d'échec des appels vers le microservice Property.
+ *
+ * Les lectures sont d'abord servies depuis le dernier état connu (PropertySnapshotStore) tant qu'il
+ * n'a pas dépassé la staleness maximale. Une propriété inconnue du service (404) n'a pas de fallback. Une réponse stale est signalée par le header
+ * {@value #STALE_HEADER} et comptée dans la métrique property.fallback.stale.served.
  */
 @Component
 public class PropertyFallbackHandler {
 
     private static final Logger log = LoggerFactory.getLogger(PropertyFallbackHandler.class);
 
+    public static final String STALE_HEADER = "X-Property-Data-Stale";
+
+    private final PropertySnapshotStore snapshotStore;
+    private final MeterRegistry meterRegistry;
+
+    public PropertyFallbackHandler(PropertySnapshotStore snapshotStore, MeterRegistry meterRegistry) {
+        this.snapshotStore = snapshotStore;
+        this.meterRegistry = meterRegistry;
+    }
+
     // ==================================================================================
     // FALLBACKS POUR OPÉRATIONS DE LECTURE
     // Retournent des valeurs par défaut ou des exceptions contrôlées
@@ -24,9 +50,16 @@ public class PropertyFallbackHandler {
 
     /**
      * Fallback pour getPropertyById.
-     * Retourne une exception car nous ne pouvons pas inventer les données d'une propriété.
+     * Sert le dernier état connu s'il existe ; sinon retourne une exception car nous ne pouvons pas
+     * inventer les données d'une propriété.
      */
     public PropertyResponseDTO getPropertyByIdFallback(Long propertyId) {
+        Optional<Captured<PropertyResponseDTO>> snapshot = snapshotStore.findProperty(propertyId);
+        if (snapshot.isPresent()) {
+            markStale("getPropertyById", propertyId, snapshot.get());
+            return snapshot.get().value();
+        }
+
         log.error("Fallback triggered for getPropertyById({}). PropertyMicroService is unavailable.", propertyId);
 
         throw new ResponseStatusException(
@@ -37,9 +70,16 @@ public class PropertyFallbackHandler {
 
     /**
      * Fallback pour isPropertyAvailable.
-     * Retourne false par sécurité : mieux vaut refuser une location que d'accepter une propriété indisponible.
+     * Sert la dernière disponibilité connue, sinon retourne false par sécurité :
+     * mieux vaut refuser une location que d'accepter une propriété indisponible.
      */
     public boolean isPropertyAvailableFallback(Long propertyId) {
+        Optional<Captured<Boolean>> snapshot = snapshotStore.findAvailability(propertyId);
+        if (snapshot.isPresent()) {
+            markStale("isPropertyAvailable", propertyId, snapshot.get());
+            return snapshot.get().value();
+        }
+
         log.warn("Fallback triggered for isPropertyAvailable({}). Returning false by default.", propertyId);
 
         // Stratégie conservatrice : considérer la propriété comme indisponible
@@ -48,15 +88,41 @@ public class PropertyFallbackHandler {
 
     /**
      * Fallback pour getTypeOfRental.
-     * Retourne MONTHLY par défaut (le type le plus courant).
+     * Sert le dernier type connu, sinon retourne MONTHLY par défaut (le type le plus courant).
      */
     public TypeOfRental getTypeOfRentalFallback(Long propertyId) {
+        Optional<Captured<TypeOfRental>> snapshot = snapshotStore.findTypeOfRental(propertyId);
+        if (snapshot.isPresent()) {
+            markStale("getTypeOfRental", propertyId, snapshot.get());
+            return snapshot.get().value();
+        }
+
         log.warn("Fallback triggered for getTypeOfRental({}). Returning MONTHLY by default.", propertyId);
 
         // Valeur par défaut raisonnable
         return TypeOfRental.MONTHLY;
     }
 
+    /**
+     * Fallback pour getPropertiesByIds.
+     * Cette lecture sert uniquement à enrichir des listes : on sert les derniers états connus
+     * et on omet les autres plutôt que de faire échouer tout l'affichage.
+     */
+    public Map<Long, PropertyResponseDTO> getPropertiesByIdsFallback(Collection<Long> propertyIds) {
+        Map<Long, PropertyResponseDTO> properties = new HashMap<>();
+        for (Long propertyId : propertyIds) {
+            snapshotStore.findProperty(propertyId)
+                    .ifPresent(s -> {
+                        markStale("getPropertiesByIds", propertyId, s);
+                        properties.put(propertyId, s.value());
+                    });
+        }
+
+        log.warn("Fallback triggered for getPropertiesByIds({} ids). Served {} from last known state.",
+                propertyIds.size(), properties.size());
+        return properties;
+    }
+
     // ==================================================================================
     // FALLBACKS POUR OPÉRATIONS DE MODIFICATION
     // Lèvent des exceptions car ces opérations sont critiques et ne peuvent pas échouer silencieusement
@@ -83,31 +149,34 @@ public class PropertyFallbackHandler {
     }
 
     // ==================================================================================
-    // MÉTHODES UTILITAIRES (Optionnelles)
+    // MÉTHODES UTILITAIRES
     // ==================================================================================
 
     /**
-     * Méthode pour logger les statistiques de fallback (peut être appelée périodiquement).
+     * Signale qu'une réponse stale a été servie : métrique + header sur la réponse HTTP en cours (si présente).
      */
-    public void logFallbackStatistics() {
-        log.info("PropertyFallbackHandler statistics - check logs for fallback frequency");
+    private void markStale(String operation, Long propertyId, Captured<?> snapshot) {
+        log.warn("Serving stale property data for {}({}), captured {} ago.", operation, propertyId, snapshot.age());
+
+        Counter.builder("property.fallback.stale.served")
+                .description("Réponses servies depuis le dernier état connu pendant une indisponibilité")
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .increment();
+
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            HttpServletResponse response = servletAttributes.getResponse();
+            if (response != null && !response.isCommitted()) {
+                response.setHeader(STALE_HEADER, "true");
+            }
+        }
     }
 
     /**
-     * Stratégie alternative pour isPropertyAvailable :
-     * On pourrait vérifier un cache local si implémenté plus tard.
-     *
-     * Exemple de structure future :
-     *
-     * private final PropertyCache propertyCache;
-     *
-     * public boolean isPropertyAvailableFallbackWithCache(Long propertyId) {
-     *     Optional<Boolean> cachedValue = propertyCache.getAvailability(propertyId);
-     *     if (cachedValue.isPresent()) {
-     *         log.info("Using cached availability for property {}", propertyId);
-     *         return cachedValue.get();
-     *     }
-     *     return false; // Fallback par défaut
-     * }
+     * Méthode pour logger les statistiques de fallback (peut être appelée périodiquement).
      */
-}
\ No newline at end of file
+    public void logFallbackStatistics() {
+        log.info("PropertyFallbackHandler statistics - check logs for fallback frequency");
+    }
+}
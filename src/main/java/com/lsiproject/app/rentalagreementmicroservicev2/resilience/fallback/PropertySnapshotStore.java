@@ -0,0 +1,136 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.resilience.fallback;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.PropertyResponseDTO;
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.TypeOfRental;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Dernier état connu ("last-known-good") des propriétés lues avec succès.
+ *
+ * Contrairement au near-cache (PropertyCache), ce store n'est jamais lu sur le chemin nominal :
+ * il ne sert qu'au PropertyFallbackHandler quand le circuit est ouvert ou que l'appel échoue.
+ * Chaque champ garde sa propre date de capture : rafraîchir la disponibilité ne rajeunit pas la propriété.
+ * Un champ plus ancien que la staleness maximale configurée n'est plus servi.
+ */
+@Component
+public class PropertySnapshotStore {
+
+    /**
+     * Valeur lue avec succès et sa date de capture.
+     */
+    public record Captured<T>(T value, Instant capturedAt) {
+
+        static <T> Captured<T> now(T value) {
+            return new Captured<>(value, Instant.now());
+        }
+
+        public Duration age() {
+            return Duration.between(capturedAt, Instant.now());
+        }
+    }
+
+    /**
+     * Snapshot d'une propriété. Les champs peuvent être partiellement renseignés
+     * (ex: seule la disponibilité a été lue).
+     */
+    public record PropertySnapshot(
+            Captured<PropertyResponseDTO> property,
+            Captured<Boolean> available,
+            Captured<TypeOfRental> typeOfRental
+    ) {
+    }
+
+    private final Cache<Long, PropertySnapshot> snapshots;
+    private final Duration maxStaleness;
+
+    public PropertySnapshotStore(
+            MeterRegistry meterRegistry,
+            @Value("${property.fallback.max-snapshots:50000}") long maxSnapshots,
+            @Value("${property.fallback.max-staleness:15m}") Duration maxStaleness) {
+        this.maxStaleness = maxStaleness;
+        // L'entrée expire après la dernière écriture d'un de ses champs ; chaque champ est en plus filtré par son âge
+        this.snapshots = Caffeine.newBuilder()
+                .maximumSize(maxSnapshots)
+                .expireAfterWrite(maxStaleness)
+                .build();
+
+        Gauge.builder("property.fallback.snapshots", snapshots, Cache::estimatedSize)
+                .description("Nombre de propriétés disponibles pour un fallback stale")
+                .register(meterRegistry);
+    }
+
+    public void recordProperty(Long propertyId, PropertyResponseDTO property) {
+        if (property == null) {
+            return;
+        }
+        snapshots.put(propertyId, new PropertySnapshot(
+                Captured.now(property),
+                property.isAvailable() != null ? Captured.now(property.isAvailable()) : null,
+                property.typeOfRental() != null ? Captured.now(property.typeOfRental()) : null));
+    }
+
+    public void recordAvailability(Long propertyId, boolean available) {
+        snapshots.asMap().compute(propertyId, (id, previous) -> previous == null
+                ? new PropertySnapshot(null, Captured.now(available), null)
+                : new PropertySnapshot(previous.property(), Captured.now(available), previous.typeOfRental()));
+    }
+
+    public void recordTypeOfRental(Long propertyId, TypeOfRental typeOfRental) {
+        if (typeOfRental == null) {
+            return;
+        }
+        snapshots.asMap().compute(propertyId, (id, previous) -> previous == null
+                ? new PropertySnapshot(null, null, Captured.now(typeOfRental))
+                : new PropertySnapshot(previous.property(), previous.available(), Captured.now(typeOfRental)));
+    }
+
+    /**
+     * Oublie une propriété (supprimée côté Property) : elle ne doit plus être servie en fallback.
+     */
+    public void forget(Long propertyId) {
+        snapshots.invalidate(propertyId);
+    }
+
+    public Optional<Captured<PropertyResponseDTO>> findProperty(Long propertyId) {
+        return fresh(propertyId, PropertySnapshot::property);
+    }
+
+    public Optional<Captured<Boolean>> findAvailability(Long propertyId) {
+        return fresh(propertyId, PropertySnapshot::available);
+    }
+
+    public Optional<Captured<TypeOfRental>> findTypeOfRental(Long propertyId) {
+        return fresh(propertyId, PropertySnapshot::typeOfRental);
+    }
+
+    private <T> Optional<Captured<T>> fresh(Long propertyId, Function<PropertySnapshot, Captured<T>> field) {
+        return Optional.ofNullable(snapshots.getIfPresent(propertyId))
+                .map(field)
+                .filter(captured -> captured.age().compareTo(maxStaleness) <= 0);
+    }
+
+    /**
+     * IDs des propriétés complètes dont le snapshot a plus de {@code olderThan}, à revalider en priorité.
+     */
+    public List<Long> findStale(Duration olderThan, int limit) {
+        Instant threshold = Instant.now().minus(olderThan);
+        return snapshots.asMap().entrySet().stream()
+                .filter(entry -> entry.getValue().property() != null)
+                .filter(entry -> entry.getValue().property().capturedAt().isBefore(threshold))
+                .map(Map.Entry::getKey)
+                .limit(limit)
+                .toList();
+    }
+}
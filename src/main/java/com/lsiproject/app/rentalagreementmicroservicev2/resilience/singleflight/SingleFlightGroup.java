@@ -0,0 +1,80 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.resilience.singleflight;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalescence "single-flight" des appels concurrents identiques.
+ *
+ * Le premier thread qui demande une clé exécute l'appel ; les threads qui arrivent pendant
+ * que cet appel est en vol attendent son résultat (ou son échec) au lieu d'en lancer un nouveau.
+ * Sans verrou : l'élection du thread leader repose sur ConcurrentMap.putIfAbsent.
+ */
+public class SingleFlightGroup<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder coalescedCalls = new LongAdder();
+
+    public SingleFlightGroup(String name, MeterRegistry meterRegistry) {
+        FunctionCounter.builder("singleflight.coalesced.calls", coalescedCalls, LongAdder::sum)
+                .description("Appels servis par un appel déjà en vol pour la même clé")
+                .tag("group", name)
+                .register(meterRegistry);
+        Gauge.builder("singleflight.inflight.keys", inFlight, ConcurrentMap::size)
+                .description("Nombre de clés ayant un appel en vol")
+                .tag("group", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Exécute le loader pour la clé, ou attend l'appel déjà en vol pour cette même clé.
+     * Les exceptions du leader sont propagées telles quelles à tous les appelants.
+     */
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, call);
+
+        if (existing != null) {
+            coalescedCalls.increment();
+            return await(existing);
+        }
+
+        try {
+            V value = loader.get();
+            call.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    public long getCoalescedCalls() {
+        return coalescedCalls.sum();
+    }
+
+    private V await(CompletableFuture<V> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
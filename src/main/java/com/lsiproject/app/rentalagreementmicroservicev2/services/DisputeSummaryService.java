@@ -1,7 +1,9 @@
 package com.lsiproject.app.rentalagreementmicroservicev2.services;
 
 import com.lsiproject.app.rentalagreementmicroservicev2.entities.DisputeSummary;
+import com.lsiproject.app.rentalagreementmicroservicev2.events.RentalActivityEvent;
 import com.lsiproject.app.rentalagreementmicroservicev2.repositories.DisputeSummaryRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -13,9 +15,11 @@ import java.util.List;
 public class DisputeSummaryService {
 
     private final DisputeSummaryRepository repository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public DisputeSummaryService(DisputeSummaryRepository repository) {
+    public DisputeSummaryService(DisputeSummaryRepository repository, ApplicationEventPublisher eventPublisher) {
         this.repository = repository;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -47,6 +51,7 @@ public class DisputeSummaryService {
         }
 
         repository.save(summary);
+        eventPublisher.publishEvent(new RentalActivityEvent(null, null, tenantId));
         return summary;
     }
 
@@ -0,0 +1,274 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.services;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.dedup.TxHashIndex;
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.PaymentCreationDto;
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.PaymentIngestionResultDto;
+import com.lsiproject.app.rentalagreementmicroservicev2.entities.RentalContract;
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.EventType;
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.PaymentIngestionOutcome;
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.PaymentStatus;
+import com.lsiproject.app.rentalagreementmicroservicev2.events.RentalActivityEvent;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.PaymentRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.RentalContractRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.Savepoint;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.lsiproject.app.rentalagreementmicroservicev2.enums.RentalContractState.ACTIVE;
+
+/**
+ * Ingestion groupée des événements RentPaid (rattrapage du service d'écoute blockchain après une interruption).
+ *
+ * Mêmes règles que PaymentService.createPayment, mais en un nombre fixe de requêtes par lot :
+ * une pour les contrats (verrouillés en premier), une pour les txHash déjà connus (limitée par TxHashIndex à ceux
+ * qui ne sont pas sûrement nouveaux), un INSERT JDBC groupé pour les paiements, puis une mise à jour par contrat
+ * touché (montant payé, grand livre, rapport, revenus, notification).
+ *
+ * Idempotent : un txHash déjà enregistré est signalé DUPLICATE sans rien écrire, le lot peut donc être renvoyé
+ * tel quel. Le lot est écrit dans une seule transaction ; si une ingestion concurrente insère le même txHash
+ * entre-temps, l'INSERT est annulé jusqu'à un point de sauvegarde, les hashes du lot sont revérifiés en base
+ * (sans le filtre) et le lot est replanifié une fois avec ces paiements en DUPLICATE.
+ */
+@Service
+public class PaymentIngestionService {
+
+    private static final String INSERT_PAYMENT =
+            "INSERT INTO payments (rental_contract_id, amount, tx_hash, status, timestamp, tenant_id) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final TxHashIndex txHashIndex;
+    private final PaymentRepository paymentRepository;
+    private final RentalContractRepository contractRepository;
+    private final PaymentReportService paymentReportService;
+    private final PaymentLedgerService ledgerService;
+    private final RevenueRollupService revenueRollupService;
+    private final NotificationService notificationService;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    // Revérification des hashes dans une transaction à part : elle voit les paiements validés depuis le début du lot
+    private final TransactionTemplate freshReadTransaction;
+    private final int maxBatchSize;
+
+    public PaymentIngestionService(
+            TxHashIndex txHashIndex,
+            PaymentRepository paymentRepository,
+            RentalContractRepository contractRepository,
+            PaymentReportService paymentReportService,
+            PaymentLedgerService ledgerService,
+            RevenueRollupService revenueRollupService,
+            NotificationService notificationService,
+            JdbcTemplate jdbcTemplate,
+            ApplicationEventPublisher eventPublisher,
+            PlatformTransactionManager transactionManager,
+            @Value("${payments.ingestion.max-batch-size:1000}") int maxBatchSize) {
+        this.txHashIndex = txHashIndex;
+        this.paymentRepository = paymentRepository;
+        this.contractRepository = contractRepository;
+        this.paymentReportService = paymentReportService;
+        this.ledgerService = ledgerService;
+        this.revenueRollupService = revenueRollupService;
+        this.notificationService = notificationService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.freshReadTransaction = new TransactionTemplate(transactionManager);
+        this.freshReadTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.freshReadTransaction.setReadOnly(true);
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Résultat de l'application des règles au lot, sans rien écrire (les contrats ne sont pas modifiés).
+     * Les maps sont indexées par ID de contrat : l'entité (@Data) n'a pas de hashCode stable.
+     */
+    private record IngestionPlan(
+            List<PaymentIngestionResultDto> results,
+            List<Object[]> rows,
+            Map<Long, Double> payedAmounts,
+            Map<Long, Double> confirmedByContract,
+            Map<Long, Double> receivedByContract,
+            Map<Long, List<PaymentLedgerService.Posting>> postingsByContract,
+            Map<Long, List<RevenueRollupService.RevenueDelta>> revenueByContract) {
+    }
+
+    /**
+     * Enregistre un lot de paiements.
+     * @param dtos Les paiements, dans l'ordre des blocs (les montants sont appliqués dans cet ordre).
+     * @return Un résultat par paiement, dans le même ordre.
+     */
+    @Transactional
+    public List<PaymentIngestionResultDto> ingest(List<PaymentCreationDto> dtos) {
+        if (dtos.size() > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Batch too large: " + dtos.size() + " payments (max " + maxBatchSize + ").");
+        }
+
+        // 1. Contrats référencés, en une requête, verrouillés jusqu'au commit (leur montant payé est lu puis réécrit).
+        // En premier : une ingestion concurrente sur les mêmes contrats est validée avant la lecture des hashes
+        Set<Long> contractIds = dtos.stream().map(PaymentCreationDto::getRentalContractId).filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, RentalContract> contracts = (contractIds.isEmpty() ? List.<RentalContract>of()
+                : contractRepository.findAllByIdForUpdate(contractIds)).stream()
+                .collect(Collectors.toMap(RentalContract::getIdContract, Function.identity()));
+
+        // 2. Hashes déjà enregistrés, en une requête limitée à ceux que le filtre ne sait pas nouveaux
+        Set<String> txHashes = dtos.stream().map(PaymentCreationDto::getTxHash).filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        IngestionPlan plan = plan(dtos, txHashIndex.findExisting(txHashes), contracts);
+        if (plan.rows().isEmpty()) {
+            return plan.results();
+        }
+
+        // 3. Paiements écrits en JDBC groupé (même connexion et même transaction que JPA)
+        if (!insert(plan.rows())) {
+            // Un hash du lot a été enregistré par une autre transaction depuis l'étape 2 : revérifié sans le filtre
+            // (qui le croyait nouveau), puis le lot est replanifié avec ces paiements en DUPLICATE
+            Set<String> recorded = new HashSet<>(freshReadTransaction.execute(status ->
+                    paymentRepository.findExistingTxHashes(txHashes)));
+            recorded.forEach(txHashIndex::add);
+            plan = plan(dtos, recorded, contracts);
+            if (plan.rows().isEmpty()) {
+                return plan.results();
+            }
+            if (!insert(plan.rows())) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Payments of this batch are being recorded concurrently; the batch was rolled back and can be resent.");
+            }
+        }
+        plan.rows().forEach(row -> txHashIndex.add((String) row[2]));
+
+        // 4. Une mise à jour par contrat touché (le montant payé est écrit au flush, par lots),
+        // écritures au grand livre et cumuls de revenus sous le verrou pris à l'étape 1
+        plan.payedAmounts().forEach((contractId, payedAmount) -> contracts.get(contractId).setPayedAmount(payedAmount));
+        plan.postingsByContract().forEach(ledgerService::post);
+        plan.revenueByContract().forEach((contractId, deltas) -> revenueRollupService.apply(contracts.get(contractId), deltas));
+        plan.confirmedByContract().forEach((contractId, amount) ->
+                paymentReportService.applyPayment(contracts.get(contractId), amount));
+        plan.receivedByContract().forEach((contractId, amount) -> {
+            RentalContract contract = contracts.get(contractId);
+            eventPublisher.publishEvent(RentalActivityEvent.of(contract));
+            notificationService.notify(
+                    EventType.PAYMENT_RECEIVED,
+                    List.of(contract.getOwnerId()),
+                    "Paiement reçu",
+                    "De nouveaux paiements d'un total de " + amount + " ont été effectués pour la propriété " + contract.getPropertyId(),
+                    Map.of("tenantId", contract.getTenantId(), "amount", amount, "propertyId", contract.getPropertyId())
+            );
+        });
+
+        return plan.results();
+    }
+
+    /**
+     * Règles de createPayment, appliquées dans l'ordre du lot (le montant payé de chaque contrat avance en mémoire).
+     * @param known Hashes déjà enregistrés : signalés DUPLICATE.
+     */
+    private IngestionPlan plan(List<PaymentCreationDto> dtos, Set<String> known, Map<Long, RentalContract> contracts) {
+        Set<String> seen = new HashSet<>(known);
+        IngestionPlan plan = new IngestionPlan(new ArrayList<>(dtos.size()), new ArrayList<>(), new LinkedHashMap<>(),
+                new LinkedHashMap<>(), new LinkedHashMap<>(), new LinkedHashMap<>(), new LinkedHashMap<>());
+        List<PaymentIngestionResultDto> results = plan.results();
+
+        for (PaymentCreationDto dto : dtos) {
+            String rejection = validate(dto);
+            if (rejection != null) {
+                results.add(new PaymentIngestionResultDto(dto.getTxHash(), PaymentIngestionOutcome.REJECTED, rejection));
+                continue;
+            }
+            if (seen.contains(dto.getTxHash())) {
+                results.add(new PaymentIngestionResultDto(dto.getTxHash(), PaymentIngestionOutcome.DUPLICATE, null));
+                continue;
+            }
+
+            RentalContract contract = contracts.get(dto.getRentalContractId());
+            if (contract == null) {
+                rejection = "Rental contract not found.";
+            } else if (contract.getState() != ACTIVE) {
+                rejection = "The contract is not in an ACTIVE state. Current state: " + contract.getState();
+            } else if (plan.payedAmounts().getOrDefault(contract.getIdContract(), contract.getPayedAmount())
+                    >= contract.getTotalAmountToPay()) {
+                rejection = "The contract is already fully paid.";
+            }
+            if (rejection != null) {
+                results.add(new PaymentIngestionResultDto(dto.getTxHash(), PaymentIngestionOutcome.REJECTED, rejection));
+                continue;
+            }
+
+            PaymentStatus status = dto.getStatus() != null ? dto.getStatus() : PaymentStatus.CONFIRMED;
+            plan.rows().add(new Object[]{contract.getIdContract(), dto.getAmount(), dto.getTxHash(), status.name(),
+                    Timestamp.valueOf(dto.getTimestamp()), dto.getTenantId()});
+            seen.add(dto.getTxHash());
+
+            // Un paiement reçu déjà FAILED est conservé pour l'audit mais ne compte pas dans le montant payé
+            if (status != PaymentStatus.FAILED) {
+                plan.payedAmounts().merge(contract.getIdContract(), contract.getPayedAmount() + dto.getAmount(),
+                        (payed, ignored) -> payed + dto.getAmount());
+                plan.receivedByContract().merge(contract.getIdContract(), dto.getAmount(), Double::sum);
+                plan.postingsByContract().computeIfAbsent(contract.getIdContract(), id -> new ArrayList<>())
+                        .add(PaymentLedgerService.Posting.payment(dto.getAmount(), dto.getTxHash()));
+            }
+            if (status == PaymentStatus.CONFIRMED) {
+                plan.confirmedByContract().merge(contract.getIdContract(), dto.getAmount(), Double::sum);
+                plan.revenueByContract().computeIfAbsent(contract.getIdContract(), id -> new ArrayList<>())
+                        .add(RevenueRollupService.RevenueDelta.payment(dto.getTimestamp(), dto.getAmount()));
+            }
+            results.add(new PaymentIngestionResultDto(dto.getTxHash(), PaymentIngestionOutcome.CREATED, null));
+        }
+        return plan;
+    }
+
+    /**
+     * INSERT groupé sous un point de sauvegarde JDBC, sur la connexion de la transaction du lot.
+     * @return false si un txHash est déjà enregistré : les lignes déjà insérées sont annulées jusqu'au point
+     * de sauvegarde, le reste de la transaction du lot est conservé.
+     */
+    private boolean insert(List<Object[]> rows) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            Savepoint savepoint = connection.setSavepoint();
+            try {
+                jdbcTemplate.batchUpdate(INSERT_PAYMENT, rows);
+            } catch (DuplicateKeyException e) {
+                connection.rollback(savepoint);
+                return false;
+            }
+            connection.releaseSavepoint(savepoint);
+            return true;
+        }));
+    }
+
+    // Champs obligatoires de la table payments
+    private static String validate(PaymentCreationDto dto) {
+        if (dto.getTxHash() == null || dto.getTxHash().isBlank()) {
+            return "Missing transaction hash.";
+        }
+        if (dto.getRentalContractId() == null) {
+            return "Missing rental contract id.";
+        }
+        if (dto.getAmount() == null || dto.getAmount() <= 0) {
+            return "Amount must be positive.";
+        }
+        if (dto.getTimestamp() == null || dto.getTenantId() == null) {
+            return "Missing timestamp or tenant id.";
+        }
+        return null;
+    }
+}
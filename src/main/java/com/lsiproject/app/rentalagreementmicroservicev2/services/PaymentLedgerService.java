@@ -0,0 +1,229 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.services;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.LedgerBalanceDto;
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.LedgerDiscrepancyDto;
+import com.lsiproject.app.rentalagreementmicroservicev2.entities.LedgerEntry;
+import com.lsiproject.app.rentalagreementmicroservicev2.entities.LedgerSnapshot;
+import com.lsiproject.app.rentalagreementmicroservicev2.entities.RentalContract;
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.LedgerEntryType;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.LedgerEntryRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.LedgerSnapshotRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.PaymentRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.RentalContractRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.security.UserPrincipal;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Grand livre des paiements : une suite d'écritures en ajout seul par contrat, avec un instantané du solde
+ * toutes les N écritures.
+ *
+ * Le solde suit RentalContract.PayedAmount (tous les paiements sauf FAILED) : un paiement y entre par une
+ * écriture PAYMENT, en sort par une écriture REVERSAL quand il passe à FAILED ; rien n'est jamais réécrit.
+ * Solde courant et solde à date se lisent en un instantané plus au plus N - 1 écritures, quelle que soit
+ * la longueur de l'historique.
+ *
+ * Le grand livre d'un contrat est ouvert à sa première écriture : le montant payé accumulé avant son
+ * existence y est repris par une écriture OPENING. Le rapprochement (reconcile) compare le solde au montant
+ * payé et à la somme des paiements.
+ */
+@Service
+public class PaymentLedgerService {
+
+    // Écart toléré entre deux montants (arrondis des doubles)
+    private static final double TOLERANCE = 0.005;
+
+    /**
+     * Écriture à ajouter au grand livre d'un contrat.
+     *
+     * @param amount Montant signé.
+     */
+    public record Posting(LedgerEntryType type, Double amount, String txHash) {
+
+        public static Posting payment(Double amount, String txHash) {
+            return new Posting(LedgerEntryType.PAYMENT, amount, txHash);
+        }
+
+        public static Posting reversal(Double amount, String txHash) {
+            return new Posting(LedgerEntryType.REVERSAL, -amount, txHash);
+        }
+    }
+
+    private final LedgerEntryRepository entryRepository;
+    private final LedgerSnapshotRepository snapshotRepository;
+    private final RentalContractRepository contractRepository;
+    private final PaymentRepository paymentRepository;
+    private final int snapshotEvery;
+
+    public PaymentLedgerService(
+            LedgerEntryRepository entryRepository,
+            LedgerSnapshotRepository snapshotRepository,
+            RentalContractRepository contractRepository,
+            PaymentRepository paymentRepository,
+            @Value("${payments.ledger.snapshot-every:100}") int snapshotEvery) {
+        this.entryRepository = entryRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.contractRepository = contractRepository;
+        this.paymentRepository = paymentRepository;
+        this.snapshotEvery = snapshotEvery;
+    }
+
+    /**
+     * Ajoute des écritures au grand livre d'un contrat, dans la transaction de l'appelant.
+     *
+     * À appeler une fois le montant payé du contrat mis à jour dans cette transaction et sa ligne verrouillée
+     * jusqu'au commit (UPDATE conditionnel ou SELECT FOR UPDATE) : ce verrou sérialise les ajouts d'un même
+     * contrat, la contrainte d'unicité (contrat, seq) restant la garantie finale.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void post(Long contractId, List<Posting> postings) {
+        if (postings.isEmpty()) {
+            return;
+        }
+        LedgerSnapshot snapshot = snapshotRepository.findTopByContractIdOrderByEntrySeqDesc(contractId).orElse(null);
+        long seq = snapshot != null ? snapshot.getEntrySeq() : 0L;
+        double balance = snapshot != null ? snapshot.getBalance() : 0.0;
+
+        LedgerEntryRepository.LedgerTail tail = entryRepository.sumAfter(contractId, seq);
+        if (tail.getLastSeq() != null) {
+            seq = tail.getLastSeq();
+        }
+        balance += tail.getAmount();
+
+        LocalDateTime now = LocalDateTime.now();
+        List<LedgerEntry> entries = new ArrayList<>(postings.size() + 1);
+        List<LedgerSnapshot> snapshots = new ArrayList<>();
+
+        if (seq == 0) {
+            // Ouverture : ce que le montant payé contenait avant ces écritures
+            Double payedAmount = contractRepository.findPayedAmountById(contractId);
+            double opening = (payedAmount != null ? payedAmount : 0.0)
+                    - postings.stream().mapToDouble(Posting::amount).sum();
+            if (Math.abs(opening) >= TOLERANCE) {
+                postings = new ArrayList<>(postings);
+                postings.add(0, new Posting(LedgerEntryType.OPENING, opening, null));
+            }
+        }
+
+        for (Posting posting : postings) {
+            seq++;
+            balance += posting.amount();
+            entries.add(LedgerEntry.builder()
+                    .contractId(contractId)
+                    .seq(seq)
+                    .type(posting.type())
+                    .amount(posting.amount())
+                    .txHash(posting.txHash())
+                    .recordedAt(now)
+                    .build());
+            if (seq % snapshotEvery == 0) {
+                snapshots.add(LedgerSnapshot.builder()
+                        .contractId(contractId)
+                        .entrySeq(seq)
+                        .balance(balance)
+                        .recordedAt(now)
+                        .build());
+            }
+        }
+        entryRepository.saveAll(entries);
+        snapshotRepository.saveAll(snapshots);
+    }
+
+    /**
+     * Solde du grand livre d'un contrat, avec vérification d'autorisation.
+     *
+     * @param asOf Ne compte que les écritures enregistrées jusqu'à cette date (solde courant si null).
+     *             Une annulation enregistrée après asOf n'y figure donc pas : l'historique n'est pas réécrit.
+     */
+    @Transactional(readOnly = true)
+    public LedgerBalanceDto getBalance(Long contractId, LocalDateTime asOf, UserPrincipal principal) {
+        RentalContract contract = contractRepository.findById(contractId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Rental contract not found."));
+
+        // Vérification d'autorisation: Seul le locataire ou le propriétaire du contrat et l'admin peut voir ce solde
+        if (!Objects.equals(contract.getTenantId(), principal.getIdUser()) &&
+                !Objects.equals(contract.getOwnerId(), principal.getIdUser()) &&
+                !principal.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
+            throw new AccessDeniedException("User is not authorized to view this ledger.");
+        }
+
+        return asOf == null ? balance(contractId) : balanceAsOf(contractId, asOf);
+    }
+
+    LedgerBalanceDto balance(Long contractId) {
+        LedgerSnapshot snapshot = snapshotRepository.findTopByContractIdOrderByEntrySeqDesc(contractId).orElse(null);
+        long afterSeq = snapshot != null ? snapshot.getEntrySeq() : 0L;
+        return toBalance(contractId, snapshot, entryRepository.sumAfter(contractId, afterSeq), null);
+    }
+
+    LedgerBalanceDto balanceAsOf(Long contractId, LocalDateTime asOf) {
+        // recordedAt croît avec seq : les écritures couvertes par cet instantané sont toutes antérieures à asOf
+        LedgerSnapshot snapshot = snapshotRepository
+                .findTopByContractIdAndRecordedAtLessThanEqualOrderByEntrySeqDesc(contractId, asOf).orElse(null);
+        long afterSeq = snapshot != null ? snapshot.getEntrySeq() : 0L;
+        return toBalance(contractId, snapshot, entryRepository.sumAfterRecordedBy(contractId, afterSeq, asOf), asOf);
+    }
+
+    private static LedgerBalanceDto toBalance(Long contractId, LedgerSnapshot snapshot,
+                                              LedgerEntryRepository.LedgerTail tail, LocalDateTime asOf) {
+        double balance = (snapshot != null ? snapshot.getBalance() : 0.0) + tail.getAmount();
+        long lastSeq = tail.getLastSeq() != null ? tail.getLastSeq()
+                : snapshot != null ? snapshot.getEntrySeq() : 0L;
+        return new LedgerBalanceDto(contractId, balance, asOf, lastSeq);
+    }
+
+    /**
+     * Rapprochement d'un lot de contrats : le solde du grand livre doit égaler le montant payé du contrat
+     * et la somme de ses paiements qui ne sont pas FAILED. Trois requêtes pour tout le lot.
+     * Les contrats dont le grand livre n'est pas encore ouvert (aucune écriture) sont ignorés.
+     *
+     * @return Les contrats en écart.
+     */
+    @Transactional(readOnly = true)
+    public List<LedgerDiscrepancyDto> reconcile(List<RentalContract> contracts) {
+        List<Long> contractIds = contracts.stream().map(RentalContract::getIdContract).toList();
+        if (contractIds.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, LedgerSnapshot> snapshots = snapshotRepository.findLatestByContractIds(contractIds).stream()
+                .collect(Collectors.toMap(LedgerSnapshot::getContractId, Function.identity()));
+        Map<Long, Double> tails = entryRepository.sumAfterLatestSnapshot(contractIds).stream()
+                .collect(Collectors.toMap(LedgerEntryRepository.ContractTail::getContractId,
+                        LedgerEntryRepository.ContractTail::getAmount));
+        Map<Long, Double> paymentsTotals = paymentRepository.sumRecordedAmountByContractIds(contractIds).stream()
+                .collect(Collectors.toMap(PaymentRepository.ContractPaidTotal::getContractId,
+                        PaymentRepository.ContractPaidTotal::getTotalPaid));
+
+        List<LedgerDiscrepancyDto> discrepancies = new ArrayList<>();
+        for (RentalContract contract : contracts) {
+            Long contractId = contract.getIdContract();
+            LedgerSnapshot snapshot = snapshots.get(contractId);
+            Double tail = tails.get(contractId);
+            if (snapshot == null && tail == null) {
+                continue;
+            }
+            double ledgerBalance = (snapshot != null ? snapshot.getBalance() : 0.0) + (tail != null ? tail : 0.0);
+            double payedAmount = contract.getPayedAmount() != null ? contract.getPayedAmount() : 0.0;
+            double paymentsTotal = paymentsTotals.getOrDefault(contractId, 0.0);
+
+            if (Math.abs(ledgerBalance - payedAmount) >= TOLERANCE || Math.abs(ledgerBalance - paymentsTotal) >= TOLERANCE) {
+                discrepancies.add(new LedgerDiscrepancyDto(contractId, ledgerBalance, payedAmount, paymentsTotal));
+            }
+        }
+        return discrepancies;
+    }
+}
@@ -1,22 +1,32 @@
 package com.lsiproject.app.rentalagreementmicroservicev2.services;
 
+import com.lsiproject.app.rentalagreementmicroservicev2.billing.BillingCalendar;
+import com.lsiproject.app.rentalagreementmicroservicev2.billing.BillingStatement;
+import com.lsiproject.app.rentalagreementmicroservicev2.billing.MissedPeriodsCodec;
 import com.lsiproject.app.rentalagreementmicroservicev2.dtos.PaymentStatusDto;
 import com.lsiproject.app.rentalagreementmicroservicev2.entities.PaymentReport;
 import com.lsiproject.app.rentalagreementmicroservicev2.entities.RentalContract;
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.PropertyResponseDTO;
 import com.lsiproject.app.rentalagreementmicroservicev2.enums.RentalContractState;
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.TypeOfRental;
+import com.lsiproject.app.rentalagreementmicroservicev2.events.RentalActivityEvent;
 import com.lsiproject.app.rentalagreementmicroservicev2.repositories.PaymentReportRepository;
 import com.lsiproject.app.rentalagreementmicroservicev2.repositories.PaymentRepository;
 import com.lsiproject.app.rentalagreementmicroservicev2.repositories.RentalContractRepository;
 import com.lsiproject.app.rentalagreementmicroservicev2.resilience.circuitbreaker.PropertyCircuitBreaker;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,86 +36,170 @@ public class PaymentReportService {
     private final PaymentRepository paymentRepository;
     private final PaymentReportRepository reportRepository;
     private final PropertyCircuitBreaker propertyCircuitBreaker;
+    private final ApplicationEventPublisher eventPublisher;
 
     public PaymentReportService(
             RentalContractRepository contractRepository,
             PaymentRepository paymentRepository,
             PaymentReportRepository reportRepository,
-            PropertyCircuitBreaker propertyCircuitBreaker) {
+            PropertyCircuitBreaker propertyCircuitBreaker,
+            ApplicationEventPublisher eventPublisher) {
         this.contractRepository = contractRepository;
         this.paymentRepository = paymentRepository;
         this.reportRepository = reportRepository;
         this.propertyCircuitBreaker = propertyCircuitBreaker;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
      * Generates a new report, saves it to DB, and returns the DTO.
+     * Full recomputation from all confirmed payments: the repair path for a report that drifted.
+     * The contract row is locked first, then the report: the lock order of every path that writes a report.
      */
     @Transactional
     public PaymentStatusDto generateAndSaveReport(Long contractId) {
-        // 1. Fetch Contract
-        RentalContract contract = contractRepository.findById(contractId)
+        // 1. Fetch and lock Contract
+        RentalContract contract = contractRepository.findByIdForUpdate(contractId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Contract not found"));
 
         // 2. Fetch Total Paid (Only CONFIRMED payments)
         Double totalPaid = paymentRepository.sumAmountByContractId(contract.getIdContract());
-        System.out.println("Total paid : " + totalPaid);
-        System.out.println(LocalDateTime.now());
         if (totalPaid == null) totalPaid = 0.0;
 
-        // 3. Get Rental Type (Daily/Monthly) from Microservice
-        String rentalType = "MONTHLY"; // Default
-        try {
-            rentalType = propertyCircuitBreaker.getTypeOfRental(contract.getPropertyId()).toString();
-        } catch (Exception e) {
-            System.err.println("Could not fetch rental type, defaulting to MONTHLY: " + e.getMessage());
-        }
+        // 3. Get Rental Type (Daily/Monthly), stored on the contract
+        TypeOfRental rentalType = resolveTypeOfRental(contract);
+
+        // 4. Compute and save the report
+        PaymentReport report = reportRepository.findByContractIdForUpdate(contractId).orElseGet(PaymentReport::new);
+        PaymentStatusDto statusDto = fillReport(report, contract, rentalType, totalPaid);
+        reportRepository.save(report);
+        eventPublisher.publishEvent(RentalActivityEvent.of(contract));
 
-        // 4. Waterfall Logic Setup
-        LocalDate current = contract.getStartDate();
-        LocalDate today = LocalDate.now();
-        Double rent = contract.getRentAmount();
-
-        int paidPeriods = 0;
-        int missedPeriods = 0;
-        List<LocalDate> missedDatesList = new ArrayList<>();
-        Double moneyPool = totalPaid;
-        Double totalExpected = 0.0;
-
-        // 5. The Loop (Stops at Today or Contract End)
-        while (!current.isAfter(today) && !current.isAfter(contract.getEndDate())) {
-
-            totalExpected += rent;
-
-            // Check if money covers this period (with small epsilon for float safety)
-            if (moneyPool >= rent - 0.01) {
-                paidPeriods++;
-                moneyPool -= rent;
-            } else {
-                missedPeriods++;
-                missedDatesList.add(current);
-                moneyPool = 0.0; // Pool empty
+        return statusDto;
+    }
+
+    /**
+     * Regenerates the reports of a chunk of contracts (bulk job path).
+     * The chunk's contracts are locked first, then their reports; three reads for the whole chunk
+     * (totals paid, existing reports), then batched writes.
+     * Contracts whose rental type is not stored yet are skipped: the job never calls the Property microservice.
+     *
+     * @return The number of reports regenerated.
+     */
+    @Transactional
+    public int regenerateReports(List<RentalContract> contracts) {
+        List<Long> contractIds = contracts.stream().map(RentalContract::getIdContract).toList();
+        contractRepository.findAllByIdForUpdate(contractIds);
+
+        Map<Long, Double> totalsPaid = paymentRepository.sumAmountByContractIds(contractIds).stream()
+                .collect(Collectors.toMap(PaymentRepository.ContractPaidTotal::getContractId,
+                        PaymentRepository.ContractPaidTotal::getTotalPaid));
+        Map<Long, PaymentReport> reports = reportRepository.findByContractIdsForUpdate(contractIds).stream()
+                .collect(Collectors.toMap(report -> report.getRentalContract().getIdContract(), Function.identity(),
+                        (first, duplicate) -> first));
+
+        List<PaymentReport> regenerated = new ArrayList<>();
+        for (RentalContract contract : contracts) {
+            if (contract.getTypeOfRental() == null) {
+                continue;
             }
+            PaymentReport report = reports.getOrDefault(contract.getIdContract(), new PaymentReport());
+            fillReport(report, contract, contract.getTypeOfRental(), totalsPaid.getOrDefault(contract.getIdContract(), 0.0));
+            regenerated.add(report);
+        }
+        reportRepository.saveAll(regenerated);
+        publishActivity(regenerated);
+        return regenerated.size();
+    }
 
-            // Move cursor
-            if ("DAILY".equalsIgnoreCase(rentalType)) {
-                current = current.plusDays(1);
-            } else {
-                current = current.plusMonths(1);
+    /**
+     * Incremental path: applies one confirmed payment to the contract's report, in the caller's transaction.
+     * The caller must hold the contract row lock until commit: the report row is locked after it and only its
+     * stored total moves; the payments are not re-read.
+     * A contract without a report yet gets it from the full sum (which already includes this payment), created
+     * under the contract lock so that two first payments cannot both insert one.
+     * Contracts whose rental type is not stored yet are left to the full regeneration.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyPayment(RentalContract contract, Double amount) {
+        TypeOfRental rentalType = contract.getTypeOfRental();
+        if (rentalType == null) {
+            return;
+        }
+
+        PaymentReport report = reportRepository.findByContractIdForUpdate(contract.getIdContract()).orElse(null);
+        Double totalPaid;
+        if (report != null) {
+            totalPaid = report.getTotalPaidSoFar() + amount;
+        } else {
+            report = new PaymentReport();
+            totalPaid = paymentRepository.sumAmountByContractId(contract.getIdContract());
+            if (totalPaid == null) totalPaid = 0.0;
+        }
+        fillReport(report, contract, rentalType, totalPaid);
+        reportRepository.save(report);
+    }
+
+    /**
+     * Day rollover: re-evaluates, from their stored total paid, the reports whose next due date is reached.
+     * Only those reports are touched; no payment is read. Their contracts are locked first, then the reports
+     * are read again under lock, so a payment applied meanwhile is not overwritten.
+     *
+     * @return The IDs of the reports rolled over, in ascending order (empty when none is left).
+     */
+    @Transactional
+    public List<Long> rollOverDueReports(Long afterReportId, int limit) {
+        List<PaymentReportRepository.ReportContractIds> due =
+                reportRepository.findDueForRollover(LocalDate.now(), afterReportId, PageRequest.of(0, limit));
+        if (due.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> contractIds = due.stream().map(PaymentReportRepository.ReportContractIds::getContractId).toList();
+        contractRepository.findAllByIdForUpdate(contractIds);
+        List<PaymentReport> reports = reportRepository.findByContractIdsForUpdate(contractIds);
+        for (PaymentReport report : reports) {
+            RentalContract contract = report.getRentalContract();
+            if (contract.getTypeOfRental() != null) {
+                fillReport(report, contract, contract.getTypeOfRental(), report.getTotalPaidSoFar());
             }
         }
+        publishActivity(reports);
+        return due.stream().map(PaymentReportRepository.ReportContractIds::getIdReport).toList();
+    }
+
+    // One event per owner / tenant whose reports changed (aggregated views are refreshed after commit)
+    private void publishActivity(List<PaymentReport> reports) {
+        reports.stream()
+                .map(PaymentReport::getRentalContract)
+                .map(RentalActivityEvent::of)
+                .distinct()
+                .forEach(eventPublisher::publishEvent);
+    }
 
-        // 6. Determine Status
+    /**
+     * Billing periods due up to today (or contract end), covered in order by the total paid.
+     * Fills the report entity and returns the matching DTO.
+     */
+    private PaymentStatusDto fillReport(PaymentReport report, RentalContract contract, TypeOfRental rentalType, Double totalPaid) {
+        BillingStatement statement = BillingCalendar.statement(
+                contract.getStartDate(),
+                contract.getEndDate(),
+                LocalDate.now(),
+                rentalType,
+                contract.getRentAmount(),
+                totalPaid);
+
+        int paidPeriods = Math.toIntExact(statement.coveredPeriods());
+        int missedPeriods = Math.toIntExact(statement.missedPeriods());
+        Double totalExpected = statement.expectedAmount();
+        List<LocalDate> missedDatesList = statement.missed().dates();
+
+        // Determine Status
         String status = "UP_TO_DATE";
         if (missedPeriods > 0) status = "LATE";
         if (contract.getState() == RentalContractState.DISPUTED) status = "DISPUTED";
 
-        // 7. Save Report to Database
-        PaymentReport report = reportRepository.findByRentalContract_IdContract(contractId);
-
-        if(report==null){
-            report = new PaymentReport();
-        }
         report.setRentalContract(contract);
         report.setTotalPaidSoFar(totalPaid);
         report.setTotalExpectedSoFar(totalExpected);
@@ -113,16 +207,12 @@ public class PaymentReportService {
         report.setMissedPeriods(missedPeriods);
         report.setStatus(status);
         report.setTenentID(contract.getTenantId());
+        report.setNextDueDate(statement.nextDueDate());
 
-        // Convert List<LocalDate> to comma-separated String
-        String missedDatesString = missedDatesList.stream()
-                .map(LocalDate::toString)
-                .collect(Collectors.joining(","));
-        report.setMissedDates(missedDatesString);
-
-        reportRepository.save(report);
+        // Missed periods stored as encoded ranges, not as a list of dates
+        report.setMissedPeriodRuns(MissedPeriodsCodec.encode(statement.missed()));
+        report.setLegacyMissedDates(null);
 
-        // 8. Return DTO
         return PaymentStatusDto.builder()
                 .totalPaidSoFar(totalPaid)
                 .totalExpectedSoFar(totalExpected)
@@ -134,6 +224,25 @@ public class PaymentReportService {
                 .build();
     }
 
+    /**
+     * Rental type of the contract. Contracts created before it was stored (not yet backfilled)
+     * resolve it once from the Property microservice and keep it.
+     * No silent MONTHLY default: if the property cannot be read, the report fails with 503.
+     */
+    private TypeOfRental resolveTypeOfRental(RentalContract contract) {
+        if (contract.getTypeOfRental() != null) {
+            return contract.getTypeOfRental();
+        }
+
+        PropertyResponseDTO property = propertyCircuitBreaker.getPropertyById(contract.getPropertyId());
+        if (property == null || property.typeOfRental() == null) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Rental type of contract " + contract.getIdContract() + " is unknown");
+        }
+        contract.setTypeOfRental(property.typeOfRental());
+        return property.typeOfRental();
+    }
+
     /**
      * Fetch all reports (Just for admin/debugging purposes)
      */
@@ -1,22 +1,34 @@
 package com.lsiproject.app.rentalagreementmicroservicev2.services;
 
+import com.lsiproject.app.rentalagreementmicroservicev2.dedup.TxHashIndex;
 import com.lsiproject.app.rentalagreementmicroservicev2.dtos.PaymentCreationDto;
 import com.lsiproject.app.rentalagreementmicroservicev2.dtos.PaymentDto;
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.PaymentHistoryPage;
 import com.lsiproject.app.rentalagreementmicroservicev2.entities.Payment;
 import com.lsiproject.app.rentalagreementmicroservicev2.entities.RentalContract;
 import com.lsiproject.app.rentalagreementmicroservicev2.enums.EventType;
 import com.lsiproject.app.rentalagreementmicroservicev2.enums.PaymentStatus;
+import com.lsiproject.app.rentalagreementmicroservicev2.events.RentalActivityEvent;
+import com.lsiproject.app.rentalagreementmicroservicev2.exceptions.DuplicatePaymentException;
 import com.lsiproject.app.rentalagreementmicroservicev2.mappers.PaymentMapper;
 import com.lsiproject.app.rentalagreementmicroservicev2.openFeignClients.PropertyMicroService;
 import com.lsiproject.app.rentalagreementmicroservicev2.repositories.PaymentRepository;
 import com.lsiproject.app.rentalagreementmicroservicev2.repositories.RentalContractRepository;
 import com.lsiproject.app.rentalagreementmicroservicev2.security.UserPrincipal;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -35,18 +47,36 @@ public class PaymentService {
     private final PaymentMapper paymentMapper;
     private final NotificationService notificationService;
     private final PropertyMicroService propertyMicroService;
+    private final PaymentReportService paymentReportService;
+    private final TxHashIndex txHashIndex;
+    private final PaymentLedgerService ledgerService;
+    private final RevenueRollupService revenueRollupService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int maxHistoryPageSize;
 
     public PaymentService(
             PropertyMicroService propertyMicroService,
             PaymentRepository paymentRepository,
             RentalContractRepository contractRepository,
             PaymentMapper paymentMapper,
-            NotificationService notificationService) {
+            NotificationService notificationService,
+            PaymentReportService paymentReportService,
+            TxHashIndex txHashIndex,
+            PaymentLedgerService ledgerService,
+            RevenueRollupService revenueRollupService,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${payments.history.max-page-size:500}") int maxHistoryPageSize) {
         this.paymentRepository = paymentRepository;
         this.contractRepository = contractRepository;
         this.paymentMapper = paymentMapper;
         this.notificationService = notificationService;
         this.propertyMicroService = propertyMicroService;
+        this.paymentReportService = paymentReportService;
+        this.txHashIndex = txHashIndex;
+        this.ledgerService = ledgerService;
+        this.revenueRollupService = revenueRollupService;
+        this.eventPublisher = eventPublisher;
+        this.maxHistoryPageSize = maxHistoryPageSize;
     }
 
     // --- CREATE Operation (Déclenché par l'événement blockchain RentPaid) ---
@@ -58,52 +88,149 @@ public class PaymentService {
      */
     @Transactional
     public PaymentDto createPayment(PaymentCreationDto dto) {
-        // 1. Vérification d'unicité (Audit)
-        if (paymentRepository.existsByTxHash(dto.getTxHash())) {
-            throw new ResponseStatusException(HttpStatus.CONFLICT, "Payment with transaction hash " + dto.getTxHash() + " already exists.");
-        }
+        // 1. Vérification d'unicité (Audit) : pas de requête pour un hash que le filtre sait nouveau
+        checkNotRecorded(dto.getTxHash());
 
         // 2. Vérification de l'existence du contrat
         RentalContract contract = contractRepository.findById(dto.getRentalContractId())
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Rental contract not found."));
 
+        return recordPayment(contract, dto);
+    }
+
+    /**
+     * Enregistre un paiement reçu par Kafka (RentPaidConsumer) : le contrat est désigné par son ID sur la blockchain.
+     * Mêmes règles et mêmes erreurs que createPayment.
+     * @param dto Les détails du paiement (rentalContractId est ignoré).
+     */
+    @Transactional
+    public PaymentDto createPaymentForAgreement(Long agreementIdOnChain, PaymentCreationDto dto) {
+        checkNotRecorded(dto.getTxHash());
+
+        RentalContract contract = contractRepository.findByAgreementIdOnChain(agreementIdOnChain)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "Rental contract not found for agreement " + agreementIdOnChain + "."));
+
+        return recordPayment(contract, dto);
+    }
+
+    private void checkNotRecorded(String txHash) {
+        if (txHashIndex.exists(txHash)) {
+            throw new DuplicatePaymentException(txHash);
+        }
+    }
 
+    private PaymentDto recordPayment(RentalContract contract, PaymentCreationDto dto) {
         if(contract.getState() != ACTIVE){
             throw new ResponseStatusException(HttpStatus.CONFLICT,
                     "Payment rejected: The contract is not in an ACTIVE state. Current state: " + contract.getState());
         }
 
+        // Rejet sans écriture dans le cas courant ; la règle fait foi dans l'UPDATE conditionnel (étape 4)
         if(contract.getPayedAmount() >= contract.getTotalAmountToPay()){
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
                     "Payment rejected: The contract is already fully paid.");
         }
-        else{
-            // 3. Création de l'entité
-            Payment payment = new Payment();
-            payment.setRentalContract(contract);
-            payment.setAmount(dto.getAmount());
-            payment.setTxHash(dto.getTxHash());
-            payment.setStatus(dto.getStatus() != null ? dto.getStatus() : PaymentStatus.CONFIRMED); // Par défaut CONFIRMED
-            payment.setTimestamp(dto.getTimestamp());
-            payment.setTenantId(dto.getTenantId());
 
-            contract.setPayedAmount(contract.getPayedAmount()+ dto.getAmount());
-            contractRepository.save(contract);
+        // 3. Création de l'entité
+        Payment payment = new Payment();
+        payment.setRentalContract(contract);
+        payment.setAmount(dto.getAmount());
+        payment.setTxHash(dto.getTxHash());
+        payment.setStatus(dto.getStatus() != null ? dto.getStatus() : PaymentStatus.CONFIRMED); // Par défaut CONFIRMED
+        payment.setTimestamp(dto.getTimestamp());
+        payment.setTenantId(dto.getTenantId());
+        boolean counted = payment.getStatus() != PaymentStatus.FAILED;
 
-            // 4. Sauvegarde
+        // 4. Montant payé incrémenté par la base, en premier : l'UPDATE prend le verrou exclusif de la ligne du contrat
+        // avant l'INSERT du paiement. Dans l'ordre inverse, l'INSERT pose un verrou partagé sur le contrat (clé
+        // étrangère) et deux paiements simultanés s'interbloquent en voulant tous deux le rendre exclusif.
+        // L'entité chargée n'est pas modifiée (elle n'est donc pas réécrite en entier au flush).
+        // Refusé si le contrat est entre-temps entièrement payé ou n'est plus ACTIVE : rien n'est écrit.
+        // Un paiement reçu déjà FAILED est conservé pour l'audit mais ne compte pas dans le montant payé.
+        if (counted && contractRepository.addPaymentIfPayable(contract.getIdContract(), dto.getAmount()) == 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Payment rejected: The contract is already fully paid.");
+        }
+
+        // 5. Sauvegarde, sous le verrou du contrat (la contrainte d'unicité du txHash reste la garantie finale :
+        // un doublon annule aussi l'incrément)
+        try {
             payment = paymentRepository.save(payment);
+        } catch (DataIntegrityViolationException e) {
+            throw new DuplicatePaymentException(dto.getTxHash());
+        }
+        txHashIndex.add(payment.getTxHash());
+
+        if (counted) {
+            // 6. Mise à jour incrémentale du rapport de paiement, sous le verrou du contrat (même transaction)
+            if (payment.getStatus() == PaymentStatus.CONFIRMED) {
+                paymentReportService.applyPayment(contract, payment.getAmount());
+            }
+            // 7. Écriture au grand livre, sous le verrou de ligne pris par l'UPDATE
+            ledgerService.post(contract.getIdContract(),
+                    List.of(PaymentLedgerService.Posting.payment(payment.getAmount(), payment.getTxHash())));
+            // 8. Cumuls de revenus du jour et du mois (paiements confirmés), sous le même verrou
+            if (payment.getStatus() == PaymentStatus.CONFIRMED) {
+                revenueRollupService.apply(contract,
+                        List.of(RevenueRollupService.RevenueDelta.payment(payment.getTimestamp(), payment.getAmount())));
+            }
+        }
+        eventPublisher.publishEvent(RentalActivityEvent.of(contract));
+
+        notificationService.notify(
+                EventType.PAYMENT_RECEIVED,
+                List.of(contract.getOwnerId()),
+                "Paiement reçu",
+                "Un nouveau paiement de " + dto.getAmount() + " a été effectué pour la propriété " + contract.getPropertyId(),
+                Map.of("tenantId", dto.getTenantId(), "amount", dto.getAmount() , "propertyId",contract.getPropertyId() )
+        );
+
+        return paymentMapper.toDto(payment);
+    }
+
+    // --- UPDATE Operation (Transaction échouée ou annulée par une réorganisation de la chaîne) ---
 
-            notificationService.notify(
-                    EventType.PAYMENT_RECEIVED,
-                    List.of(contract.getOwnerId()),
-                    "Paiement reçu",
-                    "Un nouveau paiement de " + dto.getAmount() + " a été effectué pour la propriété " + contract.getPropertyId(),
-                    Map.of("tenantId", dto.getTenantId(), "amount", dto.getAmount() , "propertyId",contract.getPropertyId() )
-            );
+    /**
+     * Annule un paiement : il passe à FAILED et sort du montant payé par une écriture REVERSAL au grand livre.
+     * Le paiement et les écritures précédentes sont conservés. Réservé à l'admin.
+     * @return Le DTO du paiement annulé.
+     */
+    @Transactional
+    public PaymentDto reversePayment(Long paymentId, UserPrincipal principal) {
+        if (!principal.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
+            throw new AccessDeniedException("Only an admin can reverse a payment.");
+        }
+
+        Payment payment = paymentRepository.findById(paymentId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Payment not found."));
+        PaymentStatus previousStatus = payment.getStatus();
+
+        // 1. Verrou de la ligne du contrat en premier, comme à l'enregistrement (contrat, puis paiement et rapport)
+        RentalContract contract = contractRepository.findByIdForUpdate(payment.getRentalContract().getIdContract())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Rental contract not found."));
+
+        // 2. Passage à FAILED par UPDATE conditionnel : une seule de deux annulations concurrentes passe
+        if (paymentRepository.markFailed(paymentId) == 0) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Payment " + paymentId + " is already FAILED.");
+        }
+        payment.setStatus(PaymentStatus.FAILED);
+
+        // 3. Montant payé décrémenté par la base, puis écriture d'annulation
+        contractRepository.subtractPayment(contract.getIdContract(), payment.getAmount());
+        ledgerService.post(contract.getIdContract(),
+                List.of(PaymentLedgerService.Posting.reversal(payment.getAmount(), payment.getTxHash())));
 
-            return paymentMapper.toDto(payment);
+        // 4. Un paiement confirmé était compté dans le rapport (retiré de son total, sous le verrou du contrat)
+        // et dans les cumuls de revenus
+        if (previousStatus == PaymentStatus.CONFIRMED) {
+            revenueRollupService.apply(contract,
+                    List.of(RevenueRollupService.RevenueDelta.reversal(payment.getTimestamp(), payment.getAmount())));
+            paymentReportService.applyPayment(contract, -payment.getAmount());
         }
+        eventPublisher.publishEvent(RentalActivityEvent.of(contract));
 
+        return paymentMapper.toDto(payment);
     }
 
     // --- READ Operations ---
@@ -127,9 +254,13 @@ public class PaymentService {
     }
 
     /**
-     * Récupère l'historique de paiement pour un contrat spécifique, avec vérification d'autorisation.
+     * Récupère une page de l'historique de paiement d'un contrat (du plus récent au plus ancien),
+     * avec vérification d'autorisation. Pagination par clé : une page coûte la même chose quelle que soit
+     * sa position et la longueur de l'historique.
+     * @param cursor Curseur renvoyé avec la page précédente (null pour la première page).
+     * @param size Nombre de paiements par page.
      */
-    public List<PaymentDto> getPaymentHistoryByContract(Long contractId, UserPrincipal principal) {
+    public PaymentHistoryPage getPaymentHistoryByContract(Long contractId, String cursor, int size, UserPrincipal principal) {
         RentalContract contract = contractRepository.findById(contractId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Rental contract not found."));
 
@@ -140,9 +271,49 @@ public class PaymentService {
             throw new AccessDeniedException("User is not authorized to view this payment history.");
         }
 
-        return paymentMapper.toDtoList(contract.getPaymentHistory());
+        if (size < 1 || size > maxHistoryPageSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Page size must be between 1 and " + maxHistoryPageSize + ".");
+        }
+
+        // Une ligne de plus que demandé : indique s'il existe une page suivante, sans requête de comptage
+        PageRequest limit = PageRequest.of(0, size + 1);
+        List<PaymentDto> payments;
+        if (cursor == null || cursor.isBlank()) {
+            payments = paymentRepository.findHistoryFirstPage(contractId, limit);
+        } else {
+            HistoryCursor position = HistoryCursor.decode(cursor);
+            payments = paymentRepository.findHistoryPageBefore(contractId, position.timestamp(), position.idPayment(), limit);
+        }
+
+        if (payments.size() <= size) {
+            return new PaymentHistoryPage(payments, null);
+        }
+        payments = payments.subList(0, size);
+        PaymentDto last = payments.get(size - 1);
+        return new PaymentHistoryPage(payments, new HistoryCursor(last.getTimestamp(), last.getIdPayment()).encode());
     }
 
+    /**
+     * Position dans l'historique : dernier paiement de la page précédente.
+     * Opaque pour le client (Base64 URL de "timestamp|idPayment").
+     */
+    private record HistoryCursor(LocalDateTime timestamp, Long idPayment) {
 
+        String encode() {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((timestamp + "|" + idPayment).getBytes(StandardCharsets.UTF_8));
+        }
 
-}
\ No newline at end of file
+        static HistoryCursor decode(String cursor) {
+            try {
+                String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = decoded.indexOf('|');
+                return new HistoryCursor(LocalDateTime.parse(decoded.substring(0, separator)),
+                        Long.parseLong(decoded.substring(separator + 1)));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor.");
+            }
+        }
+    }
+}
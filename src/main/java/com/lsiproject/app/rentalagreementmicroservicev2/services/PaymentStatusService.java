@@ -0,0 +1,124 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.PaymentStatusDto;
+import com.lsiproject.app.rentalagreementmicroservicev2.entities.PaymentReport;
+import com.lsiproject.app.rentalagreementmicroservicev2.events.RentalActivityEvent;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.PaymentReportRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+
+/**
+ * Read side of the payment status: serves the latest PaymentStatusDto of a contract without writing anything.
+ *
+ * Lookup order: cache, then the persisted report (one fetch-join query), then a full generation
+ * (only when the contract has no report yet, or when a refresh is explicitly requested).
+ * The entry is dropped after commit of any payment, state change or report update on the contract
+ * (RentalActivityEvent); the TTL only bounds a put racing with a concurrent commit.
+ */
+@Service
+public class PaymentStatusService {
+
+    /**
+     * A status with its entity tag, computed once when the entry is cached.
+     */
+    public record CachedPaymentStatus(PaymentStatusDto status, String etag) {
+    }
+
+    private final PaymentReportRepository reportRepository;
+    private final PaymentReportService reportService;
+    private final Cache<Long, CachedPaymentStatus> statuses;
+
+    public PaymentStatusService(
+            PaymentReportRepository reportRepository,
+            PaymentReportService reportService,
+            MeterRegistry meterRegistry,
+            @Value("${payment-status.cache.max-size:50000}") long maxSize,
+            @Value("${payment-status.cache.ttl:10m}") Duration ttl) {
+        this.reportRepository = reportRepository;
+        this.reportService = reportService;
+        this.statuses = CaffeineCacheMetrics.monitor(meterRegistry,
+                Caffeine.newBuilder()
+                        .maximumSize(maxSize)
+                        .expireAfterWrite(ttl)
+                        .recordStats()
+                        .<Long, CachedPaymentStatus>build(),
+                "paymentStatusCache");
+    }
+
+    /**
+     * @param refresh Recompute and save the report first (same as POST /api/reports/generate).
+     */
+    public CachedPaymentStatus getStatus(Long contractId, boolean refresh) {
+        if (!refresh) {
+            // The loader only reads: an invalidation arriving meanwhile waits for it, then drops the entry
+            CachedPaymentStatus cached = statuses.get(contractId, this::loadPersistedStatus);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        // Generation publishes its own RentalActivityEvent: it must run outside the cache's compute
+        CachedPaymentStatus generated = withEtag(contractId, reportService.generateAndSaveReport(contractId));
+        statuses.put(contractId, generated);
+        return generated;
+    }
+
+    // Null when the contract has no report yet (not cached)
+    private CachedPaymentStatus loadPersistedStatus(Long contractId) {
+        return reportRepository.findWithContractByContractId(contractId)
+                .map(report -> withEtag(contractId, toStatusDto(report)))
+                .orElse(null);
+    }
+
+    private static PaymentStatusDto toStatusDto(PaymentReport report) {
+        return PaymentStatusDto.builder()
+                .totalPaidSoFar(report.getTotalPaidSoFar())
+                .totalExpectedSoFar(report.getTotalExpectedSoFar())
+                .paidPeriods(report.getPaidPeriods() != null ? report.getPaidPeriods() : 0)
+                .missedPeriods(report.getMissedPeriods() != null ? report.getMissedPeriods() : 0)
+                .missedDates(report.getMissedDates())
+                .status(report.getStatus())
+                .tenentId(report.getTenentID())
+                .build();
+    }
+
+    // Content-based tag: a regeneration that changes nothing keeps answering 304.
+    // SHA-256 of every field, so that two different statuses cannot share a tag (a hashCode can collide)
+    private static CachedPaymentStatus withEtag(Long contractId, PaymentStatusDto status) {
+        String content = String.join("|",
+                String.valueOf(status.getTotalPaidSoFar()),
+                String.valueOf(status.getTotalExpectedSoFar()),
+                String.valueOf(status.getPaidPeriods()),
+                String.valueOf(status.getMissedPeriods()),
+                String.valueOf(status.getMissedDates()),
+                String.valueOf(status.getStatus()),
+                String.valueOf(status.getTenentId()));
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            return new CachedPaymentStatus(status, "\"" + contractId + "-" + HexFormat.of().formatHex(digest) + "\"");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform provides SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Drops the contract's cached status once the change is committed (immediately when published outside a transaction).
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRentalActivity(RentalActivityEvent event) {
+        if (event.contractId() != null) {
+            statuses.invalidate(event.contractId());
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.OwnerPortfolioDto;
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.RentalContractState;
+import com.lsiproject.app.rentalagreementmicroservicev2.events.RentalActivityEvent;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.PaymentReportRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.PaymentRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.RentalContractRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Owner portfolio view: totals across all the owner's contracts.
+ *
+ * Computed with three grouped aggregate queries (contracts by state, confirmed payments, payment reports):
+ * no entity is loaded, so the cost stays in the database whatever the portfolio size.
+ * Cached per owner; the entry is dropped after commit of any payment, state change or report update
+ * on one of the owner's contracts (RentalActivityEvent), the TTL only bounds the drift of the daily rollover.
+ */
+@Service
+public class PortfolioReportService {
+
+    private final RentalContractRepository contractRepository;
+    private final PaymentRepository paymentRepository;
+    private final PaymentReportRepository reportRepository;
+    private final Cache<Long, OwnerPortfolioDto> portfolios;
+
+    public PortfolioReportService(
+            RentalContractRepository contractRepository,
+            PaymentRepository paymentRepository,
+            PaymentReportRepository reportRepository,
+            MeterRegistry meterRegistry,
+            @Value("${portfolio.cache.max-size:10000}") long maxSize,
+            @Value("${portfolio.cache.ttl:10m}") Duration ttl) {
+        this.contractRepository = contractRepository;
+        this.paymentRepository = paymentRepository;
+        this.reportRepository = reportRepository;
+        this.portfolios = CaffeineCacheMetrics.monitor(meterRegistry,
+                Caffeine.newBuilder()
+                        .maximumSize(maxSize)
+                        .expireAfterWrite(ttl)
+                        .recordStats()
+                        .<Long, OwnerPortfolioDto>build(),
+                "portfolioCache");
+    }
+
+    public OwnerPortfolioDto getPortfolio(Long ownerId) {
+        return portfolios.get(ownerId, this::computePortfolio);
+    }
+
+    private OwnerPortfolioDto computePortfolio(Long ownerId) {
+        Map<RentalContractState, Long> contractsByState = new EnumMap<>(RentalContractState.class);
+        long totalContracts = 0;
+        double totalContractAmount = 0.0;
+        for (RentalContractRepository.StateAggregate aggregate : contractRepository.aggregateByStateForOwner(ownerId)) {
+            contractsByState.put(aggregate.getState(), aggregate.getContracts());
+            totalContracts += aggregate.getContracts();
+            totalContractAmount += aggregate.getTotalAmount();
+        }
+
+        Double totalPaid = paymentRepository.sumConfirmedAmountByOwnerId(ownerId);
+        PaymentReportRepository.OwnerReportAggregate reports = reportRepository.aggregateForOwner(ownerId);
+
+        return new OwnerPortfolioDto(
+                ownerId,
+                totalContracts,
+                contractsByState,
+                contractsByState.getOrDefault(RentalContractState.DISPUTED, 0L),
+                totalContractAmount,
+                reports.getTotalExpected(),
+                totalPaid != null ? totalPaid : 0.0,
+                reports.getLateContracts(),
+                reports.getMissedPeriods(),
+                LocalDateTime.now());
+    }
+
+    /**
+     * Drops the owner's cached portfolio once the change is committed (immediately when published outside a transaction).
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRentalActivity(RentalActivityEvent event) {
+        if (event.ownerId() != null) {
+            portfolios.invalidate(event.ownerId());
+        }
+    }
+}
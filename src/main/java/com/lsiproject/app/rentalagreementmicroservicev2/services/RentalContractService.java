@@ -1,5 +1,6 @@
 package com.lsiproject.app.rentalagreementmicroservicev2.services;
 
+import com.lsiproject.app.rentalagreementmicroservicev2.dedup.TxHashIndex;
 import com.lsiproject.app.rentalagreementmicroservicev2.dtos.KeyDeliveryUpdateDto;
 import com.lsiproject.app.rentalagreementmicroservicev2.dtos.PropertyResponseDTO;
 import com.lsiproject.app.rentalagreementmicroservicev2.dtos.RentalContractCreationDto;
@@ -9,13 +10,16 @@ import com.lsiproject.app.rentalagreementmicroservicev2.entities.RentalContract;
 import com.lsiproject.app.rentalagreementmicroservicev2.enums.EventType;
 import com.lsiproject.app.rentalagreementmicroservicev2.enums.PaymentStatus;
 import com.lsiproject.app.rentalagreementmicroservicev2.enums.RentalContractState;
+import com.lsiproject.app.rentalagreementmicroservicev2.events.RentalActivityEvent;
 import com.lsiproject.app.rentalagreementmicroservicev2.mappers.RentalContractMapper;
 import com.lsiproject.app.rentalagreementmicroservicev2.repositories.PaymentRepository;
 import com.lsiproject.app.rentalagreementmicroservicev2.repositories.RentalContractRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.resilience.batch.PropertyBatchLoader;
 import com.lsiproject.app.rentalagreementmicroservicev2.resilience.circuitbreaker.PropertyCircuitBreaker;
 import com.lsiproject.app.rentalagreementmicroservicev2.security.UserPrincipal;
 import feign.FeignException;
 import jakarta.transaction.Transactional;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
@@ -38,20 +42,35 @@ public class RentalContractService {
     private final NotificationService notificationService;
     private final PaymentRepository  paymentRepository;
     private final DisputeSummaryService disputeSummaryService;
+    private final PropertyBatchLoader propertyBatchLoader;
+    private final TxHashIndex txHashIndex;
+    private final PaymentLedgerService ledgerService;
+    private final RevenueRollupService revenueRollupService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public RentalContractService(
             DisputeSummaryService disputeSummaryService,
             PaymentRepository  paymentRepository,
             RentalContractRepository contractRepository,
             PropertyCircuitBreaker propertyCircuitBreaker,
+            PropertyBatchLoader propertyBatchLoader,
             RentalContractMapper contractMapper,
-            NotificationService notificationService) {
+            NotificationService notificationService,
+            TxHashIndex txHashIndex,
+            PaymentLedgerService ledgerService,
+            RevenueRollupService revenueRollupService,
+            ApplicationEventPublisher eventPublisher) {
         this.contractRepository = contractRepository;
         this.contractMapper = contractMapper;
         this.propertyCircuitBreaker = propertyCircuitBreaker;
+        this.propertyBatchLoader = propertyBatchLoader;
         this.notificationService = notificationService;
         this.paymentRepository = paymentRepository;
         this.disputeSummaryService = disputeSummaryService;
+        this.txHashIndex = txHashIndex;
+        this.ledgerService = ledgerService;
+        this.revenueRollupService = revenueRollupService;
+        this.eventPublisher = eventPublisher;
     }
 
     // =========================================================================================
@@ -79,8 +98,9 @@ public class RentalContractService {
 
     /**
      * Récupère tous les contrats d'un utilisateur (en tant que propriétaire ou locataire).
+     * @param includeProperty Si vrai, enrichit chaque contrat avec sa propriété (un seul appel groupé pour toute la liste).
      */
-    public List<RentalContractDto> getAllContractsForUser(UserPrincipal principal) {
+    public List<RentalContractDto> getAllContractsForUser(UserPrincipal principal, boolean includeProperty) {
 
         // Trouver les contrats où l'utilisateur est propriétaire
         List<RentalContract> ownerContracts = contractRepository.findByOwnerId(principal.getIdUser());
@@ -89,6 +109,12 @@ public class RentalContractService {
 
         ownerContracts.addAll(tenantContracts);
 
+        if (includeProperty) {
+            Map<Long, PropertyResponseDTO> properties = propertyBatchLoader.loadAll(
+                    ownerContracts.stream().map(RentalContract::getPropertyId).toList());
+            return contractMapper.toDtoList(ownerContracts, properties);
+        }
+
         return contractMapper.toDtoList(ownerContracts);
     }
 
@@ -129,9 +155,9 @@ public class RentalContractService {
         contract.setStartDate(dto.getStartDate());
         contract.setEndDate(dto.getEndDate());
 
-        String rentalType = property.typeOfRental().toString();
-
-        Double TotalAmountToPay = contract.calculateTotalAmount(contract.getStartDate(), contract.getEndDate(), contract.getRentAmount(),rentalType );
+        // Le type de location est conservé sur le contrat : les rapports n'ont plus besoin du microservice Property
+        contract.setTypeOfRental(property.typeOfRental());
+        Double TotalAmountToPay = contract.calculateTotalAmount(contract.getStartDate(), contract.getEndDate(), contract.getRentAmount(), contract.getTypeOfRental());
 
         contract.setTotalAmountToPay(TotalAmountToPay);
         contract.setPayedAmount(contract.getRentAmount());
@@ -166,6 +192,13 @@ public class RentalContractService {
         payment.setTenantId(contract.getTenantId());
 
         paymentRepository.save(payment);
+        txHashIndex.add(payment.getTxHash());
+        // Ouvre le grand livre du contrat (le montant payé initial est ce paiement)
+        ledgerService.post(contract.getIdContract(),
+                List.of(PaymentLedgerService.Posting.payment(payment.getAmount(), payment.getTxHash())));
+        revenueRollupService.apply(contract,
+                List.of(RevenueRollupService.RevenueDelta.payment(payment.getTimestamp(), payment.getAmount())));
+        eventPublisher.publishEvent(RentalActivityEvent.of(contract));
 
 
         return contractMapper.toDto(contract);
@@ -226,6 +259,7 @@ public class RentalContractService {
 
         // 4. Sauvegarde et retour
         contract = contractRepository.save(contract);
+        eventPublisher.publishEvent(RentalActivityEvent.of(contract));
         return contractMapper.toDto(contract);
     }
 
@@ -268,6 +302,7 @@ public class RentalContractService {
 
         // 4. Sauvegarde
         contract = contractRepository.save(contract);
+        eventPublisher.publishEvent(RentalActivityEvent.of(contract));
 
         propertyCircuitBreaker.updateAvailabilityToTrue(property.idProperty());
 
@@ -7,10 +7,18 @@ import com.lsiproject.app.rentalagreementmicroservicev2.enums.EventType;
 import com.lsiproject.app.rentalagreementmicroservicev2.enums.RentalRequestStatus;
 import com.lsiproject.app.rentalagreementmicroservicev2.mappers.RentalRequestMapper;
 import com.lsiproject.app.rentalagreementmicroservicev2.repositories.RentalRequestRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.resilience.batch.PropertyBatchLoader;
 import com.lsiproject.app.rentalagreementmicroservicev2.resilience.circuitbreaker.PropertyCircuitBreaker;
 import com.lsiproject.app.rentalagreementmicroservicev2.security.UserPrincipal;
 import feign.FeignException;
 import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -21,6 +29,9 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Arrays;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import static com.lsiproject.app.rentalagreementmicroservicev2.enums.RentalRequestStatus.ACCEPTED;
 import static com.lsiproject.app.rentalagreementmicroservicev2.enums.RentalRequestStatus.PENDING;
@@ -31,20 +42,31 @@ import static com.lsiproject.app.rentalagreementmicroservicev2.enums.RentalReque
 @Service
 public class RentalRequestService {
 
+    private static final Logger log = LoggerFactory.getLogger(RentalRequestService.class);
+
     private final RentalRequestRepository rentalRequestRepository;
     private final RentalRequestMapper rentalRequestMapper;
     private final PropertyCircuitBreaker propertyCircuitBreaker;
     private final NotificationService notificationService;
+    private final PropertyBatchLoader propertyBatchLoader;
+    private final AsyncTaskExecutor remoteCallExecutor;
+    private final int maxPageSize;
 
     public RentalRequestService(PropertyCircuitBreaker propertyCircuitBreaker,
+                                PropertyBatchLoader propertyBatchLoader,
                                 RentalRequestRepository rentalRequestRepository,
                                 RentalRequestMapper rentalRequestMapper,
-                                NotificationService notificationService
+                                NotificationService notificationService,
+                                @Qualifier("remoteCallExecutor") AsyncTaskExecutor remoteCallExecutor,
+                                @Value("${rental-requests.max-page-size:100}") int maxPageSize
     ) {
         this.rentalRequestRepository = rentalRequestRepository;
         this.rentalRequestMapper = rentalRequestMapper;
         this.propertyCircuitBreaker = propertyCircuitBreaker;
+        this.propertyBatchLoader = propertyBatchLoader;
         this.notificationService = notificationService;
+        this.remoteCallExecutor = remoteCallExecutor;
+        this.maxPageSize = maxPageSize;
     }
     /**
      * Crée une nouvelle demande de location (Étape 1).
@@ -55,29 +77,36 @@ public class RentalRequestService {
     public RentalRequestDto createRequest(@Valid @RequestBody RentalRequestCreationDto dto, UserPrincipal principal) {
 
 
+        Long propertyId = dto.getPropertyId();
+        Long tenantId = principal.getIdUser();
+
+        // Les trois vérifications sont indépendantes : elles sont lancées en parallèle
+        // (latence ≈ max des trois au lieu de leur somme).
+        CompletableFuture<PropertyResponseDTO> propertyLookup = CompletableFuture.supplyAsync(
+                () -> propertyCircuitBreaker.getPropertyById(propertyId), remoteCallExecutor);
+        CompletableFuture<Boolean> availabilityCheck = CompletableFuture.supplyAsync(
+                () -> propertyCircuitBreaker.isPropertyAvailable(propertyId), remoteCallExecutor);
+        //check if the user already requested this property
+        CompletableFuture<Boolean> duplicateCheck = CompletableFuture.supplyAsync(
+                () -> rentalRequestRepository.existsByPropertyIdAndTenantIdAndStatusIn(
+                        propertyId,
+                        tenantId,
+                        new ArrayList<>(Arrays.asList(RentalRequestStatus.PENDING, RentalRequestStatus.ACCEPTED))
+                ), remoteCallExecutor);
+
         PropertyResponseDTO property;
 
         try {
-            property = propertyCircuitBreaker.getPropertyById(dto.getPropertyId());
+            awaitAll(propertyLookup, availabilityCheck, duplicateCheck);
+            property = propertyLookup.join();
 
             //check if the property is available
-            boolean propertyIsAvailable = propertyCircuitBreaker.isPropertyAvailable(property.idProperty());
-
-            if(!propertyIsAvailable){
+            if(!availabilityCheck.join()){
                 throw new ResponseStatusException(HttpStatus.CONFLICT, "this property is not available for rental");
 
             }
 
-            //check if the user already requested this property
-            boolean propertyExists = rentalRequestRepository.existsByPropertyIdAndTenantIdAndStatusIn(
-                    property.idProperty(),
-                    principal.getIdUser(),
-                    new ArrayList<>(Arrays.asList(RentalRequestStatus.PENDING, RentalRequestStatus.ACCEPTED))
-            );
-
-
-
-            if(propertyExists){
+            if(duplicateCheck.join()){
                 throw new ResponseStatusException(HttpStatus.CONFLICT, "this property is aready requested for rental");
             }
         } catch (FeignException.NotFound e) {
@@ -151,15 +180,34 @@ public class RentalRequestService {
     }
 
 
-    public List<RentalRequestDto> getAllRequests(UserPrincipal principal){
+    /**
+     * Récupère une page de toutes les demandes, par ID croissant (admin).
+     * @param page Numéro de la page (à partir de 0).
+     * @param size Nombre de demandes par page.
+     * @param includeProperty Si vrai, enrichit chaque demande avec sa propriété (un seul appel groupé pour la page).
+     */
+    public List<RentalRequestDto> getAllRequests(UserPrincipal principal, int page, int size, boolean includeProperty){
         if(!principal.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN")))
         {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN,"the only one who can see all the requests is admin");
         }
 
+        if (page < 0 || size < 1 || size > maxPageSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Page must be positive and page size between 1 and " + maxPageSize + ".");
+        }
 
+        List<RentalRequest> requests = rentalRequestRepository
+                .findAll(PageRequest.of(page, size, Sort.by("idRequest")))
+                .getContent();
 
-        return rentalRequestMapper.toDtoList(rentalRequestRepository.findAll());
+        if (includeProperty) {
+            Map<Long, PropertyResponseDTO> properties = propertyBatchLoader.loadAll(
+                    requests.stream().map(RentalRequest::getPropertyId).toList());
+            return rentalRequestMapper.toDtoList(requests, properties);
+        }
+
+        return rentalRequestMapper.toDtoList(requests);
     }
     /**
      * Met à jour le statut d'une demande (Étape 2).
@@ -188,14 +236,23 @@ public class RentalRequestService {
 
         // 1. Logique métier pour l'acceptation (Étape 2)
         if (dto.getStatus() == ACCEPTED) { //if the owner accepts the tenet, we should prebent other people from requesting the property
-            // Règle métier: Si une requête est ACCEPTED, toutes les autres requêtes PENDING pour cette
-            // propriété doivent être REJECTED.
-            rejectOtherPendingRequests(request.getPropertyId(), requestId);
+            //make the property unnavailable for rental (appel distant lancé en parallèle du rejet en base)
+            CompletableFuture<Void> availabilityUpdate = CompletableFuture.runAsync(
+                    () -> propertyCircuitBreaker.updateAvailabilityToFalse(property.idProperty()), remoteCallExecutor);
 
+            // Règle métier: Si une requête est ACCEPTED, toutes les autres requêtes PENDING pour cette
+            // propriété doivent être REJECTED. Reste sur le thread appelant (transaction en cours).
+            List<Long> rejectedTenantIds;
+            try {
+                rejectedTenantIds = rejectOtherPendingRequests(request.getPropertyId(), requestId);
+            } catch (RuntimeException e) {
+                restoreAvailabilityIfUpdated(availabilityUpdate, property.idProperty());
+                throw e;
+            }
 
+            awaitAll(availabilityUpdate);
 
-            //make the property unnavailable for rental
-            propertyCircuitBreaker.updateAvailabilityToFalse(property.idProperty() );
+            notifyRejectedTenants(property, rejectedTenantIds);
 
             notificationService.notify(
                     EventType.RENTAL_REQUEST_ACCEPTED,
@@ -227,8 +284,9 @@ public class RentalRequestService {
      * Fonction utilitaire pour rejeter les autres demandes en attente pour la même propriété.
      * @param propertyId ID de la propriété.
      * @param acceptedRequestId L'ID de la demande acceptée.
+     * @return Les IDs des locataires dont la demande a été rejetée.
      */
-    private void rejectOtherPendingRequests(Long propertyId, Long acceptedRequestId) {
+    private List<Long> rejectOtherPendingRequests(Long propertyId, Long acceptedRequestId) {
         List<RentalRequest> pendingRequests = rentalRequestRepository.findByPropertyIdAndStatus(
                 propertyId, PENDING);
 
@@ -243,18 +301,73 @@ public class RentalRequestService {
             }
         }
 
-        // AJOUT : Notification groupée pour les autres candidats
+        return rejectedTenantIds;
+    }
+
+    /**
+     * Notification groupée pour les autres candidats.
+     * La propriété déjà lue par l'appelant est réutilisée (pas de second appel distant).
+     */
+    private void notifyRejectedTenants(PropertyResponseDTO property, List<Long> rejectedTenantIds) {
         if (!rejectedTenantIds.isEmpty()) {
-            PropertyResponseDTO prop = propertyCircuitBreaker.getPropertyById(propertyId);
             notificationService.notify(
                     EventType.RENTAL_REQUEST_REJECTED,
                     rejectedTenantIds,
                     "Propriété non disponible",
-                    "La propriété '" + prop.title() + "' n'est malheureusement plus disponible.",
-                    Map.of("propertyId", propertyId)
+                    "La propriété '" + property.title() + "' n'est malheureusement plus disponible.",
+                    Map.of("propertyId", property.idProperty())
             );
         }
+    }
+
+    /**
+     * Attend toutes les branches lancées en parallèle.
+     * Dès qu'une branche échoue, les autres sont annulées (celles encore en file ne s'exécutent pas)
+     * et l'exception d'origine est relancée telle quelle, pour que les catch existants
+     * (FeignException.NotFound, ResponseStatusException) continuent de s'appliquer.
+     */
+    private static void awaitAll(CompletableFuture<?>... branches) {
+        CompletableFuture<Void> firstFailureOrAll = new CompletableFuture<>();
+        for (CompletableFuture<?> branch : branches) {
+            branch.whenComplete((result, error) -> {
+                if (error != null) {
+                    firstFailureOrAll.completeExceptionally(error);
+                }
+            });
+        }
+        CompletableFuture.allOf(branches).thenRun(() -> firstFailureOrAll.complete(null));
+
+        try {
+            firstFailureOrAll.join();
+        } catch (CompletionException | CancellationException e) {
+            for (CompletableFuture<?> branch : branches) {
+                branch.cancel(true);
+            }
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, cause.getMessage(), cause);
+        }
+    }
 
+    /**
+     * Compensation quand le rejet en base échoue alors que la propriété a déjà été rendue indisponible
+     * par la branche parallèle : la transaction va être annulée, la propriété doit redevenir disponible.
+     */
+    private void restoreAvailabilityIfUpdated(CompletableFuture<Void> availabilityUpdate, Long propertyId) {
+        boolean updated = availabilityUpdate.handle((result, error) -> error == null).join();
+        if (updated) {
+            try {
+                propertyCircuitBreaker.updateAvailabilityToTrue(propertyId);
+            } catch (RuntimeException e) {
+                log.error("Could not restore availability of property {} after failed acceptance: {}",
+                        propertyId, e.getMessage());
+            }
+        }
     }
 
     /**
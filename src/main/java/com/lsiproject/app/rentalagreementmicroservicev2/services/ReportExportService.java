@@ -0,0 +1,163 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.ReportFeatureRow;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.PaymentReportRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+/**
+ * Streaming export of the report + dispute feature set (AI training, admin dashboards).
+ *
+ * Rows are read through a forward-only cursor and written as they arrive: memory stays constant whatever the
+ * table size (one row in flight, plus the writer buffer). Each export holds a database connection for its
+ * whole duration, so the number of concurrent exports is bounded (429 beyond).
+ */
+@Service
+public class ReportExportService {
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private static final String CSV_HEADER = "reportId,contractId,tenantId,contractState,typeOfRental,rentAmount,"
+            + "totalPaidSoFar,totalExpectedSoFar,paidPeriods,missedPeriods,status,reportUpdatedAt,"
+            + "totalDisputes,daysSinceLastDispute,lastDisputeDate";
+
+    private final PaymentReportRepository reportRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectWriter rowWriter;
+    private final Semaphore exportSlots;
+    private final int flushEveryRows;
+    private final Counter exportedRows;
+
+    public ReportExportService(
+            PaymentReportRepository reportRepository,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${export.reports.max-concurrent:2}") int maxConcurrentExports,
+            @Value("${export.reports.flush-every-rows:1000}") int flushEveryRows) {
+        this.reportRepository = reportRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.rowWriter = objectMapper.writerFor(ReportFeatureRow.class);
+        this.exportSlots = new Semaphore(maxConcurrentExports);
+        this.flushEveryRows = flushEveryRows;
+        this.exportedRows = Counter.builder("report.export.rows")
+                .description("Rows written by the report feature export")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the body that streams the rows. The export slot is taken when the body starts writing and released
+     * once it is done, so a body that is never written (client gone, request failed before streaming) holds none.
+     * Beyond the limit the body fails with 429 before writing anything.
+     *
+     * @param since Only rows whose report or dispute summary changed after this instant (all rows if null).
+     */
+    public StreamingResponseBody export(Format format, LocalDateTime since) {
+        return outputStream -> {
+            if (!exportSlots.tryAcquire()) {
+                throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many exports in progress");
+            }
+            try {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+                readOnlyTransaction.executeWithoutResult(status -> {
+                    try (Stream<ReportFeatureRow> rows = reportRepository.streamFeatureRows(since)) {
+                        write(format, rows.iterator(), writer);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                writer.flush();
+            } finally {
+                exportSlots.release();
+            }
+        };
+    }
+
+    private void write(Format format, Iterator<ReportFeatureRow> rows, Writer writer) throws IOException {
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+        long written = 0;
+        while (rows.hasNext()) {
+            ReportFeatureRow row = rows.next();
+            if (format == Format.CSV) {
+                writeCsv(row, writer);
+            } else {
+                writer.write(rowWriter.writeValueAsString(row));
+            }
+            writer.write('\n');
+
+            if (++written % flushEveryRows == 0) {
+                // Pushes the rows to the client as they come, instead of buffering the whole response
+                writer.flush();
+                exportedRows.increment(flushEveryRows);
+            }
+        }
+        exportedRows.increment(written % flushEveryRows);
+    }
+
+    private static void writeCsv(ReportFeatureRow row, Writer writer) throws IOException {
+        Object[] values = {
+                row.reportId(), row.contractId(), row.tenantId(), row.contractState(), row.typeOfRental(),
+                row.rentAmount(), row.totalPaidSoFar(), row.totalExpectedSoFar(), row.paidPeriods(),
+                row.missedPeriods(), row.status(), row.reportUpdatedAt(),
+                row.totalDisputes(), row.daysSinceLastDispute(), row.lastDisputeDate()
+        };
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (values[i] != null) {
+                writer.write(csvField(values[i].toString()));
+            }
+        }
+    }
+
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
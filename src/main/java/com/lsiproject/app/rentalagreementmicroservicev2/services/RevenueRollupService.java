@@ -0,0 +1,182 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.services;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.RevenuePointDto;
+import com.lsiproject.app.rentalagreementmicroservicev2.entities.RentalContract;
+import com.lsiproject.app.rentalagreementmicroservicev2.entities.RevenueRollup;
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.RevenueGranularity;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.PaymentRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.RentalContractRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.RevenueRollupRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.security.UserPrincipal;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Rent collected per day and per month (revenue_rollups), by contract, property and owner.
+ *
+ * Rollups move in the transaction of each confirmed payment or reversal, under the contract row lock the payment
+ * path already holds: writers of a contract's rows are serialized, so "update, insert if missing" cannot race.
+ * Queries read the rollups only, through the (filter, granularity, period_start) indexes: a year of monthly data
+ * is 12 rows per contract, whatever the number of payments.
+ */
+@Service
+public class RevenueRollupService {
+
+    /**
+     * Change to the revenue of one day.
+     *
+     * @param payments Number of confirmed payments added (negative for a reversal).
+     */
+    public record RevenueDelta(LocalDate day, double amount, long payments) {
+
+        public static RevenueDelta payment(LocalDateTime timestamp, double amount) {
+            return new RevenueDelta(timestamp.toLocalDate(), amount, 1);
+        }
+
+        public static RevenueDelta reversal(LocalDateTime timestamp, double amount) {
+            return new RevenueDelta(timestamp.toLocalDate(), -amount, -1);
+        }
+    }
+
+    private record PeriodKey(Long contractId, RevenueGranularity granularity, LocalDate periodStart) {
+    }
+
+    private final RevenueRollupRepository rollupRepository;
+    private final PaymentRepository paymentRepository;
+    private final RentalContractRepository contractRepository;
+
+    public RevenueRollupService(
+            RevenueRollupRepository rollupRepository,
+            PaymentRepository paymentRepository,
+            RentalContractRepository contractRepository) {
+        this.rollupRepository = rollupRepository;
+        this.paymentRepository = paymentRepository;
+        this.contractRepository = contractRepository;
+    }
+
+    /**
+     * Incremental path: applies confirmed payments (or reversals) of one contract to its day and month rollups,
+     * in the caller's transaction. The caller must hold the contract row lock until commit.
+     * One UPDATE per period touched, plus one INSERT for each period the contract had no revenue in yet.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void apply(RentalContract contract, List<RevenueDelta> deltas) {
+        Map<PeriodKey, double[]> periods = new LinkedHashMap<>();
+        for (RevenueDelta delta : deltas) {
+            for (RevenueGranularity granularity : RevenueGranularity.values()) {
+                double[] totals = periods.computeIfAbsent(
+                        new PeriodKey(contract.getIdContract(), granularity, granularity.periodStart(delta.day())),
+                        key -> new double[2]);
+                totals[0] += delta.amount();
+                totals[1] += delta.payments();
+            }
+        }
+
+        List<RevenueRollup> created = new ArrayList<>();
+        periods.forEach((key, totals) -> {
+            if (rollupRepository.increment(key.contractId(), key.granularity(), key.periodStart(),
+                    totals[0], (long) totals[1]) == 0) {
+                created.add(rollup(contract, key, totals[0], (long) totals[1]));
+            }
+        });
+        rollupRepository.saveAll(created);
+    }
+
+    /**
+     * Rebuild path: replaces the rollups of a chunk of contracts with sums of their confirmed payments.
+     * The contracts are locked first, so payments recorded meanwhile wait for the chunk to commit.
+     *
+     * @return The number of contracts rebuilt.
+     */
+    @Transactional
+    public int rebuild(Collection<Long> contractIds) {
+        if (contractIds.isEmpty()) {
+            return 0;
+        }
+        Map<Long, RentalContract> contracts = contractRepository.findAllByIdForUpdate(contractIds).stream()
+                .collect(Collectors.toMap(RentalContract::getIdContract, Function.identity()));
+        rollupRepository.deleteByContractIds(contractIds);
+
+        Map<PeriodKey, double[]> periods = new LinkedHashMap<>();
+        for (PaymentRepository.ContractDailyRevenue day : paymentRepository.sumConfirmedByContractAndDay(contractIds)) {
+            for (RevenueGranularity granularity : RevenueGranularity.values()) {
+                double[] totals = periods.computeIfAbsent(
+                        new PeriodKey(day.getContractId(), granularity, granularity.periodStart(day.getPaidOn())),
+                        key -> new double[2]);
+                totals[0] += day.getAmount();
+                totals[1] += day.getPayments();
+            }
+        }
+
+        List<RevenueRollup> rollups = new ArrayList<>(periods.size());
+        periods.forEach((key, totals) ->
+                rollups.add(rollup(contracts.get(key.contractId()), key, totals[0], (long) totals[1])));
+        rollupRepository.saveAll(rollups);
+        return contracts.size();
+    }
+
+    /**
+     * Revenue per period over [from, to], for the most specific filter given (contract, then property, then owner).
+     * An admin may query any filter or the whole platform; an owner only their own contracts.
+     */
+    @Transactional(readOnly = true)
+    public List<RevenuePointDto> getRevenue(RevenueGranularity granularity, LocalDate from, LocalDate to,
+                                            Long ownerId, Long propertyId, Long contractId, UserPrincipal principal) {
+        if (from.isAfter(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'from' must not be after 'to'.");
+        }
+        boolean isAdmin = principal.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+        if (!isAdmin && ownerId != null && !ownerId.equals(principal.getIdUser())) {
+            throw new AccessDeniedException("User is not authorized to view this revenue.");
+        }
+        // Periods are keyed by their start: the first period is the one containing 'from'
+        LocalDate fromPeriod = granularity.periodStart(from);
+
+        if (contractId != null) {
+            if (!isAdmin) {
+                RentalContract contract = contractRepository.findById(contractId)
+                        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Rental contract not found."));
+                if (!Objects.equals(contract.getOwnerId(), principal.getIdUser())) {
+                    throw new AccessDeniedException("User is not authorized to view this revenue.");
+                }
+            }
+            return rollupRepository.sumByContract(contractId, granularity, fromPeriod, to);
+        }
+        if (propertyId != null) {
+            return rollupRepository.sumByProperty(propertyId, isAdmin ? ownerId : principal.getIdUser(),
+                    granularity, fromPeriod, to);
+        }
+        if (ownerId != null || !isAdmin) {
+            return rollupRepository.sumByOwner(ownerId != null ? ownerId : principal.getIdUser(),
+                    granularity, fromPeriod, to);
+        }
+        return rollupRepository.sumAll(granularity, fromPeriod, to);
+    }
+
+    private static RevenueRollup rollup(RentalContract contract, PeriodKey key, double amount, long payments) {
+        return RevenueRollup.builder()
+                .contractId(key.contractId())
+                .ownerId(contract.getOwnerId())
+                .propertyId(contract.getPropertyId())
+                .granularity(key.granularity())
+                .periodStart(key.periodStart())
+                .amount(amount)
+                .payments(payments)
+                .build();
+    }
+}
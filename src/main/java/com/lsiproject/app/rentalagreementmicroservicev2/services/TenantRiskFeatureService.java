@@ -0,0 +1,124 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.services;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.entities.DisputeSummary;
+import com.lsiproject.app.rentalagreementmicroservicev2.entities.TenantRiskFeatures;
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.RentalContractState;
+import com.lsiproject.app.rentalagreementmicroservicev2.events.RentalActivityEvent;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.DisputeSummaryRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.PaymentReportRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.RentalContractRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.TenantRiskFeaturesRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Per-tenant risk features (tenant_risk_features), read by the scoring path with a single primary-key lookup.
+ *
+ * A tenant's row is recomputed after commit of any change on one of its contracts (payment, report, state, dispute).
+ * The recomputation works on grouped aggregates over the tenant's reports and contracts, never on raw payments,
+ * so it costs the same few indexed queries for one tenant or for a whole rebuild batch.
+ */
+@Service
+public class TenantRiskFeatureService {
+
+    private static final Logger log = LoggerFactory.getLogger(TenantRiskFeatureService.class);
+
+    private final TenantRiskFeaturesRepository featuresRepository;
+    private final PaymentReportRepository reportRepository;
+    private final RentalContractRepository contractRepository;
+    private final DisputeSummaryRepository disputeSummaryRepository;
+    private final TransactionTemplate newTransaction;
+
+    public TenantRiskFeatureService(
+            TenantRiskFeaturesRepository featuresRepository,
+            PaymentReportRepository reportRepository,
+            RentalContractRepository contractRepository,
+            DisputeSummaryRepository disputeSummaryRepository,
+            PlatformTransactionManager transactionManager) {
+        this.featuresRepository = featuresRepository;
+        this.reportRepository = reportRepository;
+        this.contractRepository = contractRepository;
+        this.disputeSummaryRepository = disputeSummaryRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public Optional<TenantRiskFeatures> getFeatures(Long tenantId) {
+        return featuresRepository.findById(tenantId);
+    }
+
+    /**
+     * Recomputes the rows of the given tenants from the source tables.
+     *
+     * @return The number of rows written.
+     */
+    @Transactional
+    public int refresh(Collection<Long> tenantIds) {
+        if (tenantIds.isEmpty()) {
+            return 0;
+        }
+        Map<Long, PaymentReportRepository.TenantPeriodsAggregate> periods = reportRepository
+                .aggregatePeriodsByTenantIds(tenantIds).stream()
+                .collect(Collectors.toMap(PaymentReportRepository.TenantPeriodsAggregate::getTenantId, Function.identity()));
+        Map<Long, Long> activeContracts = contractRepository
+                .countByTenantIdsAndState(tenantIds, RentalContractState.ACTIVE).stream()
+                .collect(Collectors.toMap(RentalContractRepository.TenantContractCount::getTenantId,
+                        RentalContractRepository.TenantContractCount::getContracts));
+        Map<Long, DisputeSummary> disputes = disputeSummaryRepository.findAllById(tenantIds).stream()
+                .collect(Collectors.toMap(DisputeSummary::getTenantId, Function.identity()));
+        Map<Long, TenantRiskFeatures> existing = featuresRepository.findAllById(tenantIds).stream()
+                .collect(Collectors.toMap(TenantRiskFeatures::getTenantId, Function.identity()));
+
+        List<TenantRiskFeatures> rows = new ArrayList<>();
+        for (Long tenantId : tenantIds) {
+            TenantRiskFeatures features = existing.getOrDefault(tenantId,
+                    TenantRiskFeatures.builder().tenantId(tenantId).build());
+
+            PaymentReportRepository.TenantPeriodsAggregate tenantPeriods = periods.get(tenantId);
+            int paid = tenantPeriods != null ? Math.toIntExact(tenantPeriods.getPaidPeriods()) : 0;
+            int missed = tenantPeriods != null ? Math.toIntExact(tenantPeriods.getMissedPeriods()) : 0;
+            features.setTotalPaidPeriods(paid);
+            features.setTotalMissedPeriods(missed);
+            features.setOnTimeRatio(paid + missed == 0 ? 1.0 : (double) paid / (paid + missed));
+
+            DisputeSummary dispute = disputes.get(tenantId);
+            features.setTotalDisputes(dispute != null ? dispute.getTotalDisputes() : 0);
+            features.setLastDisputeDate(dispute != null ? dispute.getLastDisputeDate() : null);
+
+            features.setActiveContracts(Math.toIntExact(activeContracts.getOrDefault(tenantId, 0L)));
+            rows.add(features);
+        }
+        featuresRepository.saveAll(rows);
+        return rows.size();
+    }
+
+    /**
+     * Refreshes the tenant's row once the change is committed, in its own transaction.
+     * A failure only leaves the row stale until the next change or the rebuild job: it never fails the caller.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRentalActivity(RentalActivityEvent event) {
+        if (event.tenantId() == null) {
+            return;
+        }
+        try {
+            newTransaction.executeWithoutResult(status -> refresh(List.of(event.tenantId())));
+        } catch (RuntimeException e) {
+            log.warn("Risk features of tenant {} not refreshed: {}", event.tenantId(), e.getMessage());
+        }
+    }
+}
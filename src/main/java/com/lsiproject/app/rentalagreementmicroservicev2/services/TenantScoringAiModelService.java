@@ -2,40 +2,30 @@ package com.lsiproject.app.rentalagreementmicroservicev2.services;
 
 import com.lsiproject.app.rentalagreementmicroservicev2.dtos.TenantScoreRequest;
 import com.lsiproject.app.rentalagreementmicroservicev2.dtos.TenantScoringDTO;
-import com.lsiproject.app.rentalagreementmicroservicev2.entities.DisputeSummary;
-import com.lsiproject.app.rentalagreementmicroservicev2.entities.PaymentReport;
+import com.lsiproject.app.rentalagreementmicroservicev2.entities.TenantRiskFeatures;
 import com.lsiproject.app.rentalagreementmicroservicev2.openFeignClients.TenantScoringAiModel;
-import com.lsiproject.app.rentalagreementmicroservicev2.repositories.DisputeSummaryRepository;
-import com.lsiproject.app.rentalagreementmicroservicev2.repositories.PaymentReportRepository;
 import org.springframework.stereotype.Service;
 
 @Service
 public class TenantScoringAiModelService {
 
     private final TenantScoringAiModel tenantScoringAi;
-    private final DisputeSummaryRepository disputeSummaryRepository;
-    private final PaymentReportRepository paymentReportRepository;
+    private final TenantRiskFeatureService riskFeatureService;
 
-    public TenantScoringAiModelService(PaymentReportRepository paymentReportRepository,
-                                       TenantScoringAiModel tenantScoringAi,
-                                       DisputeSummaryRepository disputeSummaryRepository) {
-        this.paymentReportRepository = paymentReportRepository;
+    public TenantScoringAiModelService(TenantScoringAiModel tenantScoringAi,
+                                       TenantRiskFeatureService riskFeatureService) {
         this.tenantScoringAi = tenantScoringAi;
-        this.disputeSummaryRepository = disputeSummaryRepository;
+        this.riskFeatureService = riskFeatureService;
     }
 
     public TenantScoringDTO consultTenantScoringModel(Long id) {
-        // 1. Fetch data from DB
-        DisputeSummary dispute = disputeSummaryRepository.findById(id).orElse(null);
+        // 1. Fetch the tenant's features (one primary-key lookup, all contracts included)
+        TenantRiskFeatures features = riskFeatureService.getFeatures(id).orElse(null);
 
-
-        PaymentReport report = paymentReportRepository.findByTenentID(id);
-
-
-        if(dispute!=null && report!=null){
+        if (features != null) {
             TenantScoreRequest requestBody = new TenantScoreRequest(
-                    report.getMissedPeriods(),
-                    dispute.getTotalDisputes()
+                    features.getTotalMissedPeriods(),
+                    features.getTotalDisputes()
             );
             return tenantScoringAi.getTenantScore(requestBody);
         }
@@ -49,4 +39,4 @@ public class TenantScoringAiModelService {
         }
 
     }
-}
\ No newline at end of file
+}
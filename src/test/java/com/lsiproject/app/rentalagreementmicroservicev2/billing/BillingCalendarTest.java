@@ -0,0 +1,177 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.billing;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.TypeOfRental;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class BillingCalendarTest {
+
+    private static final int CASES = 20_000;
+
+    /**
+     * Ancienne boucle de PaymentReportService.generateAndSaveReport, conservée comme référence.
+     */
+    private record LegacyResult(int paidPeriods, int missedPeriods, double totalExpected, List<LocalDate> missedDates) {
+    }
+
+    private static LegacyResult legacyWaterfall(LocalDate start, LocalDate end, LocalDate today,
+                                                TypeOfRental type, Double rent, Double totalPaid) {
+        LocalDate current = start;
+        int paidPeriods = 0;
+        int missedPeriods = 0;
+        List<LocalDate> missedDatesList = new ArrayList<>();
+        Double moneyPool = totalPaid;
+        Double totalExpected = 0.0;
+
+        while (!current.isAfter(today) && !current.isAfter(end)) {
+            totalExpected += rent;
+            if (moneyPool >= rent - 0.01) {
+                paidPeriods++;
+                moneyPool -= rent;
+            } else {
+                missedPeriods++;
+                missedDatesList.add(current);
+                moneyPool = 0.0;
+            }
+            if (type == TypeOfRental.DAILY) {
+                current = current.plusDays(1);
+            } else {
+                current = current.plusMonths(1);
+            }
+        }
+        return new LegacyResult(paidPeriods, missedPeriods, totalExpected, missedDatesList);
+    }
+
+    /**
+     * Propriété : pour des contrats tirés au hasard, le calcul en O(1) donne le même résultat que l'ancienne boucle.
+     * Les contrats mensuels commencent entre le 1 et le 28 du mois (voir endOfMonthStartIsNoLongerDrifting).
+     * Les montants sont en centimes entiers ; les cas où l'ancienne boucle compare deux doubles exactement égaux
+     * à un centime près (résultat dépendant de l'arrondi flottant) sont écartés.
+     */
+    @Test
+    void matchesLegacyWaterfallOnRandomContracts() {
+        Random random = new Random(20251017L);
+        int checked = 0;
+
+        while (checked < CASES) {
+            TypeOfRental type = random.nextBoolean() ? TypeOfRental.DAILY : TypeOfRental.MONTHLY;
+
+            LocalDate start = LocalDate.of(2019 + random.nextInt(6), 1 + random.nextInt(12),
+                    type == TypeOfRental.MONTHLY ? 1 + random.nextInt(28) : 1).plusDays(
+                    type == TypeOfRental.DAILY ? random.nextInt(365) : 0);
+            LocalDate end = type == TypeOfRental.DAILY
+                    ? start.plusDays(random.nextInt(1500))
+                    : start.plusMonths(random.nextInt(60)).plusDays(random.nextInt(31));
+            LocalDate today = start.plusDays(random.nextInt((int) ChronoUnit.DAYS.between(start, end) + 120) - 30);
+
+            long rentCents = 100 + random.nextInt(500_000);
+            long periods = type.getBillingUnit().between(start, end) + 2;
+            long paidCents = (long) (random.nextDouble() * rentCents * (periods + 2));
+            if ((paidCents + 1) % rentCents == 0) {
+                continue;
+            }
+            double rent = rentCents / 100.0;
+            double paid = paidCents / 100.0;
+
+            LegacyResult expected = legacyWaterfall(start, end, today, type, rent, paid);
+            BillingStatement actual = BillingCalendar.statement(start, end, today, type, rent, paid);
+
+            String context = type + " " + start + ".." + end + " asOf " + today + " rent " + rent + " paid " + paid;
+            assertThat(actual.coveredPeriods()).as(context).isEqualTo(expected.paidPeriods());
+            assertThat(actual.missedPeriods()).as(context).isEqualTo(expected.missedPeriods());
+            assertThat(actual.expectedAmount()).as(context)
+                    .isCloseTo(expected.totalExpected(), within(1e-6 * Math.max(1, expected.totalExpected())));
+            assertThat(actual.missed().dates()).as(context).containsExactlyElementsOf(expected.missedDates());
+            assertThat(actual.missed().firstDate()).as(context)
+                    .isEqualTo(expected.missedDates().isEmpty() ? null : expected.missedDates().get(0));
+            checked++;
+        }
+    }
+
+    @Test
+    void noPeriodIsDueBeforeTheContractStarts() {
+        LocalDate start = LocalDate.of(2025, 3, 10);
+
+        BillingStatement statement = BillingCalendar.statement(start, start.plusMonths(12), start.minusDays(1),
+                TypeOfRental.MONTHLY, 1000.0, 0.0);
+
+        assertThat(statement.elapsedPeriods()).isZero();
+        assertThat(statement.missed().isEmpty()).isTrue();
+        assertThat(statement.expectedAmount()).isZero();
+    }
+
+    @Test
+    void periodsStopAtContractEnd() {
+        LocalDate start = LocalDate.of(2024, 1, 1);
+
+        BillingStatement statement = BillingCalendar.statement(start, LocalDate.of(2024, 1, 10), LocalDate.of(2025, 1, 1),
+                TypeOfRental.DAILY, 50.0, 100.0);
+
+        assertThat(statement.elapsedPeriods()).isEqualTo(10);
+        assertThat(statement.coveredPeriods()).isEqualTo(2);
+        assertThat(statement.missed().firstDate()).isEqualTo(LocalDate.of(2024, 1, 3));
+        assertThat(statement.missed().dates()).hasSize(8).endsWith(LocalDate.of(2024, 1, 10));
+    }
+
+    @Test
+    void oneCentShortStillCoversThePeriod() {
+        LocalDate start = LocalDate.of(2024, 1, 1);
+
+        BillingStatement statement = BillingCalendar.statement(start, start.plusMonths(6), LocalDate.of(2024, 3, 1),
+                TypeOfRental.MONTHLY, 1000.0, 2999.99);
+
+        assertThat(statement.elapsedPeriods()).isEqualTo(3);
+        assertThat(statement.coveredPeriods()).isEqualTo(3);
+    }
+
+    /**
+     * Correction volontaire : l'ancienne boucle avançait de proche en proche (31/01 -> 29/02 -> 29/03...),
+     * décalant toutes les échéances après un mois court. Les périodes sont désormais ancrées sur la date de début.
+     */
+    @Test
+    void endOfMonthStartIsNoLongerDrifting() {
+        LocalDate start = LocalDate.of(2024, 1, 31);
+
+        BillingStatement statement = BillingCalendar.statement(start, LocalDate.of(2024, 12, 31), LocalDate.of(2024, 4, 30),
+                TypeOfRental.MONTHLY, 1000.0, 0.0);
+
+        assertThat(statement.missed().dates()).containsExactly(
+                LocalDate.of(2024, 1, 31),
+                LocalDate.of(2024, 2, 29),
+                LocalDate.of(2024, 3, 31),
+                LocalDate.of(2024, 4, 30));
+    }
+
+    @Test
+    void nextDueDateIsTheNextPeriodStartUntilContractEnd() {
+        LocalDate start = LocalDate.of(2024, 1, 31);
+        LocalDate end = LocalDate.of(2024, 6, 15);
+
+        assertThat(BillingCalendar.statement(start, end, LocalDate.of(2024, 1, 1), TypeOfRental.MONTHLY, 1000.0, 0.0)
+                .nextDueDate()).isEqualTo(start);
+        assertThat(BillingCalendar.statement(start, end, LocalDate.of(2024, 2, 28), TypeOfRental.MONTHLY, 1000.0, 0.0)
+                .nextDueDate()).isEqualTo(LocalDate.of(2024, 2, 29));
+        assertThat(BillingCalendar.statement(start, end, LocalDate.of(2024, 2, 29), TypeOfRental.MONTHLY, 1000.0, 0.0)
+                .nextDueDate()).isEqualTo(LocalDate.of(2024, 3, 31));
+        assertThat(BillingCalendar.statement(start, end, LocalDate.of(2024, 6, 1), TypeOfRental.MONTHLY, 1000.0, 0.0)
+                .nextDueDate()).isNull();
+    }
+
+    @Test
+    void fullPeriodsMatchChronoUnitBetween() {
+        LocalDate start = LocalDate.of(2024, 1, 15);
+        LocalDate end = LocalDate.of(2025, 3, 14);
+
+        assertThat(BillingCalendar.fullPeriodsBetween(start, end, TypeOfRental.MONTHLY)).isEqualTo(13);
+        assertThat(BillingCalendar.fullPeriodsBetween(start, end, TypeOfRental.DAILY))
+                .isEqualTo(ChronoUnit.DAYS.between(start, end));
+    }
+}
@@ -0,0 +1,176 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.billing;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.TypeOfRental;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MissedPeriodsCodecTest {
+
+    private static final LocalDate START = LocalDate.of(2023, 1, 31);
+
+    @Test
+    void roundTripsASingleRun() {
+        MissedPeriods missed = new MissedPeriods(START, TypeOfRental.MONTHLY, 12, 30);
+
+        String encoded = MissedPeriodsCodec.encode(missed);
+
+        assertThat(encoded).isEqualTo("2023-01-31;MONTHLY;12+30");
+        assertThat(MissedPeriodsCodec.decode(encoded)).containsExactly(missed);
+        assertThat(MissedPeriodsCodec.dates(encoded)).containsExactlyElementsOf(missed.dates());
+    }
+
+    @Test
+    void roundTripsSeveralRuns() {
+        List<MissedPeriods> runs = List.of(
+                new MissedPeriods(START, TypeOfRental.DAILY, 3, 2),
+                new MissedPeriods(START, TypeOfRental.DAILY, 10, 400));
+
+        String encoded = MissedPeriodsCodec.encode(runs);
+
+        assertThat(MissedPeriodsCodec.decode(encoded)).isEqualTo(runs);
+        assertThat(MissedPeriodsCodec.count(encoded)).isEqualTo(402);
+        assertThat(MissedPeriodsCodec.dates(encoded))
+                .hasSize(402)
+                .startsWith(START.plusDays(3), START.plusDays(4), START.plusDays(10))
+                .endsWith(START.plusDays(409));
+    }
+
+    @Test
+    void noMissedPeriodIsEncodedAsNull() {
+        assertThat(MissedPeriodsCodec.encode(MissedPeriods.none(START, TypeOfRental.MONTHLY))).isNull();
+        assertThat(MissedPeriodsCodec.dates(null)).isEmpty();
+        assertThat(MissedPeriodsCodec.dates("")).isEmpty();
+    }
+
+    @Test
+    void rejectsMalformedInput() {
+        assertThatThrownBy(() -> MissedPeriodsCodec.decode("2023-01-31;MONTHLY"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> MissedPeriodsCodec.decode("2023-01-31;WEEKLY;1+2"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> MissedPeriodsCodec.decode("2023-01-31;DAILY;1-2"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void legacyDatesBecomeOneRunPerContiguousRange() {
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        String legacy = "2024-01-03,2024-01-04,2024-01-05,2024-01-09";
+
+        String encoded = MissedPeriodsCodec.encodeLegacy(legacy, start, TypeOfRental.DAILY);
+
+        assertThat(encoded).isEqualTo("2024-01-01;DAILY;2+3,8+1");
+        assertThat(MissedPeriodsCodec.dates(encoded)).containsExactlyElementsOf(parse(legacy));
+    }
+
+    /**
+     * L'ancienne boucle dérivait après un mois court (29/02 -> 29/03) : le nombre de périodes est conservé,
+     * les dates sont ramenées au calendrier ancré sur la date de début.
+     */
+    @Test
+    void legacyDriftedMonthlyDatesKeepTheirCount() {
+        String legacy = "2024-02-29,2024-03-29,2024-04-29";
+
+        String encoded = MissedPeriodsCodec.encodeLegacy(legacy, LocalDate.of(2024, 1, 31), TypeOfRental.MONTHLY);
+
+        assertThat(encoded).isEqualTo("2024-01-31;MONTHLY;1+3");
+        assertThat(MissedPeriodsCodec.dates(encoded)).containsExactly(
+                LocalDate.of(2024, 2, 29), LocalDate.of(2024, 3, 31), LocalDate.of(2024, 4, 30));
+    }
+
+    @Test
+    void emptyLegacyValueHasNoRun() {
+        assertThat(MissedPeriodsCodec.encodeLegacy("", START, TypeOfRental.DAILY)).isNull();
+    }
+
+    /**
+     * Taille de la colonne pour un contrat journalier de 3 ans resté impayé depuis le 10e jour.
+     */
+    @Test
+    void encodedSizeDoesNotGrowWithTheNumberOfPeriods() {
+        MissedPeriods missed = new MissedPeriods(START, TypeOfRental.DAILY, 10, 3 * 365 - 10);
+        String legacy = joined(missed.dates());
+        String encoded = MissedPeriodsCodec.encode(missed);
+
+        int legacyBytes = legacy.getBytes(StandardCharsets.UTF_8).length;
+        int encodedBytes = encoded.getBytes(StandardCharsets.UTF_8).length;
+
+        assertThat(legacyBytes).isGreaterThan(11_000);
+        assertThat(encodedBytes).isLessThan(32);
+    }
+
+    /**
+     * Temps de lecture : décodage de 10 000 rapports (3 ans de retard journalier) et parcours de leurs dates.
+     *
+     *   ./mvnw test -Dtest=MissedPeriodsCodecTest -Dbenchmark=true
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void readTimeLegacyVersusRuns() {
+        MissedPeriods missed = new MissedPeriods(START, TypeOfRental.DAILY, 10, 3 * 365 - 10);
+        String legacy = joined(missed.dates());
+        String encoded = MissedPeriodsCodec.encode(missed);
+        int reports = 10_000;
+
+        for (int warmup = 0; warmup < 3; warmup++) {
+            readLegacy(legacy, reports / 10);
+            readRuns(encoded, reports / 10);
+        }
+        long start = System.nanoTime();
+        long legacyDates = readLegacy(legacy, reports);
+        long legacyNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        long runDates = readRuns(encoded, reports);
+        long runsNanos = System.nanoTime() - start;
+
+        System.out.printf("read %d reports: legacy %d ms, runs %d ms (count only: %d ms)%n",
+                reports, legacyNanos / 1_000_000, runsNanos / 1_000_000, countOnlyMillis(encoded, reports));
+        assertThat(runDates).isEqualTo(legacyDates);
+    }
+
+    private static long readLegacy(String legacy, int reports) {
+        long dates = 0;
+        for (int i = 0; i < reports; i++) {
+            dates += parse(legacy).size();
+        }
+        return dates;
+    }
+
+    private static long readRuns(String encoded, int reports) {
+        long dates = 0;
+        for (int i = 0; i < reports; i++) {
+            for (LocalDate ignored : MissedPeriodsCodec.dates(encoded)) {
+                dates++;
+            }
+        }
+        return dates;
+    }
+
+    private static long countOnlyMillis(String encoded, int reports) {
+        long start = System.nanoTime();
+        long count = 0;
+        for (int i = 0; i < reports; i++) {
+            count += MissedPeriodsCodec.count(encoded);
+        }
+        assertThat(count).isPositive();
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private static String joined(List<LocalDate> dates) {
+        return dates.stream().map(LocalDate::toString).collect(Collectors.joining(","));
+    }
+
+    private static List<LocalDate> parse(String legacy) {
+        return Arrays.stream(legacy.split(",")).map(LocalDate::parse).toList();
+    }
+}
@@ -0,0 +1,60 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.dedup;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HexFormat;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class BloomFilterTest {
+
+    private static final int INSERTIONS = 200_000;
+    private static final double TARGET_FPP = 0.001;
+
+    @Test
+    void noFalseNegativeAndFalsePositivesNearTarget() {
+        BloomFilter filter = new BloomFilter(INSERTIONS, TARGET_FPP);
+        Random random = new Random(21);
+        String[] inserted = IntStream.range(0, INSERTIONS).mapToObj(i -> txHash(random)).toArray(String[]::new);
+        for (String hash : inserted) {
+            filter.put(hash);
+        }
+
+        for (String hash : inserted) {
+            assertThat(filter.mightContain(hash)).as(hash).isTrue();
+        }
+
+        int probes = 500_000;
+        long falsePositives = IntStream.range(0, probes).filter(i -> filter.mightContain(txHash(random))).count();
+        assertThat((double) falsePositives / probes).isLessThan(2 * TARGET_FPP);
+        assertThat(filter.expectedFalsePositiveRate()).isCloseTo(TARGET_FPP, within(TARGET_FPP / 2));
+    }
+
+    @Test
+    void sizedFromCapacityAndRate() {
+        BloomFilter filter = new BloomFilter(1_000_000, 0.01);
+
+        // m = -n ln p / (ln 2)^2 ≈ 9.59 bits par élément, k ≈ 7
+        assertThat(filter.sizeInBytes()).isBetween(1_190_000L, 1_210_000L);
+        assertThat(filter.hashFunctions()).isEqualTo(7);
+    }
+
+    @Test
+    void concurrentPutsAreNotLost() {
+        BloomFilter filter = new BloomFilter(100_000, TARGET_FPP);
+
+        IntStream.range(0, 100_000).parallel().forEach(i -> filter.put("0xconcurrent-" + i));
+
+        assertThat(IntStream.range(0, 100_000).allMatch(i -> filter.mightContain("0xconcurrent-" + i))).isTrue();
+        assertThat(filter.insertions()).isEqualTo(100_000);
+    }
+
+    private static String txHash(Random random) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        return "0x" + HexFormat.of().formatHex(bytes);
+    }
+}
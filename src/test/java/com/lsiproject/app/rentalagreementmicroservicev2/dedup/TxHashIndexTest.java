@@ -0,0 +1,77 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.dedup;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.PaymentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TxHashIndexTest {
+
+    private PaymentRepository paymentRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private TxHashIndex index;
+
+    @BeforeEach
+    void setUp() {
+        paymentRepository = mock(PaymentRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        index = new TxHashIndex(paymentRepository, mock(PlatformTransactionManager.class), meterRegistry,
+                true, 10_000, 0.001);
+        when(paymentRepository.streamAllTxHashes()).thenReturn(Stream.of("0xstored-1", "0xstored-2"));
+    }
+
+    @Test
+    void everyLookupGoesToTheDatabaseUntilWarm() {
+        index.exists("0xnew");
+
+        verify(paymentRepository).existsByTxHash("0xnew");
+    }
+
+    @Test
+    void definitelyNewHashesSkipTheDatabase() {
+        index.warmUp();
+        assertThat(index.isWarm()).isTrue();
+
+        assertThat(index.exists("0xnew")).isFalse();
+        verify(paymentRepository, never()).existsByTxHash(anyString());
+
+        when(paymentRepository.existsByTxHash("0xstored-1")).thenReturn(true);
+        assertThat(index.exists("0xstored-1")).isTrue();
+
+        assertThat(meterRegistry.get("payments.txhash.filter.lookups").tag("result", "absent").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void onlyMaybePresentHashesOfABatchAreQueried() {
+        index.warmUp();
+        index.add("0xadded");
+        when(paymentRepository.findExistingTxHashes(anyCollection())).thenReturn(List.of("0xstored-2"));
+
+        assertThat(index.findExisting(List.of("0xstored-2", "0xadded", "0xnew-1", "0xnew-2")))
+                .containsExactly("0xstored-2");
+
+        verify(paymentRepository).findExistingTxHashes(List.of("0xstored-2", "0xadded"));
+        assertThat(meterRegistry.get("payments.txhash.filter.false-positives").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void batchOfNewHashesRunsNoQuery() {
+        index.warmUp();
+
+        assertThat(index.findExisting(List.of("0xnew-1", "0xnew-2"))).isEmpty();
+        verify(paymentRepository, never()).findExistingTxHashes(anyCollection());
+    }
+}
@@ -0,0 +1,116 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lsiproject.app.rentalagreementmicroservicev2.configuration.KafkaConsumerConfig;
+import com.lsiproject.app.rentalagreementmicroservicev2.configuration.KafkaProducerConfig;
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.PaymentCreationDto;
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.RentPaidEvent;
+import com.lsiproject.app.rentalagreementmicroservicev2.services.PaymentService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Débit de RentPaidConsumer sur un broker embarqué (6 partitions), la transaction du paiement étant simulée
+ * par une attente de 2 ms. Non exécuté par défaut :
+ *
+ *   ./mvnw test -Dtest=RentPaidConsumerBenchmarkTest -Dbenchmark=true -Dkafka.rent-paid.concurrency=6
+ *
+ * À comparer avec -Dkafka.rent-paid.concurrency=1 (un seul thread, équivalent au traitement séquentiel).
+ */
+@SpringJUnitConfig(RentPaidConsumerBenchmarkTest.Config.class)
+@EmbeddedKafka(partitions = 6, topics = "rent-paid-events")
+@TestPropertySource(properties = {
+        "kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "kafka.rent-paid.group-id=rent-paid-benchmark"
+})
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class RentPaidConsumerBenchmarkTest {
+
+    private static final int EVENTS = 20_000;
+    private static final int AGREEMENTS = 1_000;
+    private static final AtomicInteger PROCESSED = new AtomicInteger();
+
+    @Configuration
+    @Import({KafkaProducerConfig.class, KafkaConsumerConfig.class, RentPaidConsumer.class})
+    static class Config {
+
+        @Bean
+        PaymentService paymentService() {
+            PaymentService paymentService = mock(PaymentService.class);
+            when(paymentService.createPaymentForAgreement(anyLong(), any(PaymentCreationDto.class))).thenAnswer(invocation -> {
+                Thread.sleep(2);
+                PROCESSED.incrementAndGet();
+                return null;
+            });
+            return paymentService;
+        }
+
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper().findAndRegisterModules();
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${kafka.rent-paid.concurrency:3}")
+    private int concurrency;
+
+    @Test
+    void throughput() throws Exception {
+        // Le consommateur tourne déjà : la mesure inclut la publication, qui va plus vite que le traitement
+        long start = System.nanoTime();
+        List<CompletableFuture<?>> sends = new ArrayList<>();
+        for (int i = 0; i < EVENTS; i++) {
+            long agreementId = i % AGREEMENTS;
+            RentPaidEvent event = RentPaidEvent.builder()
+                    .agreementIdOnChain(agreementId)
+                    .amount(1000.0)
+                    .txHash("0xbench-" + i)
+                    .timestamp(LocalDateTime.now())
+                    .tenantId(1L)
+                    .build();
+            sends.add(kafkaTemplate.send("rent-paid-events", Long.toString(agreementId), objectMapper.writeValueAsBytes(event)));
+        }
+        CompletableFuture.allOf(sends.toArray(new CompletableFuture[0])).join();
+
+        await().atMost(Duration.ofMinutes(5)).pollInterval(Duration.ofMillis(50))
+                .until(() -> PROCESSED.get() >= EVENTS);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("RentPaid consumer, concurrency %d: %.0f events/s (%d events in %.1f s)%n",
+                concurrency, EVENTS / seconds, EVENTS, seconds);
+    }
+}
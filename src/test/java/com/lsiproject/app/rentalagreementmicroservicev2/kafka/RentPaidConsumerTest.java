@@ -0,0 +1,187 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lsiproject.app.rentalagreementmicroservicev2.configuration.KafkaConsumerConfig;
+import com.lsiproject.app.rentalagreementmicroservicev2.configuration.KafkaProducerConfig;
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.PaymentCreationDto;
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.RentPaidEvent;
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.PaymentStatus;
+import com.lsiproject.app.rentalagreementmicroservicev2.exceptions.DuplicatePaymentException;
+import com.lsiproject.app.rentalagreementmicroservicev2.services.PaymentService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * RentPaidConsumer sur un broker embarqué : ordre par contrat avec plusieurs partitions et threads,
+ * rejeu des erreurs techniques, pas de rejeu des refus définitifs, DLT pour un contrat encore inconnu.
+ */
+@SpringJUnitConfig(RentPaidConsumerTest.Config.class)
+@EmbeddedKafka(partitions = 4, topics = {"rent-paid-events", "rent-paid-events.DLT"})
+@TestPropertySource(properties = {
+        "kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "kafka.rent-paid.concurrency=4",
+        "kafka.rent-paid.retry.interval-ms=50"
+})
+class RentPaidConsumerTest {
+
+    // Paiements reçus par PaymentService, par contrat (agreementIdOnChain), dans l'ordre d'appel
+    private static final Map<Long, List<String>> CALLS = new ConcurrentHashMap<>();
+    private static final Set<String> FAILED_ONCE = ConcurrentHashMap.newKeySet();
+
+    @Configuration
+    @Import({KafkaProducerConfig.class, KafkaConsumerConfig.class, RentPaidConsumer.class})
+    static class Config {
+
+        @Bean
+        PaymentService paymentService() {
+            PaymentService paymentService = mock(PaymentService.class);
+            when(paymentService.createPaymentForAgreement(anyLong(), any(PaymentCreationDto.class))).thenAnswer(invocation -> {
+                Long agreementId = invocation.getArgument(0);
+                String txHash = invocation.<PaymentCreationDto>getArgument(1).getTxHash();
+                CALLS.computeIfAbsent(agreementId, id -> Collections.synchronizedList(new ArrayList<>())).add(txHash);
+                if (txHash.startsWith("fail-once-") && FAILED_ONCE.add(txHash)) {
+                    throw new IllegalStateException("Database unavailable");
+                }
+                if (txHash.startsWith("dup-")) {
+                    throw new DuplicatePaymentException(txHash);
+                }
+                if (txHash.startsWith("unknown-")) {
+                    throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+                            "Rental contract not found for agreement " + agreementId + ".");
+                }
+                return null;
+            });
+            return paymentService;
+        }
+
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper().findAndRegisterModules();
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+
+    @Test
+    void paymentsOfAContractAreProcessedInOrder() throws Exception {
+        List<Long> agreements = List.of(101L, 102L, 103L, 104L, 105L, 106L);
+        int perAgreement = 150;
+        for (int i = 0; i < perAgreement; i++) {
+            for (Long agreement : agreements) {
+                send(agreement, agreement + "-" + i);
+            }
+        }
+
+        await().atMost(Duration.ofSeconds(30)).until(() ->
+                agreements.stream().allMatch(agreement -> calls(agreement).size() >= perAgreement));
+
+        for (Long agreement : agreements) {
+            assertThat(calls(agreement)).as("agreement " + agreement).containsExactlyElementsOf(
+                    IntStream.range(0, perAgreement).mapToObj(i -> agreement + "-" + i).toList());
+        }
+    }
+
+    @Test
+    void technicalFailureIsRetriedBeforeTheNextPaymentOfTheContract() throws Exception {
+        send(201L, "fail-once-201-0");
+        send(201L, "201-1");
+
+        await().atMost(Duration.ofSeconds(30)).until(() -> calls(201L).contains("201-1"));
+
+        assertThat(calls(201L)).containsExactly("fail-once-201-0", "fail-once-201-0", "201-1");
+    }
+
+    @Test
+    void duplicateIsAcknowledgedWithoutRetry() throws Exception {
+        send(301L, "dup-301-0");
+        send(301L, "301-1");
+
+        await().atMost(Duration.ofSeconds(30)).until(() -> calls(301L).contains("301-1"));
+
+        assertThat(calls(301L)).containsExactly("dup-301-0", "301-1");
+    }
+
+    @Test
+    void unknownContractIsRetriedThenSentToTheDeadLetterTopic() throws Exception {
+        send(401L, "unknown-401-0");
+
+        Map<String, Object> consumerProps = KafkaTestUtils.consumerProps("rent-paid-dlt-reader", "false", broker);
+        consumerProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        try (Consumer<String, byte[]> dltConsumer = new DefaultKafkaConsumerFactory<>(consumerProps,
+                new StringDeserializer(), new ByteArrayDeserializer()).createConsumer()) {
+            broker.consumeFromAnEmbeddedTopic(dltConsumer, "rent-paid-events.DLT");
+            ConsumerRecord<String, byte[]> dead =
+                    KafkaTestUtils.getSingleRecord(dltConsumer, "rent-paid-events.DLT", Duration.ofSeconds(30));
+
+            assertThat(dead.key()).isEqualTo("401");
+            assertThat(objectMapper.readValue(dead.value(), RentPaidEvent.class).getTxHash()).isEqualTo("unknown-401-0");
+        }
+        // Premier essai puis les rejeux de FixedBackOff (3 par défaut) avant la publication au DLT
+        assertThat(calls(401L)).containsExactly("unknown-401-0", "unknown-401-0", "unknown-401-0", "unknown-401-0");
+    }
+
+    private void send(Long agreementId, String txHash) throws Exception {
+        RentPaidEvent event = RentPaidEvent.builder()
+                .agreementIdOnChain(agreementId)
+                .amount(1000.0)
+                .txHash(txHash)
+                .status(PaymentStatus.CONFIRMED)
+                .timestamp(LocalDateTime.now())
+                .tenantId(1L)
+                .build();
+        kafkaTemplate.send("rent-paid-events", agreementId.toString(), objectMapper.writeValueAsBytes(event)).get();
+    }
+
+    private static List<String> calls(Long agreementId) {
+        List<String> calls = CALLS.getOrDefault(agreementId, List.of());
+        synchronized (calls) {
+            return List.copyOf(calls);
+        }
+    }
+}
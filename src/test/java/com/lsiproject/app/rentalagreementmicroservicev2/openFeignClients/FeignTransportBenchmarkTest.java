@@ -0,0 +1,140 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.openFeignClients;
+
+import com.sun.net.httpserver.HttpServer;
+import feign.Feign;
+import feign.RequestLine;
+import feign.hc5.ApacheHttp5Client;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.ManagedHttpClientConnectionFactory;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Benchmark local du transport Feign contre un serveur stub :
+ * pool de connexions persistantes vs une nouvelle connexion TCP par requête.
+ * Non exécuté par défaut :
+ *
+ *   ./mvnw test -Dtest=FeignTransportBenchmarkTest -Dbenchmark=true
+ *
+ * Affiche, pour chaque mode, le débit et le nombre de connexions TCP ouvertes.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class FeignTransportBenchmarkTest {
+
+    private static final int CLIENTS = 50;
+    private static final int REQUESTS_PER_CLIENT = 200;
+
+    interface StubApi {
+        @RequestLine("GET /api/property-microservice/properties/1/isAvailable")
+        String isAvailable();
+    }
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+
+    @BeforeEach
+    void startStubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 512);
+        server.createContext("/", exchange -> {
+            byte[] body = "true".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        serverExecutor = Executors.newFixedThreadPool(CLIENTS);
+        server.setExecutor(serverExecutor);
+        server.start();
+    }
+
+    @AfterEach
+    void stopStubServer() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void pooledConnectionsVersusConnectionPerRequest() throws Exception {
+        Result perRequest = run(false);
+        Result pooled = run(true);
+
+        System.out.printf("connection-per-request: %s%n", perRequest);
+        System.out.printf("pooled keep-alive:      %s%n", pooled);
+
+        assertThat(pooled.connectionsOpened()).isLessThanOrEqualTo(CLIENTS + 1);
+        assertThat(pooled.connectionsOpened()).isLessThan(perRequest.connectionsOpened());
+    }
+
+    private Result run(boolean reuseConnections) throws Exception {
+        AtomicInteger connectionsOpened = new AtomicInteger();
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setConnectionFactory(socket -> {
+                    connectionsOpened.incrementAndGet();
+                    return ManagedHttpClientConnectionFactory.INSTANCE.createConnection(socket);
+                })
+                .build();
+        connectionManager.setMaxTotal(CLIENTS);
+        connectionManager.setDefaultMaxPerRoute(CLIENTS);
+
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setConnectionReuseStrategy((request, response, context) -> reuseConnections)
+                .build();
+
+        StubApi api = Feign.builder()
+                .client(new ApacheHttp5Client(httpClient))
+                .target(StubApi.class, "http://localhost:" + server.getAddress().getPort());
+
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            // Échauffement (JIT, chargement des classes)
+            api.isAvailable();
+
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                futures.add(clients.submit(() -> {
+                    for (int j = 0; j < REQUESTS_PER_CLIENT; j++) {
+                        api.isAvailable();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long elapsedNanos = System.nanoTime() - start;
+
+            int requests = CLIENTS * REQUESTS_PER_CLIENT;
+            return new Result(requests, requests * 1_000_000_000.0 / elapsedNanos, connectionsOpened.get());
+        } finally {
+            clients.shutdownNow();
+            httpClient.close();
+        }
+    }
+
+    private record Result(int requests, double requestsPerSecond, int connectionsOpened) {
+        @Override
+        public String toString() {
+            return String.format("%d requests, %.0f req/s, %d TCP connections",
+                    requests, requestsPerSecond, connectionsOpened);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.openFeignClients;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.PropertyResponseDTO;
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.TypeOfRental;
+import feign.FeignException;
+import feign.Request;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Implémentation locale de PropertyMicroService pour les tests (aucun appel réseau).
+ * Compte les appels pour vérifier le regroupement des lectures.
+ */
+public class StubPropertyMicroService implements PropertyMicroService {
+
+    private final Map<Long, PropertyResponseDTO> properties = new ConcurrentHashMap<>();
+
+    public final AtomicInteger singleCalls = new AtomicInteger();
+    public final AtomicInteger batchCalls = new AtomicInteger();
+
+    public StubPropertyMicroService withProperty(Long id, Long ownerId, TypeOfRental typeOfRental) {
+        properties.put(id, new PropertyResponseDTO(
+                id, id, "Property " + id, "MA", "Rabat", "Address " + id, 0.0, 0.0, "",
+                typeOfRental, 1000L, 1000L, true, true, ownerId, "0x0", null, null));
+        return this;
+    }
+
+    public StubPropertyMicroService withoutProperty(Long id) {
+        properties.remove(id);
+        return this;
+    }
+
+    @Override
+    public PropertyResponseDTO getPropertyById(Long id) {
+        singleCalls.incrementAndGet();
+        PropertyResponseDTO property = properties.get(id);
+        if (property == null) {
+            throw notFound(id);
+        }
+        return property;
+    }
+
+    @Override
+    public boolean isPropertyAvailable(Long id) {
+        return getPropertyById(id).isAvailable();
+    }
+
+    @Override
+    public void updateAvailabilityToFalse(Long id) {
+        singleCalls.incrementAndGet();
+    }
+
+    @Override
+    public void updateAvailabilityToTrue(Long id) {
+        singleCalls.incrementAndGet();
+    }
+
+    @Override
+    public TypeOfRental getTypeOfRental(Long id) {
+        return getPropertyById(id).typeOfRental();
+    }
+
+    @Override
+    public List<PropertyResponseDTO> getPropertiesByIds(List<Long> ids) {
+        batchCalls.incrementAndGet();
+        return ids.stream()
+                .map(properties::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private static FeignException notFound(Long id) {
+        Request request = Request.create(Request.HttpMethod.GET, "/api/property-microservice/properties/" + id,
+                Map.of(), null, StandardCharsets.UTF_8, null);
+        return new FeignException.NotFound("Property not found", request, null, null);
+    }
+}
@@ -0,0 +1,85 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.resilience.batch;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.configuration.PropertyResilienceProperties;
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.PropertyResponseDTO;
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.TypeOfRental;
+import com.lsiproject.app.rentalagreementmicroservicev2.openFeignClients.StubPropertyMicroService;
+import com.lsiproject.app.rentalagreementmicroservicev2.resilience.cache.PropertyCache;
+import com.lsiproject.app.rentalagreementmicroservicev2.resilience.circuitbreaker.PropertyCircuitBreaker;
+import com.lsiproject.app.rentalagreementmicroservicev2.resilience.circuitbreaker.PropertyResilience;
+import com.lsiproject.app.rentalagreementmicroservicev2.resilience.fallback.PropertyFallbackHandler;
+import com.lsiproject.app.rentalagreementmicroservicev2.resilience.fallback.PropertySnapshotStore;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PropertyBatchLoaderTest {
+
+    private StubPropertyMicroService propertyMicroService;
+    private PropertyBatchLoader batchLoader;
+
+    @BeforeEach
+    void setUp() {
+        propertyMicroService = new StubPropertyMicroService()
+                .withProperty(1L, 10L, TypeOfRental.MONTHLY)
+                .withProperty(2L, 10L, TypeOfRental.DAILY)
+                .withProperty(3L, 11L, TypeOfRental.MONTHLY);
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PropertySnapshotStore snapshotStore = new PropertySnapshotStore(meterRegistry, 100, Duration.ofMinutes(15));
+        PropertyCircuitBreaker propertyCircuitBreaker = new PropertyCircuitBreaker(
+                propertyMicroService,
+                new PropertyResilience(
+                        CircuitBreakerRegistry.ofDefaults(),
+                        BulkheadRegistry.ofDefaults(),
+                        TimeLimiterRegistry.ofDefaults(),
+                        new PropertyResilienceProperties(),
+                        new SimpleAsyncTaskExecutor("property-call-"),
+                        meterRegistry),
+                new PropertyFallbackHandler(snapshotStore, meterRegistry),
+                new PropertyCache(meterRegistry, 100, Duration.ofMinutes(1), Duration.ofSeconds(5)),
+                snapshotStore,
+                meterRegistry,
+                Duration.ofSeconds(30),
+                100);
+
+        batchLoader = new PropertyBatchLoader(propertyCircuitBreaker, 2);
+    }
+
+    @Test
+    void loadAllResolvesEveryIdInOneRemoteCall() {
+        Map<Long, PropertyResponseDTO> properties = batchLoader.loadAll(List.of(1L, 2L, 2L, 1L));
+
+        assertThat(properties).containsOnlyKeys(1L, 2L);
+        assertThat(propertyMicroService.batchCalls.get()).isEqualTo(1);
+        assertThat(propertyMicroService.singleCalls.get()).isZero();
+    }
+
+    @Test
+    void loadAllSplitsLargeListsIntoMaxSizeCalls() {
+        Map<Long, PropertyResponseDTO> properties = batchLoader.loadAll(List.of(1L, 2L, 2L, 3L, 42L));
+
+        assertThat(properties).containsOnlyKeys(1L, 2L, 3L);
+        assertThat(properties.get(3L).ownerId()).isEqualTo(11L);
+        // 4 IDs distincts, 2 par appel
+        assertThat(propertyMicroService.batchCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void loadAllSkipsPropertiesAlreadyInNearCache() {
+        batchLoader.loadAll(List.of(1L, 2L));
+        batchLoader.loadAll(List.of(1L, 2L));
+
+        assertThat(propertyMicroService.batchCalls.get()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,73 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.resilience.fallback;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.configuration.PropertyResilienceProperties;
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.TypeOfRental;
+import com.lsiproject.app.rentalagreementmicroservicev2.openFeignClients.StubPropertyMicroService;
+import com.lsiproject.app.rentalagreementmicroservicev2.resilience.cache.PropertyCache;
+import com.lsiproject.app.rentalagreementmicroservicev2.resilience.circuitbreaker.PropertyCircuitBreaker;
+import com.lsiproject.app.rentalagreementmicroservicev2.resilience.circuitbreaker.PropertyResilience;
+import feign.FeignException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PropertySnapshotStoreTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void availabilityRefreshesDoNotKeepAnOldPropertyServable() throws InterruptedException {
+        PropertySnapshotStore store = new PropertySnapshotStore(meterRegistry, 100, Duration.ofMillis(200));
+        StubPropertyMicroService properties = new StubPropertyMicroService().withProperty(1L, 10L, TypeOfRental.MONTHLY);
+        store.recordProperty(1L, properties.getPropertyById(1L));
+
+        // La disponibilité est relue bien plus souvent que la propriété (TTL du near-cache plus court)
+        for (int i = 0; i < 6; i++) {
+            Thread.sleep(60);
+            store.recordAvailability(1L, false);
+        }
+
+        assertThat(store.findProperty(1L)).isEmpty();
+        assertThat(store.findTypeOfRental(1L)).isEmpty();
+        assertThat(store.findAvailability(1L)).hasValueSatisfying(captured -> assertThat(captured.value()).isFalse());
+    }
+
+    @Test
+    void deletedPropertyIsNotServedFromItsSnapshot() {
+        StubPropertyMicroService properties = new StubPropertyMicroService().withProperty(1L, 10L, TypeOfRental.MONTHLY);
+        PropertySnapshotStore store = new PropertySnapshotStore(meterRegistry, 100, Duration.ofMinutes(15));
+        PropertyCache cache = new PropertyCache(meterRegistry, 100, Duration.ofMinutes(1), Duration.ofSeconds(5));
+        PropertyCircuitBreaker circuitBreaker = new PropertyCircuitBreaker(
+                properties,
+                new PropertyResilience(
+                        CircuitBreakerRegistry.ofDefaults(),
+                        BulkheadRegistry.ofDefaults(),
+                        TimeLimiterRegistry.ofDefaults(),
+                        new PropertyResilienceProperties(),
+                        new SimpleAsyncTaskExecutor("property-call-"),
+                        meterRegistry),
+                new PropertyFallbackHandler(store, meterRegistry),
+                cache,
+                store,
+                meterRegistry,
+                Duration.ofSeconds(30),
+                100);
+
+        circuitBreaker.getPropertyById(1L);
+        assertThat(store.findProperty(1L)).isPresent();
+
+        properties.withoutProperty(1L);
+        cache.invalidate(1L);
+
+        assertThatThrownBy(() -> circuitBreaker.getPropertyById(1L)).isInstanceOf(FeignException.NotFound.class);
+        assertThat(store.findProperty(1L)).isEmpty();
+    }
+}
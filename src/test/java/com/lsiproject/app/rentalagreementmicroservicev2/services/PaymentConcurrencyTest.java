@@ -0,0 +1,162 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.services;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.dedup.TxHashIndex;
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.PaymentCreationDto;
+import com.lsiproject.app.rentalagreementmicroservicev2.entities.RentalContract;
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.PaymentStatus;
+import com.lsiproject.app.rentalagreementmicroservicev2.mappers.PaymentMapper;
+import com.lsiproject.app.rentalagreementmicroservicev2.openFeignClients.PropertyMicroService;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.LedgerEntryRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.LedgerSnapshotRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.PaymentReportRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.PaymentRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.RentalContractRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.resilience.circuitbreaker.PropertyCircuitBreaker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Paiements simultanés sur un même contrat (H2 en mémoire, une transaction par paiement, comme createPayment) :
+ * aucun incrément du montant payé ne doit être perdu, et la règle "entièrement payé" ne doit jamais être dépassée
+ * de plus d'un paiement. Le rapport de paiement est réel : il est créé une seule fois et suit le montant payé.
+ */
+@PaymentJpaTest
+// Les paiements sont commités : la base partagée est recréée pour les classes suivantes
+@DirtiesContext
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PaymentConcurrencyTest {
+
+    private static final int PAYMENTS = 2_000;
+    private static final int THREADS = 8;
+    private static final double AMOUNT = 10.0;
+
+    @Autowired
+    private RentalContractRepository contractRepository;
+    @Autowired
+    private PaymentRepository paymentRepository;
+    @Autowired
+    private PaymentReportRepository reportRepository;
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+    @Autowired
+    private LedgerSnapshotRepository ledgerSnapshotRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private PaymentLedgerService ledgerService;
+    private PaymentService paymentService;
+    private TransactionTemplate transaction;
+
+    @BeforeEach
+    void setUp() {
+        ledgerService = new PaymentLedgerService(ledgerEntryRepository, ledgerSnapshotRepository, contractRepository,
+                paymentRepository, 50);
+        PaymentReportService reportService = new PaymentReportService(contractRepository, paymentRepository,
+                reportRepository, mock(PropertyCircuitBreaker.class), event -> { });
+        paymentService = new PaymentService(mock(PropertyMicroService.class), paymentRepository, contractRepository,
+                new PaymentMapper(), mock(NotificationService.class), reportService,
+                mock(TxHashIndex.class), ledgerService, mock(RevenueRollupService.class), event -> { }, 500);
+        transaction = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void noIncrementIsLost() throws Exception {
+        Long contractId = seedContract(1_000_000_000.0);
+
+        int accepted = payConcurrently(contractId, "lost");
+
+        assertThat(accepted).isEqualTo(PAYMENTS);
+        assertThat(payedAmount(contractId)).isEqualTo(PAYMENTS * AMOUNT);
+        assertThat(payedAmount(contractId)).isEqualTo(paymentRepository.sumAmountByContractId(contractId));
+        // Une seule suite d'écritures (contrainte d'unicité) malgré les ajouts concurrents
+        assertThat(ledgerBalance(contractId)).isEqualTo(PAYMENTS * AMOUNT);
+        assertThat(reportTotalPaid(contractId)).isEqualTo(PAYMENTS * AMOUNT);
+    }
+
+    @Test
+    void fullyPaidRuleHoldsUnderContention() throws Exception {
+        double totalToPay = 500 * AMOUNT;
+        Long contractId = seedContract(totalToPay);
+
+        int accepted = payConcurrently(contractId, "cap");
+
+        // Le dernier paiement accepté est celui qui atteint le total : refusés ensuite, et annulés en entier
+        assertThat(accepted).isEqualTo(500);
+        assertThat(payedAmount(contractId)).isEqualTo(totalToPay);
+        assertThat(paymentRepository.sumAmountByContractId(contractId)).isEqualTo(totalToPay);
+        assertThat(ledgerBalance(contractId)).isEqualTo(totalToPay);
+        assertThat(reportTotalPaid(contractId)).isEqualTo(totalToPay);
+    }
+
+    private int payConcurrently(Long contractId, String prefix) throws Exception {
+        AtomicInteger accepted = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < PAYMENTS; i++) {
+                PaymentCreationDto dto = new PaymentCreationDto();
+                dto.setRentalContractId(contractId);
+                dto.setAmount(AMOUNT);
+                dto.setTxHash("0x" + prefix + "-" + i);
+                dto.setStatus(PaymentStatus.CONFIRMED);
+                dto.setTimestamp(LocalDateTime.now());
+                dto.setTenantId(100L);
+
+                futures.add(pool.submit(() -> {
+                    try {
+                        transaction.executeWithoutResult(status -> paymentService.createPayment(dto));
+                        accepted.incrementAndGet();
+                    } catch (ResponseStatusException rejected) {
+                        // Contrat entièrement payé
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return accepted.get();
+    }
+
+    private Long seedContract(double totalToPay) {
+        RentalContract contract =
+                PaymentFixtures.activeContract(AMOUNT, LocalDate.now().minusMonths(1), LocalDate.now().plusYears(1));
+        contract.setTotalAmountToPay(totalToPay);
+        return transaction.execute(status -> contractRepository.save(contract).getIdContract());
+    }
+
+    private Double ledgerBalance(Long contractId) {
+        return transaction.execute(status -> ledgerService.balance(contractId).balance());
+    }
+
+    // Échoue s'il existe plusieurs rapports pour le contrat
+    private Double reportTotalPaid(Long contractId) {
+        return transaction.execute(status ->
+                reportRepository.findByRentalContract_IdContract(contractId).getTotalPaidSoFar());
+    }
+
+    private Double payedAmount(Long contractId) {
+        return transaction.execute(status -> contractRepository.findById(contractId).orElseThrow().getPayedAmount());
+    }
+}
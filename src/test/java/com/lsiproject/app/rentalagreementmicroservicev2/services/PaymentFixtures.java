@@ -0,0 +1,58 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.services;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.entities.Payment;
+import com.lsiproject.app.rentalagreementmicroservicev2.entities.RentalContract;
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.PaymentStatus;
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.RentalContractState;
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.TypeOfRental;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contrats et paiements des tests JPA (voir PaymentJpaTest), non enregistrés : chaque test ajuste
+ * les champs qui comptent pour lui avant de les sauvegarder.
+ */
+final class PaymentFixtures {
+
+    // agreementIdOnChain est unique : un identifiant distinct par contrat, y compris entre classes de test
+    private static final AtomicLong AGREEMENT_IDS = new AtomicLong();
+
+    private PaymentFixtures() {
+    }
+
+    /**
+     * Contrat ACTIVE mensuel du propriétaire 1 et du locataire 100, rien de payé,
+     * avec un total à payer qu'aucun test n'atteint sans le fixer lui-même.
+     */
+    static RentalContract activeContract(double rentAmount, LocalDate startDate, LocalDate endDate) {
+        RentalContract contract = new RentalContract();
+        contract.setAgreementIdOnChain(AGREEMENT_IDS.incrementAndGet());
+        contract.setOwnerId(1L);
+        contract.setTenantId(100L);
+        contract.setPropertyId(1L);
+        contract.setSecurityDeposit(rentAmount);
+        contract.setRentAmount(rentAmount);
+        contract.setStartDate(startDate);
+        contract.setEndDate(endDate);
+        contract.setTotalAmountToPay(1_000_000_000.0);
+        contract.setPayedAmount(0.0);
+        contract.setTypeOfRental(TypeOfRental.MONTHLY);
+        contract.setState(RentalContractState.ACTIVE);
+        return contract;
+    }
+
+    // Paiement du locataire 100 sur le contrat
+    static Payment payment(RentalContract contract, double amount, String txHash, PaymentStatus status,
+                           LocalDateTime timestamp) {
+        Payment payment = new Payment();
+        payment.setRentalContract(contract);
+        payment.setAmount(amount);
+        payment.setTxHash(txHash);
+        payment.setStatus(status);
+        payment.setTimestamp(timestamp);
+        payment.setTenantId(100L);
+        return payment;
+    }
+}
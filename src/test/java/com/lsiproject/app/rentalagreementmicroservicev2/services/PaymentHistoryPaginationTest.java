@@ -0,0 +1,122 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.services;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.dedup.TxHashIndex;
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.PaymentDto;
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.PaymentHistoryPage;
+import com.lsiproject.app.rentalagreementmicroservicev2.entities.Payment;
+import com.lsiproject.app.rentalagreementmicroservicev2.entities.RentalContract;
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.PaymentStatus;
+import com.lsiproject.app.rentalagreementmicroservicev2.mappers.PaymentMapper;
+import com.lsiproject.app.rentalagreementmicroservicev2.openFeignClients.PropertyMicroService;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.PaymentRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.RentalContractRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.security.UserPrincipal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Parcours de l'historique page par page : chaque paiement est rendu une seule fois, dans l'ordre
+ * (timestamp DESC, idPayment DESC), y compris quand plusieurs paiements partagent le même horodatage.
+ */
+@PaymentJpaTest
+class PaymentHistoryPaginationTest {
+
+    private static final int PAYMENTS = 120;
+    private static final UserPrincipal ADMIN = new UserPrincipal(999L, "0xadmin", Set.of("ADMIN"));
+
+    @Autowired
+    private RentalContractRepository contractRepository;
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    private PaymentService paymentService;
+
+    @BeforeEach
+    void setUp() {
+        paymentService = new PaymentService(mock(PropertyMicroService.class), paymentRepository, contractRepository,
+                new PaymentMapper(), mock(NotificationService.class), mock(PaymentReportService.class),
+                mock(TxHashIndex.class), mock(PaymentLedgerService.class), mock(RevenueRollupService.class), event -> { }, 500);
+    }
+
+    @Test
+    void walksTheWholeHistoryWithoutGapsOrDuplicates() {
+        RentalContract contract = seedContract();
+        // Trois paiements par horodatage : seul l'identifiant départage l'ordre
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 12, 0);
+        List<Payment> payments = new ArrayList<>();
+        for (int i = 0; i < PAYMENTS; i++) {
+            payments.add(payment(contract, "0xpage-" + i, base.plusHours(i / 3)));
+        }
+        paymentRepository.saveAll(payments);
+
+        List<Long> expected = payments.stream()
+                .sorted(Comparator.comparing(Payment::getTimestamp).thenComparing(Payment::getIdPayment).reversed())
+                .map(Payment::getIdPayment)
+                .toList();
+
+        List<Long> walked = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            PaymentHistoryPage page = paymentService.getPaymentHistoryByContract(contract.getIdContract(), cursor, 25, ADMIN);
+            assertThat(page.payments()).hasSizeLessThanOrEqualTo(25);
+            page.payments().stream().map(PaymentDto::getIdPayment).forEach(walked::add);
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(5);
+        assertThat(walked).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void lastFullPageHasNoCursor() {
+        RentalContract contract = seedContract();
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 12, 0);
+        List<Payment> payments = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            payments.add(payment(contract, "0xexact-" + i, base.plusDays(i)));
+        }
+        paymentRepository.saveAll(payments);
+
+        PaymentHistoryPage page = paymentService.getPaymentHistoryByContract(contract.getIdContract(), null, 10, ADMIN);
+
+        assertThat(page.payments()).hasSize(10);
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    void rejectsMalformedCursorAndOversizedPage() {
+        Long contractId = seedContract().getIdContract();
+
+        assertThatThrownBy(() -> paymentService.getPaymentHistoryByContract(contractId, "not-a-cursor", 10, ADMIN))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+        assertThatThrownBy(() -> paymentService.getPaymentHistoryByContract(contractId, null, 501, ADMIN))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+    }
+
+    private RentalContract seedContract() {
+        return contractRepository.save(
+                PaymentFixtures.activeContract(10.0, LocalDate.of(2025, 1, 1), LocalDate.of(2026, 1, 1)));
+    }
+
+    private static Payment payment(RentalContract contract, String txHash, LocalDateTime timestamp) {
+        return PaymentFixtures.payment(contract, 10.0, txHash, PaymentStatus.CONFIRMED, timestamp);
+    }
+}
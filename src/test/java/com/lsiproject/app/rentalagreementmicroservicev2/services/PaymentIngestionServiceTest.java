@@ -0,0 +1,195 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.services;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.dedup.TxHashIndex;
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.PaymentCreationDto;
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.PaymentIngestionResultDto;
+import com.lsiproject.app.rentalagreementmicroservicev2.entities.RentalContract;
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.PaymentIngestionOutcome;
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.PaymentStatus;
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.RentalContractState;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.PaymentRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.RentalContractRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Captor;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentIngestionServiceTest {
+
+    @Captor
+    private ArgumentCaptor<List<Object[]>> rows;
+    @Captor
+    private ArgumentCaptor<List<RevenueRollupService.RevenueDelta>> revenue;
+
+    private TxHashIndex txHashIndex;
+    private PaymentRepository paymentRepository;
+    private RentalContractRepository contractRepository;
+    private PaymentReportService reportService;
+    private PaymentLedgerService ledgerService;
+    private RevenueRollupService revenueRollupService;
+    private JdbcTemplate jdbcTemplate;
+    private PaymentIngestionService ingestionService;
+
+    private RentalContract active;
+    private RentalContract closed;
+
+    @BeforeEach
+    void setUp() {
+        txHashIndex = mock(TxHashIndex.class);
+        paymentRepository = mock(PaymentRepository.class);
+        contractRepository = mock(RentalContractRepository.class);
+        reportService = mock(PaymentReportService.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        ledgerService = mock(PaymentLedgerService.class);
+        revenueRollupService = mock(RevenueRollupService.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        // Point de sauvegarde de l'INSERT, absent quand le lot n'écrit rien
+        lenient().when(jdbcTemplate.execute(ArgumentMatchers.<ConnectionCallback<Boolean>>any()))
+                .thenAnswer(call -> call.<ConnectionCallback<Boolean>>getArgument(0).doInConnection(mock(Connection.class)));
+        ingestionService = new PaymentIngestionService(txHashIndex, paymentRepository, contractRepository, reportService,
+                ledgerService, revenueRollupService, mock(NotificationService.class), jdbcTemplate, event -> { },
+                transactionManager, 100);
+
+        active = contract(1L, RentalContractState.ACTIVE, 0.0);
+        closed = contract(2L, RentalContractState.CLOSED, 0.0);
+        when(contractRepository.findAllByIdForUpdate(anyCollection())).thenReturn(List.of(active, closed));
+        when(txHashIndex.findExisting(anyCollection())).thenReturn(new HashSet<>(Set.of("0xknown")));
+    }
+
+    @Test
+    void reportsAnOutcomePerItemAndWritesInOneBatch() {
+        List<PaymentIngestionResultDto> results = ingestionService.ingest(List.of(
+                payment("0xa", 1L, 1000.0, null),
+                payment("0xknown", 1L, 1000.0, null),
+                payment("0xa", 1L, 1000.0, null),
+                payment("0xb", 2L, 1000.0, null),
+                payment("0xc", 9L, 1000.0, null),
+                payment("0xd", 1L, 500.0, PaymentStatus.PENDING),
+                payment("0xe", 1L, 2000.0, null),
+                payment(null, 1L, 1000.0, null)));
+
+        assertThat(results).extracting(PaymentIngestionResultDto::outcome).containsExactly(
+                PaymentIngestionOutcome.CREATED,
+                PaymentIngestionOutcome.DUPLICATE,
+                PaymentIngestionOutcome.DUPLICATE,
+                PaymentIngestionOutcome.REJECTED,
+                PaymentIngestionOutcome.REJECTED,
+                PaymentIngestionOutcome.CREATED,
+                PaymentIngestionOutcome.CREATED,
+                PaymentIngestionOutcome.REJECTED);
+
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), rows.capture());
+        assertThat(rows.getValue()).extracting(row -> row[2]).containsExactly("0xa", "0xd", "0xe");
+
+        assertThat(active.getPayedAmount()).isEqualTo(3500.0);
+        verify(reportService).applyPayment(active, 3000.0);
+        verify(ledgerService).post(1L, List.of(
+                PaymentLedgerService.Posting.payment(1000.0, "0xa"),
+                PaymentLedgerService.Posting.payment(500.0, "0xd"),
+                PaymentLedgerService.Posting.payment(2000.0, "0xe")));
+        verify(revenueRollupService).apply(eq(active), revenue.capture());
+        assertThat(revenue.getValue()).extracting(RevenueRollupService.RevenueDelta::amount).containsExactly(1000.0, 2000.0);
+        verify(txHashIndex, times(1)).findExisting(anyCollection());
+        verify(txHashIndex).add("0xe");
+    }
+
+    @Test
+    void stopsAcceptingOnceTheContractIsFullyPaid() {
+        active.setPayedAmount(11_000.0);
+
+        List<PaymentIngestionResultDto> results = ingestionService.ingest(List.of(
+                payment("0xa", 1L, 1000.0, null),
+                payment("0xb", 1L, 1000.0, null)));
+
+        assertThat(results).extracting(PaymentIngestionResultDto::outcome)
+                .containsExactly(PaymentIngestionOutcome.CREATED, PaymentIngestionOutcome.REJECTED);
+    }
+
+    @Test
+    void replayingAnIngestedBatchWritesNothing() {
+        when(txHashIndex.findExisting(anyCollection())).thenReturn(new HashSet<>(Set.of("0xa", "0xb")));
+
+        List<PaymentIngestionResultDto> results = ingestionService.ingest(List.of(
+                payment("0xa", 1L, 1000.0, null),
+                payment("0xb", 1L, 1000.0, null)));
+
+        assertThat(results).extracting(PaymentIngestionResultDto::outcome)
+                .containsOnly(PaymentIngestionOutcome.DUPLICATE);
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), any(List.class));
+        verify(reportService, never()).applyPayment(any(), any());
+    }
+
+    @Test
+    void paymentRecordedConcurrentlyBecomesADuplicateAndTheRestIsWritten() {
+        // "0xa" enregistré par une autre transaction après la lecture des hashes connus
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new DuplicateKeyException("uk_tx_hash"))
+                .thenReturn(new int[]{1});
+        when(paymentRepository.findExistingTxHashes(anyCollection())).thenReturn(List.of("0xa"));
+
+        List<PaymentIngestionResultDto> results = ingestionService.ingest(List.of(
+                payment("0xa", 1L, 1000.0, null),
+                payment("0xb", 1L, 2000.0, null)));
+
+        assertThat(results).extracting(PaymentIngestionResultDto::outcome)
+                .containsExactly(PaymentIngestionOutcome.DUPLICATE, PaymentIngestionOutcome.CREATED);
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), rows.capture());
+        assertThat(rows.getValue()).extracting(row -> row[2]).containsExactly("0xb");
+        assertThat(active.getPayedAmount()).isEqualTo(2000.0);
+        verify(reportService).applyPayment(active, 2000.0);
+        verify(txHashIndex).add("0xa");
+        verify(txHashIndex).add("0xb");
+    }
+
+    private static RentalContract contract(Long id, RentalContractState state, double payed) {
+        RentalContract contract = new RentalContract();
+        contract.setIdContract(id);
+        contract.setOwnerId(7L);
+        contract.setTenantId(8L);
+        contract.setPropertyId(9L);
+        contract.setState(state);
+        contract.setPayedAmount(payed);
+        contract.setTotalAmountToPay(12_000.0);
+        return contract;
+    }
+
+    private static PaymentCreationDto payment(String txHash, Long contractId, double amount, PaymentStatus status) {
+        PaymentCreationDto dto = new PaymentCreationDto();
+        dto.setTxHash(txHash);
+        dto.setRentalContractId(contractId);
+        dto.setAmount(amount);
+        dto.setStatus(status);
+        dto.setTimestamp(LocalDateTime.now());
+        dto.setTenantId(8L);
+        return dto;
+    }
+}
@@ -0,0 +1,29 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.services;
+
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Test JPA des services de paiement sur H2 en mémoire (schéma créé depuis les entités).
+ *
+ * Les classes annotées partagent un même contexte, donc une même base : un test qui commite ses données
+ * (hors de la transaction annulée de @DataJpaTest) rend le contexte avec @DirtiesContext.
+ * LOCK_TIMEOUT laisse les transactions concurrentes attendre un verrou de ligne au lieu d'échouer.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@DataJpaTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:payments;NON_KEYWORDS=TIMESTAMP;LOCK_TIMEOUT=30000",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@interface PaymentJpaTest {
+}
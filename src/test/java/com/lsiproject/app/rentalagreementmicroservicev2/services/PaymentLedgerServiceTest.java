@@ -0,0 +1,155 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.services;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.LedgerBalanceDto;
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.LedgerDiscrepancyDto;
+import com.lsiproject.app.rentalagreementmicroservicev2.entities.LedgerEntry;
+import com.lsiproject.app.rentalagreementmicroservicev2.entities.LedgerSnapshot;
+import com.lsiproject.app.rentalagreementmicroservicev2.entities.Payment;
+import com.lsiproject.app.rentalagreementmicroservicev2.entities.RentalContract;
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.LedgerEntryType;
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.PaymentStatus;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.LedgerEntryRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.LedgerSnapshotRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.PaymentRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.RentalContractRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@PaymentJpaTest
+class PaymentLedgerServiceTest {
+
+    private static final int SNAPSHOT_EVERY = 10;
+
+    @Autowired
+    private LedgerEntryRepository entryRepository;
+    @Autowired
+    private LedgerSnapshotRepository snapshotRepository;
+    @Autowired
+    private RentalContractRepository contractRepository;
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    private PaymentLedgerService ledgerService;
+
+    @BeforeEach
+    void setUp() {
+        ledgerService = new PaymentLedgerService(entryRepository, snapshotRepository, contractRepository,
+                paymentRepository, SNAPSHOT_EVERY);
+    }
+
+    @Test
+    void balanceIsTheLatestSnapshotPlusTheTail() {
+        RentalContract contract = seedContract(0.0);
+        double expected = 0;
+        for (int i = 1; i <= 25; i++) {
+            pay(contract, i, "0xsnap-" + i);
+            expected += i;
+        }
+
+        assertThat(snapshotRepository.findAll())
+                .extracting(LedgerSnapshot::getEntrySeq, LedgerSnapshot::getBalance)
+                .containsExactlyInAnyOrder(
+                        tuple(10L, 55.0),
+                        tuple(20L, 210.0));
+
+        LedgerBalanceDto balance = ledgerService.balance(contract.getIdContract());
+        assertThat(balance.balance()).isEqualTo(expected);
+        assertThat(balance.lastEntrySeq()).isEqualTo(25L);
+        assertThat(ledgerService.reconcile(List.of(reload(contract)))).isEmpty();
+    }
+
+    @Test
+    void firstPostingOpensTheLedgerWithThePriorPayedAmount() {
+        // 500 payés avant l'existence du grand livre, puis un paiement de 100 (déjà ajouté au montant payé)
+        RentalContract contract = seedContract(600.0);
+
+        ledgerService.post(contract.getIdContract(), List.of(PaymentLedgerService.Posting.payment(100.0, "0xnew")));
+
+        assertThat(entries(contract))
+                .extracting(LedgerEntry::getSeq, LedgerEntry::getType, LedgerEntry::getAmount)
+                .containsExactly(
+                        tuple(1L, LedgerEntryType.OPENING, 500.0),
+                        tuple(2L, LedgerEntryType.PAYMENT, 100.0));
+        assertThat(ledgerService.balance(contract.getIdContract()).balance()).isEqualTo(600.0);
+    }
+
+    @Test
+    void reversalIsAppendedAndBalanceAsOfKeepsThePast() throws InterruptedException {
+        RentalContract contract = seedContract(0.0);
+        for (int i = 1; i <= 12; i++) {
+            pay(contract, 100.0, "0xasof-" + i);
+        }
+        Thread.sleep(5);
+        LocalDateTime beforeReversal = LocalDateTime.now();
+        Thread.sleep(5);
+
+        contract = reload(contract);
+        contract.setPayedAmount(contract.getPayedAmount() - 100.0);
+        contractRepository.saveAndFlush(contract);
+        Payment reversed = paymentRepository.findAll().stream()
+                .filter(payment -> payment.getTxHash().equals("0xasof-3")).findFirst().orElseThrow();
+        reversed.setStatus(PaymentStatus.FAILED);
+        ledgerService.post(contract.getIdContract(), List.of(PaymentLedgerService.Posting.reversal(100.0, "0xasof-3")));
+
+        assertThat(entries(contract)).hasSize(13).last()
+                .extracting(LedgerEntry::getType, LedgerEntry::getAmount, LedgerEntry::getTxHash)
+                .containsExactly(LedgerEntryType.REVERSAL, -100.0, "0xasof-3");
+        assertThat(ledgerService.balance(contract.getIdContract()).balance()).isEqualTo(1100.0);
+        assertThat(ledgerService.balanceAsOf(contract.getIdContract(), beforeReversal))
+                .extracting(LedgerBalanceDto::balance, LedgerBalanceDto::lastEntrySeq)
+                .containsExactly(1200.0, 12L);
+        assertThat(ledgerService.reconcile(List.of(reload(contract)))).isEmpty();
+    }
+
+    @Test
+    void reconciliationReportsDriftAndSkipsContractsWithoutLedger() {
+        RentalContract drifted = seedContract(0.0);
+        pay(drifted, 300.0, "0xdrift-1");
+        drifted = reload(drifted);
+        drifted.setPayedAmount(250.0);
+        contractRepository.saveAndFlush(drifted);
+
+        RentalContract withoutLedger = seedContract(999.0);
+
+        assertThat(ledgerService.reconcile(List.of(reload(drifted), withoutLedger)))
+                .containsExactly(new LedgerDiscrepancyDto(drifted.getIdContract(), 300.0, 250.0, 300.0));
+    }
+
+    // Comme PaymentService : paiement enregistré, montant payé augmenté, puis écriture au grand livre
+    private void pay(RentalContract contract, double amount, String txHash) {
+        paymentRepository.save(
+                PaymentFixtures.payment(contract, amount, txHash, PaymentStatus.CONFIRMED, LocalDateTime.now()));
+        contractRepository.addPaymentIfPayable(contract.getIdContract(), amount);
+
+        ledgerService.post(contract.getIdContract(), List.of(PaymentLedgerService.Posting.payment(amount, txHash)));
+    }
+
+    private List<LedgerEntry> entries(RentalContract contract) {
+        return entryRepository.findAll().stream()
+                .filter(entry -> entry.getContractId().equals(contract.getIdContract()))
+                .sorted(Comparator.comparing(LedgerEntry::getSeq))
+                .toList();
+    }
+
+    private RentalContract reload(RentalContract contract) {
+        RentalContract reloaded = contractRepository.findById(contract.getIdContract()).orElseThrow();
+        reloaded.setPayedAmount(contractRepository.findPayedAmountById(contract.getIdContract()));
+        return reloaded;
+    }
+
+    private RentalContract seedContract(double payedAmount) {
+        RentalContract contract =
+                PaymentFixtures.activeContract(100.0, LocalDate.of(2025, 1, 1), LocalDate.of(2026, 1, 1));
+        contract.setPayedAmount(payedAmount);
+        return contractRepository.saveAndFlush(contract);
+    }
+}
@@ -0,0 +1,145 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.services;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.entities.PaymentReport;
+import com.lsiproject.app.rentalagreementmicroservicev2.entities.RentalContract;
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.PaymentStatus;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.PaymentReportRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.PaymentRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.RentalContractRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.resilience.circuitbreaker.PropertyCircuitBreaker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.LongConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Benchmark du rapport de paiement sur 1M de paiements (H2 en mémoire) :
+ * recalcul complet (somme de tous les paiements du contrat) vs application incrémentale du paiement.
+ * Non exécuté par défaut :
+ *
+ *   ./mvnw test -Dtest=PaymentReportIncrementalBenchmarkTest -Dbenchmark=true
+ *
+ * Vérifie à la fin que les deux chemins donnent le même total payé.
+ */
+@PaymentJpaTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class PaymentReportIncrementalBenchmarkTest {
+
+    private static final int CONTRACTS = 10_000;
+    private static final int PAYMENTS_PER_CONTRACT = 100;
+    private static final int NEW_PAYMENTS = 2_000;
+    private static final double RENT = 1000.0;
+
+    @Autowired
+    private RentalContractRepository contractRepository;
+    @Autowired
+    private PaymentRepository paymentRepository;
+    @Autowired
+    private PaymentReportRepository reportRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private PaymentReportService reportService;
+    private List<Long> contractIds;
+
+    @BeforeEach
+    void seed() {
+        reportService = new PaymentReportService(contractRepository, paymentRepository, reportRepository,
+                mock(PropertyCircuitBreaker.class), event -> { });
+
+        List<RentalContract> contracts = new ArrayList<>();
+        for (int i = 0; i < CONTRACTS; i++) {
+            RentalContract contract =
+                    PaymentFixtures.activeContract(RENT, LocalDate.now().minusYears(2), LocalDate.now().plusYears(2));
+            contract.setTenantId(100L + i);
+            contract.setPropertyId((long) i);
+            contract.setTotalAmountToPay(48 * RENT);
+            contracts.add(contract);
+        }
+        contractIds = contractRepository.saveAll(contracts).stream().map(RentalContract::getIdContract).toList();
+        entityManager.flush();
+        entityManager.clear();
+
+        // 1M paiements insérés en JDBC (le chemin JPA serait trop lent pour le jeu de données)
+        Timestamp paidAt = Timestamp.valueOf(LocalDateTime.now().minusMonths(1));
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < CONTRACTS; i++) {
+            for (int j = 0; j < PAYMENTS_PER_CONTRACT; j++) {
+                rows.add(new Object[]{contractIds.get(i), RENT / 10, "0xseed-" + i + "-" + j,
+                        PaymentStatus.CONFIRMED.name(), paidAt, 100L + i});
+                if (rows.size() == 10_000) {
+                    insertPayments(rows);
+                    rows.clear();
+                }
+            }
+        }
+        insertPayments(rows);
+    }
+
+    private void insertPayments(List<Object[]> rows) {
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO payments (rental_contract_id, amount, tx_hash, status, timestamp, tenant_id) VALUES (?, ?, ?, ?, ?, ?)",
+                rows);
+    }
+
+    @Test
+    void incrementalVersusFullRecomputation() {
+        // Rapports initiaux : les deux chemins mettent ensuite à jour un rapport existant
+        for (int start = 0; start < CONTRACTS; start += 500) {
+            reportService.regenerateReports(contractRepository.findAllById(
+                    contractIds.subList(start, Math.min(start + 500, CONTRACTS))));
+            entityManager.flush();
+            entityManager.clear();
+        }
+
+        Random random = new Random(42);
+        double fullPerSecond = run("full", random, contractId -> reportService.generateAndSaveReport(contractId));
+        double incrementalPerSecond = run("incremental", random, contractId ->
+                reportService.applyPayment(contractRepository.findById(contractId).orElseThrow(), RENT / 10));
+
+        System.out.printf("full recomputation: %.0f payments/s%n", fullPerSecond);
+        System.out.printf("incremental:        %.0f payments/s%n", incrementalPerSecond);
+
+        for (Long contractId : contractIds.subList(0, 200)) {
+            PaymentReport report = reportRepository.findByRentalContract_IdContract(contractId);
+            assertThat(report.getTotalPaidSoFar())
+                    .isEqualTo(paymentRepository.sumAmountByContractId(contractId));
+        }
+    }
+
+    /**
+     * Enregistre NEW_PAYMENTS paiements sur des contrats tirés au hasard et met le rapport à jour avec {@code update}.
+     */
+    private double run(String label, Random random, LongConsumer update) {
+        long start = System.nanoTime();
+        for (int i = 0; i < NEW_PAYMENTS; i++) {
+            Long contractId = contractIds.get(random.nextInt(200));
+
+            paymentRepository.save(PaymentFixtures.payment(contractRepository.getReferenceById(contractId), RENT / 10,
+                    "0x" + label + "-" + i, PaymentStatus.CONFIRMED, LocalDateTime.now()));
+
+            update.accept(contractId);
+            entityManager.flush();
+            if (i % 500 == 0) {
+                entityManager.clear();
+            }
+        }
+        entityManager.clear();
+        return NEW_PAYMENTS * 1_000_000_000.0 / (System.nanoTime() - start);
+    }
+}
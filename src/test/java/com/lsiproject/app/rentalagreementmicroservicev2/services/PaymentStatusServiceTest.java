@@ -0,0 +1,111 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.services;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.PaymentStatusDto;
+import com.lsiproject.app.rentalagreementmicroservicev2.entities.PaymentReport;
+import com.lsiproject.app.rentalagreementmicroservicev2.entities.RentalContract;
+import com.lsiproject.app.rentalagreementmicroservicev2.events.RentalActivityEvent;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.PaymentReportRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PaymentStatusServiceTest {
+
+    private static final Long CONTRACT_ID = 5L;
+
+    private PaymentReportRepository reportRepository;
+    private PaymentReportService reportService;
+    private PaymentStatusService statusService;
+
+    @BeforeEach
+    void setUp() {
+        reportRepository = mock(PaymentReportRepository.class);
+        reportService = mock(PaymentReportService.class);
+        statusService = new PaymentStatusService(reportRepository, reportService,
+                new SimpleMeterRegistry(), 100, Duration.ofMinutes(10));
+    }
+
+    @Test
+    void servesThePersistedReportFromCacheUntilActivityOnTheContract() {
+        when(reportRepository.findWithContractByContractId(CONTRACT_ID)).thenReturn(Optional.of(report(2000.0)));
+
+        PaymentStatusService.CachedPaymentStatus first = statusService.getStatus(CONTRACT_ID, false);
+        PaymentStatusService.CachedPaymentStatus second = statusService.getStatus(CONTRACT_ID, false);
+        assertThat(second).isSameAs(first);
+        assertThat(first.status().getTotalPaidSoFar()).isEqualTo(2000.0);
+        verify(reportRepository, times(1)).findWithContractByContractId(CONTRACT_ID);
+
+        statusService.onRentalActivity(new RentalActivityEvent(99L, 1L, 1L));
+        statusService.getStatus(CONTRACT_ID, false);
+        verify(reportRepository, times(1)).findWithContractByContractId(CONTRACT_ID);
+
+        statusService.onRentalActivity(new RentalActivityEvent(CONTRACT_ID, 1L, 1L));
+        PaymentStatusService.CachedPaymentStatus reloaded = statusService.getStatus(CONTRACT_ID, false);
+        verify(reportRepository, times(2)).findWithContractByContractId(CONTRACT_ID);
+        verify(reportService, never()).generateAndSaveReport(anyLong());
+
+        // Same content, same tag: the client keeps getting 304
+        assertThat(reloaded.etag()).isEqualTo(first.etag());
+    }
+
+    @Test
+    void etagChangesWithTheContent() {
+        when(reportRepository.findWithContractByContractId(CONTRACT_ID)).thenReturn(Optional.of(report(2000.0)));
+        String before = statusService.getStatus(CONTRACT_ID, false).etag();
+
+        when(reportRepository.findWithContractByContractId(CONTRACT_ID)).thenReturn(Optional.of(report(3000.0)));
+        statusService.onRentalActivity(new RentalActivityEvent(CONTRACT_ID, 1L, 1L));
+
+        assertThat(statusService.getStatus(CONTRACT_ID, false).etag()).isNotEqualTo(before);
+    }
+
+    @Test
+    void generatesOnlyWithoutPersistedReportOrOnRefresh() {
+        when(reportRepository.findWithContractByContractId(CONTRACT_ID)).thenReturn(Optional.empty());
+        when(reportService.generateAndSaveReport(CONTRACT_ID)).thenReturn(status(1000.0));
+
+        statusService.getStatus(CONTRACT_ID, false);
+        statusService.getStatus(CONTRACT_ID, false);
+        verify(reportService, times(1)).generateAndSaveReport(CONTRACT_ID);
+
+        statusService.getStatus(CONTRACT_ID, true);
+        verify(reportService, times(2)).generateAndSaveReport(CONTRACT_ID);
+    }
+
+    private static PaymentReport report(double totalPaid) {
+        RentalContract contract = new RentalContract();
+        contract.setIdContract(CONTRACT_ID);
+
+        PaymentReport report = new PaymentReport();
+        report.setRentalContract(contract);
+        report.setTotalPaidSoFar(totalPaid);
+        report.setTotalExpectedSoFar(3000.0);
+        report.setPaidPeriods((int) (totalPaid / 1000));
+        report.setMissedPeriods(3 - (int) (totalPaid / 1000));
+        report.setStatus(totalPaid < 3000.0 ? "LATE" : "UP_TO_DATE");
+        report.setTenentID(1L);
+        return report;
+    }
+
+    private static PaymentStatusDto status(double totalPaid) {
+        return PaymentStatusDto.builder()
+                .totalPaidSoFar(totalPaid)
+                .totalExpectedSoFar(3000.0)
+                .missedDates(List.of())
+                .status("LATE")
+                .tenentId(1L)
+                .build();
+    }
+}
@@ -0,0 +1,91 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.services;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.OwnerPortfolioDto;
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.RentalContractState;
+import com.lsiproject.app.rentalagreementmicroservicev2.events.RentalActivityEvent;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.PaymentReportRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.PaymentRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.RentalContractRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PortfolioReportServiceTest {
+
+    private static final Long OWNER_ID = 7L;
+
+    private RentalContractRepository contractRepository;
+    private PaymentRepository paymentRepository;
+    private PaymentReportRepository reportRepository;
+    private PortfolioReportService portfolioService;
+
+    @BeforeEach
+    void setUp() {
+        contractRepository = mock(RentalContractRepository.class);
+        paymentRepository = mock(PaymentRepository.class);
+        reportRepository = mock(PaymentReportRepository.class);
+        portfolioService = new PortfolioReportService(contractRepository, paymentRepository, reportRepository,
+                new SimpleMeterRegistry(), 100, Duration.ofMinutes(10));
+
+        when(contractRepository.aggregateByStateForOwner(OWNER_ID)).thenReturn(List.of(
+                stateAggregate(RentalContractState.ACTIVE, 3, 36_000.0),
+                stateAggregate(RentalContractState.DISPUTED, 1, 12_000.0)));
+        when(paymentRepository.sumConfirmedAmountByOwnerId(OWNER_ID)).thenReturn(9_000.0);
+        when(reportRepository.aggregateForOwner(OWNER_ID)).thenReturn(reportAggregate(10_000.0, 1L, 2L));
+    }
+
+    @Test
+    void combinesTheOwnerAggregates() {
+        OwnerPortfolioDto portfolio = portfolioService.getPortfolio(OWNER_ID);
+
+        assertThat(portfolio.totalContracts()).isEqualTo(4);
+        assertThat(portfolio.disputedContracts()).isEqualTo(1);
+        assertThat(portfolio.contractsByState()).containsEntry(RentalContractState.ACTIVE, 3L);
+        assertThat(portfolio.totalContractAmount()).isEqualTo(48_000.0);
+        assertThat(portfolio.totalExpectedSoFar()).isEqualTo(10_000.0);
+        assertThat(portfolio.totalPaid()).isEqualTo(9_000.0);
+        assertThat(portfolio.lateContracts()).isEqualTo(1);
+        assertThat(portfolio.missedPeriods()).isEqualTo(2);
+    }
+
+    @Test
+    void servesFromCacheUntilActivityOnTheOwnerContracts() {
+        portfolioService.getPortfolio(OWNER_ID);
+        portfolioService.getPortfolio(OWNER_ID);
+        verify(contractRepository, times(1)).aggregateByStateForOwner(OWNER_ID);
+
+        portfolioService.onRentalActivity(new RentalActivityEvent(1L, 99L, 1L));
+        portfolioService.getPortfolio(OWNER_ID);
+        verify(contractRepository, times(1)).aggregateByStateForOwner(OWNER_ID);
+
+        portfolioService.onRentalActivity(new RentalActivityEvent(1L, OWNER_ID, 1L));
+        portfolioService.getPortfolio(OWNER_ID);
+        verify(contractRepository, times(2)).aggregateByStateForOwner(OWNER_ID);
+    }
+
+    private static RentalContractRepository.StateAggregate stateAggregate(RentalContractState state, long contracts,
+                                                                          double totalAmount) {
+        return new RentalContractRepository.StateAggregate() {
+            public RentalContractState getState() { return state; }
+            public Long getContracts() { return contracts; }
+            public Double getTotalAmount() { return totalAmount; }
+        };
+    }
+
+    private static PaymentReportRepository.OwnerReportAggregate reportAggregate(double expected, long late, long missed) {
+        return new PaymentReportRepository.OwnerReportAggregate() {
+            public Double getTotalExpected() { return expected; }
+            public Long getLateContracts() { return late; }
+            public Long getMissedPeriods() { return missed; }
+        };
+    }
+}
@@ -0,0 +1,116 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.ReportFeatureRow;
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.RentalContractState;
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.TypeOfRental;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.PaymentReportRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReportExportServiceTest {
+
+    private static final LocalDateTime UPDATED_AT = LocalDateTime.of(2025, 3, 1, 10, 0);
+
+    private PaymentReportRepository reportRepository;
+    private ReportExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        reportRepository = mock(PaymentReportRepository.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        exportService = new ReportExportService(reportRepository, transactionManager, objectMapper,
+                new SimpleMeterRegistry(), 1, 1);
+    }
+
+    @Test
+    void writesOneJsonObjectPerLine() throws Exception {
+        when(reportRepository.streamFeatureRows(null)).thenReturn(Stream.of(row(1L, null), row(2L, 3)));
+
+        String body = write(exportService.export(ReportExportService.Format.NDJSON, null));
+
+        assertThat(body.split("\n")).hasSize(2);
+        assertThat(body).startsWith("{\"reportId\":1,").contains("\"reportUpdatedAt\":\"2025-03-01T10:00:00\"");
+    }
+
+    @Test
+    void writesCsvWithHeaderAndEmptyFieldsForMissingDisputes() throws Exception {
+        when(reportRepository.streamFeatureRows(UPDATED_AT)).thenReturn(Stream.of(row(1L, null), row(2L, 3)));
+
+        String body = write(exportService.export(ReportExportService.Format.CSV, UPDATED_AT));
+
+        assertThat(body.split("\n")).containsExactly(
+                "reportId,contractId,tenantId,contractState,typeOfRental,rentAmount,totalPaidSoFar,totalExpectedSoFar,"
+                        + "paidPeriods,missedPeriods,status,reportUpdatedAt,totalDisputes,daysSinceLastDispute,lastDisputeDate",
+                "1,10,100,ACTIVE,MONTHLY,1000.0,2000.0,3000.0,2,1,LATE,2025-03-01T10:00,,,",
+                "2,20,100,ACTIVE,MONTHLY,1000.0,2000.0,3000.0,2,1,LATE,2025-03-01T10:00,3,12,2025-03-01T10:00");
+    }
+
+    @Test
+    void closesTheCursorAndReleasesTheSlot() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        AtomicReference<Throwable> concurrent = new AtomicReference<>();
+        // Second export started while the first one streams its rows: the only slot is taken
+        when(reportRepository.streamFeatureRows(null))
+                .thenReturn(Stream.of(row(1L, null))
+                        .peek(row -> concurrent.set(catchThrowable(() ->
+                                write(exportService.export(ReportExportService.Format.NDJSON, null)))))
+                        .onClose(() -> closed.set(true)))
+                .thenReturn(Stream.empty());
+
+        write(exportService.export(ReportExportService.Format.NDJSON, null));
+
+        assertThat(concurrent.get()).isInstanceOfSatisfying(ResponseStatusException.class,
+                e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS));
+        assertThat(closed).isTrue();
+        write(exportService.export(ReportExportService.Format.NDJSON, null));
+    }
+
+    @Test
+    void bodiesThatAreNeverWrittenHoldNoSlot() throws Exception {
+        when(reportRepository.streamFeatureRows(null)).thenReturn(Stream.of(row(1L, null)));
+
+        exportService.export(ReportExportService.Format.NDJSON, null);
+        exportService.export(ReportExportService.Format.NDJSON, null);
+
+        assertThat(write(exportService.export(ReportExportService.Format.NDJSON, null))).startsWith("{\"reportId\":1,");
+    }
+
+    private static ReportFeatureRow row(Long id, Integer totalDisputes) {
+        return new ReportFeatureRow(id, id * 10, 100L, RentalContractState.ACTIVE, TypeOfRental.MONTHLY, 1000.0,
+                2000.0, 3000.0, 2, 1, "LATE", UPDATED_AT,
+                totalDisputes, totalDisputes == null ? null : 12, totalDisputes == null ? null : UPDATED_AT);
+    }
+
+    private static String write(StreamingResponseBody body) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,146 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.services;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.dtos.RevenuePointDto;
+import com.lsiproject.app.rentalagreementmicroservicev2.entities.RentalContract;
+import com.lsiproject.app.rentalagreementmicroservicev2.entities.RevenueRollup;
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.PaymentStatus;
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.RevenueGranularity;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.PaymentRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.RentalContractRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.RevenueRollupRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.security.UserPrincipal;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@PaymentJpaTest
+class RevenueRollupServiceTest {
+
+    private static final long OWNER = 1L;
+    private static final UserPrincipal OWNER_PRINCIPAL = new UserPrincipal(OWNER, "0xowner", Set.of("LANDLORD"));
+    private static final UserPrincipal OTHER_OWNER = new UserPrincipal(2L, "0xother", Set.of("LANDLORD"));
+
+    @Autowired
+    private RevenueRollupRepository rollupRepository;
+    @Autowired
+    private PaymentRepository paymentRepository;
+    @Autowired
+    private RentalContractRepository contractRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    private RevenueRollupService rollupService;
+
+    @BeforeEach
+    void setUp() {
+        rollupService = new RevenueRollupService(rollupRepository, paymentRepository, contractRepository);
+    }
+
+    @Test
+    void incrementalRollupsMatchTheRebuildFromPayments() {
+        RentalContract first = seedContract(10L);
+        RentalContract second = seedContract(11L);
+        pay(first, 1000.0, LocalDateTime.of(2025, 1, 5, 9, 0), PaymentStatus.CONFIRMED);
+        pay(first, 250.0, LocalDateTime.of(2025, 1, 5, 18, 0), PaymentStatus.CONFIRMED);
+        pay(first, 1000.0, LocalDateTime.of(2025, 2, 5, 9, 0), PaymentStatus.CONFIRMED);
+        pay(second, 700.0, LocalDateTime.of(2025, 1, 20, 9, 0), PaymentStatus.CONFIRMED);
+        pay(second, 700.0, LocalDateTime.of(2025, 2, 20, 9, 0), PaymentStatus.PENDING);
+
+        Map<String, String> incremental = rollups();
+        assertThat(incremental).containsEntry(key(first, RevenueGranularity.DAY, LocalDate.of(2025, 1, 5)), "1250.0/2")
+                .containsEntry(key(first, RevenueGranularity.MONTH, LocalDate.of(2025, 1, 1)), "1250.0/2")
+                .hasSize(6);
+
+        assertThat(rollupService.rebuild(List.of(first.getIdContract(), second.getIdContract()))).isEqualTo(2);
+        entityManager.clear();
+
+        assertThat(rollups()).isEqualTo(incremental);
+    }
+
+    @Test
+    void ownerSeriesSumsTheirContractsPerPeriod() {
+        RentalContract first = seedContract(10L);
+        RentalContract second = seedContract(11L);
+        pay(first, 1000.0, LocalDateTime.of(2024, 12, 31, 23, 0), PaymentStatus.CONFIRMED);
+        pay(first, 1000.0, LocalDateTime.of(2025, 1, 5, 9, 0), PaymentStatus.CONFIRMED);
+        pay(second, 700.0, LocalDateTime.of(2025, 1, 20, 9, 0), PaymentStatus.CONFIRMED);
+        pay(second, 700.0, LocalDateTime.of(2025, 3, 20, 9, 0), PaymentStatus.CONFIRMED);
+
+        List<RevenuePointDto> monthly = rollupService.getRevenue(RevenueGranularity.MONTH,
+                LocalDate.of(2025, 1, 15), LocalDate.of(2025, 12, 31), null, null, null, OWNER_PRINCIPAL);
+
+        assertThat(monthly).containsExactly(
+                new RevenuePointDto(LocalDate.of(2025, 1, 1), 1700.0, 2L),
+                new RevenuePointDto(LocalDate.of(2025, 3, 1), 700.0, 1L));
+        assertThat(rollupService.getRevenue(RevenueGranularity.DAY, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31),
+                null, 11L, null, OWNER_PRINCIPAL))
+                .containsExactly(new RevenuePointDto(LocalDate.of(2025, 1, 20), 700.0, 1L));
+    }
+
+    @Test
+    void reversalTakesThePaymentBackOut() {
+        RentalContract contract = seedContract(10L);
+        LocalDateTime paidAt = LocalDateTime.of(2025, 4, 2, 10, 0);
+        pay(contract, 1000.0, paidAt, PaymentStatus.CONFIRMED);
+        pay(contract, 400.0, paidAt.plusHours(1), PaymentStatus.CONFIRMED);
+
+        rollupService.apply(contract, List.of(RevenueRollupService.RevenueDelta.reversal(paidAt, 400.0)));
+        entityManager.clear();
+
+        assertThat(rollups()).containsEntry(key(contract, RevenueGranularity.DAY, paidAt.toLocalDate()), "1000.0/1")
+                .containsEntry(key(contract, RevenueGranularity.MONTH, LocalDate.of(2025, 4, 1)), "1000.0/1");
+    }
+
+    @Test
+    void ownersOnlySeeTheirOwnRevenue() {
+        RentalContract contract = seedContract(10L);
+
+        assertThatThrownBy(() -> rollupService.getRevenue(RevenueGranularity.MONTH, LocalDate.of(2025, 1, 1),
+                LocalDate.of(2025, 12, 31), OWNER, null, null, OTHER_OWNER))
+                .isInstanceOf(AccessDeniedException.class);
+        assertThatThrownBy(() -> rollupService.getRevenue(RevenueGranularity.MONTH, LocalDate.of(2025, 1, 1),
+                LocalDate.of(2025, 12, 31), null, null, contract.getIdContract(), OTHER_OWNER))
+                .isInstanceOf(AccessDeniedException.class);
+    }
+
+    // Comme PaymentService : paiement enregistré, puis cumuls mis à jour s'il est confirmé
+    private void pay(RentalContract contract, double amount, LocalDateTime timestamp, PaymentStatus status) {
+        paymentRepository.save(PaymentFixtures.payment(contract, amount,
+                "0x" + contract.getIdContract() + "-" + timestamp + "-" + amount, status, timestamp));
+        if (status == PaymentStatus.CONFIRMED) {
+            rollupService.apply(contract, List.of(RevenueRollupService.RevenueDelta.payment(timestamp, amount)));
+        }
+    }
+
+    // "montant/paiements" par ligne de cumul
+    private Map<String, String> rollups() {
+        entityManager.clear();
+        return rollupRepository.findAll().stream().collect(Collectors.toMap(
+                rollup -> rollup.getContractId() + "|" + rollup.getGranularity() + "|" + rollup.getPeriodStart(),
+                rollup -> rollup.getAmount() + "/" + rollup.getPayments()));
+    }
+
+    private static String key(RentalContract contract, RevenueGranularity granularity, LocalDate periodStart) {
+        return contract.getIdContract() + "|" + granularity + "|" + periodStart;
+    }
+
+    private RentalContract seedContract(Long propertyId) {
+        RentalContract contract =
+                PaymentFixtures.activeContract(1000.0, LocalDate.of(2024, 12, 1), LocalDate.of(2026, 1, 1));
+        contract.setOwnerId(OWNER);
+        contract.setPropertyId(propertyId);
+        return contractRepository.saveAndFlush(contract);
+    }
+}
@@ -0,0 +1,106 @@
+package com.lsiproject.app.rentalagreementmicroservicev2.services;
+
+import com.lsiproject.app.rentalagreementmicroservicev2.entities.DisputeSummary;
+import com.lsiproject.app.rentalagreementmicroservicev2.entities.TenantRiskFeatures;
+import com.lsiproject.app.rentalagreementmicroservicev2.enums.RentalContractState;
+import com.lsiproject.app.rentalagreementmicroservicev2.events.RentalActivityEvent;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.DisputeSummaryRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.PaymentReportRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.RentalContractRepository;
+import com.lsiproject.app.rentalagreementmicroservicev2.repositories.TenantRiskFeaturesRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TenantRiskFeatureServiceTest {
+
+    private TenantRiskFeaturesRepository featuresRepository;
+    private PaymentReportRepository reportRepository;
+    private RentalContractRepository contractRepository;
+    private DisputeSummaryRepository disputeSummaryRepository;
+    private TenantRiskFeatureService featureService;
+
+    @BeforeEach
+    void setUp() {
+        featuresRepository = mock(TenantRiskFeaturesRepository.class);
+        reportRepository = mock(PaymentReportRepository.class);
+        contractRepository = mock(RentalContractRepository.class);
+        disputeSummaryRepository = mock(DisputeSummaryRepository.class);
+        featureService = new TenantRiskFeatureService(featuresRepository, reportRepository, contractRepository,
+                disputeSummaryRepository, mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sumsEveryContractOfTheTenant() {
+        LocalDateTime lastDispute = LocalDateTime.now().minusDays(10);
+        when(reportRepository.aggregatePeriodsByTenantIds(anyCollection()))
+                .thenReturn(List.of(periods(1L, 9, 3)));
+        when(contractRepository.countByTenantIdsAndState(anyCollection(), eq(RentalContractState.ACTIVE)))
+                .thenReturn(List.of(contractCount(1L, 2)));
+        when(disputeSummaryRepository.findAllById(anyCollection())).thenReturn(List.of(
+                DisputeSummary.builder().tenantId(1L).totalDisputes(4).lastDisputeDate(lastDispute).build()));
+
+        assertThat(featureService.refresh(List.of(1L, 2L))).isEqualTo(2);
+
+        ArgumentCaptor<List<TenantRiskFeatures>> saved = ArgumentCaptor.forClass(List.class);
+        verify(featuresRepository).saveAll(saved.capture());
+        Map<Long, TenantRiskFeatures> rows = saved.getValue().stream()
+                .collect(Collectors.toMap(TenantRiskFeatures::getTenantId, Function.identity()));
+
+        TenantRiskFeatures tenant = rows.get(1L);
+        assertThat(tenant.getTotalPaidPeriods()).isEqualTo(9);
+        assertThat(tenant.getTotalMissedPeriods()).isEqualTo(3);
+        assertThat(tenant.getOnTimeRatio()).isEqualTo(0.75);
+        assertThat(tenant.getTotalDisputes()).isEqualTo(4);
+        assertThat(tenant.getDaysSinceLastDispute()).isEqualTo(10);
+        assertThat(tenant.getActiveContracts()).isEqualTo(2);
+
+        TenantRiskFeatures newTenant = rows.get(2L);
+        assertThat(newTenant.getTotalMissedPeriods()).isZero();
+        assertThat(newTenant.getOnTimeRatio()).isEqualTo(1.0);
+        assertThat(newTenant.getDaysSinceLastDispute()).isNull();
+    }
+
+    @Test
+    void activityWithoutTenantIsIgnoredAndFailuresDoNotPropagate() {
+        featureService.onRentalActivity(new RentalActivityEvent(3L, 7L, null));
+        verify(reportRepository, never()).aggregatePeriodsByTenantIds(any());
+
+        when(reportRepository.aggregatePeriodsByTenantIds(anyCollection())).thenThrow(new IllegalStateException("down"));
+        assertThatCode(() -> featureService.onRentalActivity(new RentalActivityEvent(3L, 7L, 1L)))
+                .doesNotThrowAnyException();
+    }
+
+    private static PaymentReportRepository.TenantPeriodsAggregate periods(long tenantId, long paid, long missed) {
+        return new PaymentReportRepository.TenantPeriodsAggregate() {
+            public Long getTenantId() { return tenantId; }
+            public Long getPaidPeriods() { return paid; }
+            public Long getMissedPeriods() { return missed; }
+        };
+    }
+
+    private static RentalContractRepository.TenantContractCount contractCount(long tenantId, long contracts) {
+        return new RentalContractRepository.TenantContractCount() {
+            public Long getTenantId() { return tenantId; }
+            public Long getContracts() { return contracts; }
+        };
+    }
+}